@@ -0,0 +1,68 @@
+package com.event.benchmark.jmh;
+
+import com.event.model.Event;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.HashedWheelPollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.EventStore;
+import com.event.state.MapEventStore;
+import com.event.state.PrimitiveEventStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON rendering of {@code GET /events}: {@link EventServiceImpl#getAllEvents()} written with an object mapper
+ * configured like Spring Boot's to a stream that discards its bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EventListingRenderBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int events;
+
+	@Param({"map", "primitive"})
+	public String store;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private EventServiceImpl service;
+
+	@Setup
+	public void setUp() {
+		EventStore eventStore = "primitive".equals(store) ? new PrimitiveEventStore() : new MapEventStore();
+		// never started, nothing is polled, published or journaled
+		service = new EventServiceImpl(null, new HashedWheelPollingEngine(10, 1024),
+				new AdaptiveIntervalPolicy(true, 10, 2, 60, 1.5), null, null, null, null, null, eventStore, null);
+		Instant now = Instant.now();
+		for (int i = 0; i < events; i++) {
+			eventStore.put(Event.builder().eventId("event-" + i).live(i % 10 != 0).currentScore(i % 7 + "-" + i % 3)
+					.lastUpdated(now).pollingIntervalMillis(10_000L).build());
+		}
+	}
+
+	@Benchmark
+	public void getAllEvents() throws IOException {
+		objectMapper.writeValue(OutputStream.nullOutputStream(), service.getAllEvents());
+	}
+}
@@ -0,0 +1,232 @@
+package com.event.benchmark.jmh;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.event.external.ExternalApiClient;
+import com.event.journal.EventJournal;
+import com.event.metrics.EventMetrics;
+import com.event.metrics.EventMetrics.FetchType;
+import com.event.metrics.EventMetrics.Outcome;
+import com.event.metrics.EventMetrics.PublishMode;
+import com.event.model.Event;
+import com.event.model.EventPriority;
+import com.event.publisher.MessagePublisher;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.scheduler.PollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.EventStore;
+import com.event.state.MapEventStore;
+import com.event.state.PrimitiveEventStore;
+import com.event.stream.EventUpdateBroadcaster;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The poll path of {@link EventServiceImpl} from a due tick to the publish: in-flight bookkeeping, the upstream
+ * call, score update, interval adaptation, publish policy, SSE broadcast without subscribers and the async publish.
+ * Client and publisher are stubs that answer at once, every other poll changes the score. {@code single} polls one
+ * event per tick, {@code batch} one tick of {@value #BATCH_SIZE} events fetched with a single upstream call.
+ * The stubs record fetch and publish metrics like the real client and publisher, {@code metrics=none} binds them
+ * to no registry, {@code prometheus} to a Prometheus registry with percentile histograms as configured in the app.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPollPathBenchmark {
+
+	private static final int EVENTS = 10_000;
+	private static final int BATCH_SIZE = 50;
+	private static final String[] SCORES = {"0-0", "1-0"};
+
+	@Param({"map", "primitive"})
+	public String store;
+
+	@Param({"none", "prometheus"})
+	public String metrics;
+
+	private final String[] eventIds = IntStream.range(0, EVENTS).mapToObj(i -> "event-" + i).toArray(String[]::new);
+
+	private PollingEngine.DueEventsHandler handler;
+	private List<List<String>> batches;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		((Logger) LoggerFactory.getLogger("com.event")).setLevel(Level.WARN);
+		EventStore eventStore = "primitive".equals(store) ? new PrimitiveEventStore() : new MapEventStore();
+		CapturingPollingEngine pollingEngine = new CapturingPollingEngine();
+		EventMetrics eventMetrics = new EventMetrics(registry(metrics));
+		EventServiceImpl service = new EventServiceImpl(
+				new DeadlineDispatcher(Runnable::run, 64, BATCH_SIZE, Map.of(), Set.of(EventPriority.LOW), eventMetrics), pollingEngine,
+				new AdaptiveIntervalPolicy(true, 10, 2, 60, 1.5), new ChangingApiClient(eventMetrics),
+				new IdlePublisher(eventMetrics), new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 10),
+				new EventJournal(false, Path.of("unused"), 64), new EventUpdateBroadcaster(256, 10_000, 1_800_000),
+				eventStore, eventMetrics);
+		ReflectionTestUtils.setField(service, "asyncPublish", true);
+		ReflectionTestUtils.invokeMethod(service, "startPolling");
+		handler = pollingEngine.handler;
+
+		for (String eventId : eventIds) {
+			service.updateEventStatus(eventId, true);
+		}
+		batches = IntStream.range(0, EVENTS / BATCH_SIZE)
+				.mapToObj(i -> List.of(eventIds).subList(i * BATCH_SIZE, (i + 1) * BATCH_SIZE)).toList();
+	}
+
+	@Benchmark
+	public void single() {
+		handler.onDue(List.of(eventIds[next++ % EVENTS]), System.nanoTime());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void batch() {
+		handler.onDue(batches.get(next++ % batches.size()), System.nanoTime());
+	}
+
+	private static MeterRegistry registry(String metrics) {
+		if ("none".equals(metrics)) {
+			// a composite without registries hands out noop meters
+			return new CompositeMeterRegistry();
+		}
+		PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		// what management.metrics.distribution.percentiles-histogram.event=true applies in the app
+		registry.config().meterFilter(new MeterFilter() {
+			@Override
+			public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+				return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+			}
+		});
+		return registry;
+	}
+
+	// every call returns the other score of the pair, as a fresh object like a parsed response
+	private static class ChangingApiClient implements ExternalApiClient {
+
+		private final EventMetrics eventMetrics;
+		private int calls;
+
+		ChangingApiClient(EventMetrics eventMetrics) {
+			this.eventMetrics = eventMetrics;
+		}
+
+		@Override
+		public Event fetchEventData(String eventId) {
+			long start = System.nanoTime();
+			Event event = event(eventId);
+			eventMetrics.recordFetch(FetchType.SINGLE, Outcome.SUCCESS, System.nanoTime() - start);
+			return event;
+		}
+
+		@Override
+		public Map<String, Event> fetchEventsData(Collection<String> eventIds) {
+			long start = System.nanoTime();
+			Map<String, Event> events = new LinkedHashMap<>();
+			for (String eventId : eventIds) {
+				events.put(eventId, event(eventId));
+			}
+			eventMetrics.recordFetch(FetchType.BATCH, Outcome.SUCCESS, System.nanoTime() - start);
+			return events;
+		}
+
+		private Event event(String eventId) {
+			return Event.builder().eventId(eventId).live(true).currentScore(SCORES[calls++ & 1]).build();
+		}
+	}
+
+	private static class IdlePublisher implements MessagePublisher {
+
+		private static final CompletableFuture<Void> PUBLISHED = CompletableFuture.completedFuture(null);
+
+		private final EventMetrics eventMetrics;
+
+		IdlePublisher(EventMetrics eventMetrics) {
+			this.eventMetrics = eventMetrics;
+		}
+
+		@Override
+		public void publishEventUpdate(Event event) {
+		}
+
+		@Override
+		public CompletableFuture<Void> publishEventUpdateAsync(Event event) {
+			long start = System.nanoTime();
+			eventMetrics.recordPublish(PublishMode.ASYNC, Outcome.SUCCESS, System.nanoTime() - start);
+			return PUBLISHED;
+		}
+	}
+
+	// keeps the handler so the benchmark can fire ticks itself, every event counts as scheduled
+	private static class CapturingPollingEngine implements PollingEngine {
+
+		private DueEventsHandler handler;
+
+		@Override
+		public void start(DueEventsHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public void stop() {
+		}
+
+		@Override
+		public void schedule(String eventId, Duration initialDelay, Duration interval) {
+		}
+
+		@Override
+		public boolean updateInterval(String eventId, Duration interval) {
+			return true;
+		}
+
+		@Override
+		public boolean cancel(String eventId) {
+			return true;
+		}
+
+		@Override
+		public boolean isScheduled(String eventId) {
+			return true;
+		}
+
+		@Override
+		public int size() {
+			return 0;
+		}
+	}
+}
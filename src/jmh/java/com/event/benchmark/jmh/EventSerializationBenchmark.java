@@ -0,0 +1,62 @@
+package com.event.benchmark.jmh;
+
+import com.event.config.KafkaConfig;
+import com.event.model.Event;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of one published update with the value serializer {@link KafkaConfig} configures for each
+ * {@code kafka.producer.value-format}, a record gets fresh headers as it does in the producer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+	private static final Event EVENT = Event.builder().eventId("game-123456").live(true).currentScore("2-1").build();
+
+	@Param({"JSON", "BINARY"})
+	public KafkaConfig.ValueFormat format;
+
+	private Serializer<Event> serializer;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+		ReflectionTestUtils.setField(kafkaConfig, "valueFormat", format);
+		// the factory only holds the properties, no producer is created
+		Map<String, Object> properties = ((DefaultKafkaProducerFactory<String, Event>) kafkaConfig.producerFactory())
+				.getConfigurationProperties();
+		Class<?> serializerClass = (Class<?>) properties.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+		serializer = (Serializer<Event>) serializerClass.getDeclaredConstructor().newInstance();
+		serializer.configure(properties, false);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.serialize("event-updates", new RecordHeaders(), EVENT);
+	}
+}
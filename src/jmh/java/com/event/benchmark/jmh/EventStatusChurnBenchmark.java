@@ -0,0 +1,87 @@
+package com.event.benchmark.jmh;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.event.external.ExternalApiClient;
+import com.event.journal.EventJournal;
+import com.event.model.Event;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.HashedWheelPollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.EventStore;
+import com.event.state.MapEventStore;
+import com.event.state.PrimitiveEventStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Start then stop of one event through {@link EventServiceImpl#updateEventStatus}, cycling over
+ * {@value #EVENTS} ids: store update, wheel schedule and cancel, publish policy and client bookkeeping.
+ * The wheel is never started and the journal is off, {@code com.event} logs at WARN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventStatusChurnBenchmark {
+
+	private static final int EVENTS = 10_000;
+
+	@Param({"map", "primitive"})
+	public String store;
+
+	private final String[] eventIds = IntStream.range(0, EVENTS).mapToObj(i -> "event-" + i).toArray(String[]::new);
+
+	private EventServiceImpl service;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		((Logger) LoggerFactory.getLogger("com.event")).setLevel(Level.WARN);
+		EventStore eventStore = "primitive".equals(store) ? new PrimitiveEventStore() : new MapEventStore();
+		service = new EventServiceImpl(null, new HashedWheelPollingEngine(10, 1024),
+				new AdaptiveIntervalPolicy(true, 10, 2, 60, 1.5), new IdleApiClient(), null,
+				new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 10), new EventJournal(false, Path.of("unused"), 64),
+				null, eventStore, null);
+	}
+
+	@Benchmark
+	public void startStop() {
+		String eventId = eventIds[next++ % EVENTS];
+		service.updateEventStatus(eventId, true);
+		service.updateEventStatus(eventId, false);
+	}
+
+	// nothing is polled, only forget is called on a stop
+	private static class IdleApiClient implements ExternalApiClient {
+
+		@Override
+		public Event fetchEventData(String eventId) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<String, Event> fetchEventsData(Collection<String> eventIds) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package com.event.cluster;
+
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
+import com.event.service.EventService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cluster mode, tracking commands are written to a compacted control topic keyed by event id so every
+ * command of an event lands on the same partition. Control partitions are split across the instances by the
+ * consumer group and an instance polls exactly the events of its partitions.
+ * <p>
+ * On assignment a partition is replayed from the beginning to rebuild the live events it holds,
+ * on revocation its events are released so the new owner is the only one polling them.
+ * <p>
+ * A stop is written as a tombstone, so compaction eventually drops the event from the topic and a replay no
+ * longer restores it. A stopped event stays listed on the instance that stopped it until the partition moves.
+ */
+@Component
+@ConditionalOnProperty(name = "event.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaTrackingCommandRouter implements TrackingCommandRouter, ConsumerSeekAware {
+
+    private final KafkaTemplate<String, EventStatusRequest> trackingCommandTemplate;
+    private final EventService eventService;
+
+    @Value("${kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${event.cluster.control-topic:event-tracking-commands}")
+    private String controlTopic;
+
+    @Value("${event.cluster.control-partitions:12}")
+    private int controlPartitions;
+
+    @Value("${event.cluster.command-timeout-seconds:5}")
+    private long commandTimeoutSeconds;
+
+    // events seen on each partition owned by this instance
+    private final Map<Integer, Set<String>> ownedEvents = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void createControlTopic() {
+        KafkaAdmin admin = new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+        admin.createOrModifyTopics(TopicBuilder.name(controlTopic).partitions(controlPartitions).compact().build());
+    }
+
+    /**
+     * Writes the command to the control topic, it is applied by the instance owning its partition.
+     */
+    @Override
+    public void route(String eventId, boolean live, EventPriority priority) {
+        EventStatusRequest command = null;
+        if (live) {
+            command = new EventStatusRequest();
+            command.setEventId(eventId);
+            command.setStatus(true);
+            command.setPriority(priority);
+        }
+
+        try {
+            trackingCommandTemplate.send(controlTopic, eventId, command).get(commandTimeoutSeconds, TimeUnit.SECONDS);
+            log.debug("Routed tracking command for event {}: live={}", eventId, live);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackingCommandException("Interrupted routing tracking command for event: " + eventId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error routing tracking command for event {}: {}", eventId, e.getMessage());
+            throw new TrackingCommandException("Failed to route tracking command for event: " + eventId, e);
+        }
+    }
+
+    /**
+     * Writes all commands to the control topic before waiting for any of them, the producer batches them
+     * and the whole request waits for at most one command timeout.
+     */
+    @Override
+    public List<EventStatusResult> routeAll(List<EventStatusRequest> requests) {
+        List<CompletableFuture<SendResult<String, EventStatusRequest>>> sends = new ArrayList<>(requests.size());
+        for (EventStatusRequest request : requests) {
+            sends.add(request == null || request.getEventId() == null || request.getEventId().isBlank()
+                    ? null
+                    : trackingCommandTemplate.send(controlTopic, request.getEventId(), request.isStatus() ? request : null));
+        }
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(commandTimeoutSeconds);
+        List<EventStatusResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            EventStatusRequest request = requests.get(i);
+            CompletableFuture<SendResult<String, EventStatusRequest>> send = sends.get(i);
+            if (send == null) {
+                results.add(EventStatusResult.rejected(request, "Event ID is required"));
+                continue;
+            }
+            try {
+                send.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                results.add(EventStatusResult.applied(request));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TrackingCommandException("Interrupted routing tracking commands", e);
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Error routing tracking command for event {}: {}", request.getEventId(), e.getMessage());
+                results.add(EventStatusResult.rejected(request, "Failed to route tracking command"));
+            }
+        }
+        log.debug("Routed {} tracking commands", requests.size());
+        return results;
+    }
+
+    @KafkaListener(topics = "${event.cluster.control-topic:event-tracking-commands}",
+            containerFactory = "trackingCommandListenerContainerFactory")
+    void onCommand(ConsumerRecord<String, EventStatusRequest> record) {
+        String eventId = record.key();
+        EventStatusRequest command = record.value();
+        if (eventId == null) {
+            log.warn("Skipping tracking command without an event id at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+
+        ownedEvents.computeIfAbsent(record.partition(), partition -> ConcurrentHashMap.newKeySet()).add(eventId);
+        if (command == null) {
+            // tombstone of a stopped event
+            eventService.updateEventStatus(eventId, false);
+            return;
+        }
+        eventService.updateEventStatus(eventId, command.isStatus(), command.getPriority());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (assignments.isEmpty()) {
+            return;
+        }
+        log.info("Taking over control partitions {}", assignments.keySet());
+        assignments.keySet().forEach(partition -> ownedEvents.computeIfAbsent(partition.partition(), p -> ConcurrentHashMap.newKeySet()));
+        // the compacted topic holds the latest command of every event, replaying it rebuilds the live set
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        log.info("Handing over control partitions {}", partitions);
+        for (TopicPartition partition : partitions) {
+            Set<String> eventIds = ownedEvents.remove(partition.partition());
+            if (eventIds != null) {
+                eventIds.forEach(eventService::releaseEvent);
+            }
+        }
+    }
+
+    /**
+     * @return control partitions currently owned by this instance
+     */
+    public Set<Integer> getOwnedPartitions() {
+        return new TreeSet<>(ownedEvents.keySet());
+    }
+
+    public static class TrackingCommandException extends RuntimeException {
+        public TrackingCommandException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.event.cluster;
+
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
+import com.event.service.EventService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Single instance mode, every event is owned and polled by this instance.
+ */
+@Component
+@ConditionalOnProperty(name = "event.cluster.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalTrackingCommandRouter implements TrackingCommandRouter {
+
+    private final EventService eventService;
+
+    @Override
+    public void route(String eventId, boolean live, EventPriority priority) {
+        eventService.updateEventStatus(eventId, live, priority);
+    }
+
+    @Override
+    public List<EventStatusResult> routeAll(List<EventStatusRequest> requests) {
+        return eventService.updateEventStatuses(requests);
+    }
+}
@@ -0,0 +1,26 @@
+package com.event.cluster;
+
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
+
+import java.util.List;
+
+/**
+ * Routes start/stop tracking commands to the instance that owns the event.
+ */
+public interface TrackingCommandRouter {
+
+    /**
+     * @param eventId event to start or stop tracking
+     * @param live true to start tracking, false to stop
+     * @param priority polling tier of a started event, null keeps the current tier
+     */
+    void route(String eventId, boolean live, EventPriority priority);
+
+    /**
+     * @param requests start/stop commands, invalid ones are rejected without stopping the others
+     * @return one result per request, in request order
+     */
+    List<EventStatusResult> routeAll(List<EventStatusRequest> requests);
+}
@@ -1,39 +1,107 @@
 package com.event.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class AppConfig {
 
     public static final String EVENT_SCHEDULER_PREFIX = "event-scheduler-";
+    public static final String EVENT_POLLER_PREFIX = "event-poller-";
+    public static final String UPSTREAM_HTTP_PREFIX = "upstream-http-";
+    public static final int SCHEDULER_POOL_SIZE = 10;
+
+    @Value("${event.polling.execution-mode:virtual}")
+    private PollingExecutionMode pollingExecutionMode;
+
+    @Value("${event.api.http.version:http-2}")
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    @Value("${event.api.http.connect-timeout-millis:2000}")
+    private long connectTimeoutMillis = 2000;
+
+    @Value("${event.api.http.read-timeout-millis:5000}")
+    private long readTimeoutMillis = 5000;
 
     /**
-     * rest template bean
+     * rest template bean, backed by the pooled upstream http client
      *
      * @return {@link RestTemplate}
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpClient upstreamHttpClient) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(upstreamHttpClient);
+        // covers the whole exchange: the body stream is closed once it runs out, not only the wait for headers
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * http client shared by every upstream call. Connections are kept alive and reused per host,
+     * over HTTP/2 concurrent requests to a host are multiplexed on a single connection.
+     * The number of connections opened per host is bounded by {@link com.event.external.HostConcurrencyLimiter}.
+     * The keep-alive and the idle pool size are JVM-wide, set with {@code -Djdk.httpclient.keepalive.timeout} and
+     * {@code -Djdk.httpclient.connectionPoolSize}.
+     *
+     * @return {@link HttpClient}
+     */
+    @Bean
+    public HttpClient upstreamHttpClient() {
+        return HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(UPSTREAM_HTTP_PREFIX, 0).factory()))
+                .build();
     }
 
     /**
-     * task scheduler bean
+     * task scheduler bean, also the polling worker pool in platform execution mode
      *
-     * @return {@link TaskScheduler}
+     * @return {@link ThreadPoolTaskScheduler}
      */
     @Bean
-    public TaskScheduler taskScheduler() {
+    public ThreadPoolTaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
-        scheduler.setPoolSize(10);
+        scheduler.setPoolSize(SCHEDULER_POOL_SIZE);
         scheduler.setThreadNamePrefix(EVENT_SCHEDULER_PREFIX);
         scheduler.setWaitForTasksToCompleteOnShutdown(true);
         scheduler.setAwaitTerminationSeconds(60);
         scheduler.initialize();
         return scheduler;
     }
+
+    /**
+     * executor the due polls run on. In virtual mode the polling wheel only triggers work and every
+     * blocking fetch/publish gets its own virtual thread, in platform mode polls share the task scheduler pool.
+     *
+     * @return {@link Executor}
+     */
+    @Bean
+    public Executor pollingExecutor() {
+        if (pollingExecutionMode == PollingExecutionMode.VIRTUAL) {
+            return virtualThreadExecutor();
+        }
+        ThreadPoolTaskScheduler scheduler = taskScheduler();
+        return scheduler::execute;
+    }
+
+    private ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(EVENT_POLLER_PREFIX, 0).factory());
+    }
+
+    public enum PollingExecutionMode {
+        PLATFORM,
+        VIRTUAL
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.event.config;
+
+import com.event.model.EventStatusRequest;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka wiring of the cluster mode, tracking commands go through a compacted control topic keyed by event id
+ * and each instance polls the events of the control partitions assigned to it.
+ */
+@Configuration
+@EnableKafka
+@ConditionalOnProperty(name = "event.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Value("${kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${event.cluster.group-id:event-monitoring-cluster}")
+    private String groupId;
+
+    /**
+     * tracking command producer config
+     *
+     * @return {@link ProducerFactory}
+     */
+    @Bean
+    public ProducerFactory<String, EventStatusRequest> trackingCommandProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    /**
+     * tracking command template bean
+     *
+     * @return {@link KafkaTemplate}
+     */
+    @Bean
+    public KafkaTemplate<String, EventStatusRequest> trackingCommandTemplate() {
+        return new KafkaTemplate<>(trackingCommandProducerFactory());
+    }
+
+    /**
+     * tracking command consumer config. Cooperative rebalancing only moves the partitions that change owner,
+     * the events of the partitions an instance keeps are polled without interruption. A command that does not
+     * deserialize is logged and skipped by the container's error handler instead of blocking its partition.
+     *
+     * @return {@link ConsumerFactory}
+     */
+    @Bean
+    public ConsumerFactory<String, EventStatusRequest> trackingCommandConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(EventStatusRequest.class, false)));
+    }
+
+    /**
+     * listener container factory of the control topic
+     *
+     * @return {@link ConcurrentKafkaListenerContainerFactory}
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventStatusRequest> trackingCommandListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, EventStatusRequest> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(trackingCommandConsumerFactory());
+        return factory;
+    }
+}
@@ -1,13 +1,18 @@
  package com.event.config;
 
 import com.event.model.Event;
+import com.event.serialization.EventBinarySerializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
@@ -20,6 +25,13 @@ public class KafkaConfig {
     @Value("${kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.producer.value-format:json}")
+    private ValueFormat valueFormat = ValueFormat.JSON;
+
+    // binds the producer client metrics (request latency, record retries), absent when built outside a context
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     /**
      * kafka producer config
      *
@@ -27,24 +39,62 @@ public class KafkaConfig {
      */
     @Bean
     public ProducerFactory<String, Event> producerFactory() {
+        return newProducerFactory(valueFormat == ValueFormat.BINARY ? EventBinarySerializer.class : JsonSerializer.class);
+    }
+
+    /**
+     * kafka template bean
+     *
+     * @return {@link KafkaTemplate}
+     */
+    @Bean
+    public KafkaTemplate<String, Event> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    /**
+     * producer of the multi-update envelopes, values are encoded by the publisher and sent as they are.
+     * Its producer is only created once the first envelope is sent
+     *
+     * @return {@link ProducerFactory}
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> envelopeProducerFactory() {
+        return newProducerFactory(ByteArraySerializer.class);
+    }
+
+    /**
+     * kafka template of the multi-update envelopes
+     *
+     * @return {@link KafkaTemplate}
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> envelopeKafkaTemplate() {
+        return new KafkaTemplate<>(envelopeProducerFactory());
+    }
+
+    private <V> ProducerFactory<String, V> newProducerFactory(Class<?> valueSerializer) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer);
 
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
 
-        return new DefaultKafkaProducerFactory<>(configProps);
+        DefaultKafkaProducerFactory<String, V> producerFactory = new DefaultKafkaProducerFactory<>(configProps);
+        if (meterRegistry != null) {
+            producerFactory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        }
+        return producerFactory;
     }
 
     /**
-     * kafka template bean
-     *
-     * @return {@link KafkaTemplate}
+     * Wire format of the event records, consumers can read both with
+     * {@link com.event.serialization.EventBinaryDeserializer}.
      */
-    @Bean
-    public KafkaTemplate<String, Event> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public enum ValueFormat {
+        JSON,
+        BINARY
     }
 }
\ No newline at end of file
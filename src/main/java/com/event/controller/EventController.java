@@ -1,15 +1,43 @@
 package com.event.controller;
 
+import com.event.cluster.TrackingCommandRouter;
 import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventFilter;
+import com.event.model.EventPage;
 import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
 import com.event.service.EventService;
+import com.event.stream.EventUpdateBroadcaster;
+import com.event.stream.EventUpdateBroadcaster.TooManySubscribersException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/events")
@@ -18,17 +46,169 @@ import java.util.Map;
 public class EventController {
 
     private final EventService eventService;
+    private final TrackingCommandRouter trackingCommandRouter;
+    private final ObjectMapper objectMapper;
+    private final EventUpdateBroadcaster eventUpdateBroadcaster;
+    private final ApplicationAvailability applicationAvailability;
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10_000;
+    public static final String SATURATED_MESSAGE = "Service is saturated, not accepting new events";
 
     @PostMapping("/status")
     public ResponseEntity<Void> updateEventStatus(@Valid @RequestBody EventStatusRequest request) {
         log.info("Received status update for event {}: {}", request.getEventId(), request.isStatus());
-        eventService.updateEventStatus(request.getEventId(), request.isStatus());
+        if (request.isStatus() && refusingTraffic()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, SATURATED_MESSAGE);
+        }
+        trackingCommandRouter.route(request.getEventId(), request.isStatus(), request.getPriority());
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Starts and stops tracking of many events in one request, in request order.
+     * @param requests status changes, at most {@value #MAX_BATCH_SIZE}
+     * @return one result per change, a rejected change does not stop the others. While the app refuses traffic
+     * starts are rejected and only stops are applied
+     */
+    @PostMapping("/status/batch")
+    public ResponseEntity<List<EventStatusResult>> updateEventStatuses(@RequestBody List<EventStatusRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " status changes per request");
+        }
+        log.info("Received {} status updates", requests.size());
+        if (refusingTraffic()) {
+            return ResponseEntity.ok(routeStopsOnly(requests));
+        }
+        return ResponseEntity.ok(trackingCommandRouter.routeAll(requests));
+    }
+
     @GetMapping
     public ResponseEntity<Map<String, Event>> getAllEvents() {
         log.info("Getting all events");
         return ResponseEntity.ok(eventService.getAllEvents());
     }
+
+    /**
+     * One page of events ordered by id, pass the returned cursor to get the next one.
+     * @param limit page size, at most {@value #MAX_PAGE_SIZE}
+     * @param cursor next cursor of the previous page
+     * @param live only events with this status
+     * @param updatedSince only events polled at or after this ISO-8601 instant
+     * @return the page
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<EventPage> getEvents(@RequestParam int limit,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Boolean live,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant updatedSince) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        log.debug("Getting {} events after cursor {}", limit, cursor);
+
+        EventPage page = eventService.getEvents(new EventFilter(live, updatedSince), decodeCursor(cursor), limit);
+        return ResponseEntity.ok(new EventPage(page.events(), encodeCursor(page.nextCursor())));
+    }
+
+    /**
+     * Events changed since a version the client holds, so refreshing a view reads what changed and not every event.
+     * Versions are local to the instance, like the events of {@link #getAllEvents()}.
+     * @param sinceVersion version of the previous delta, 0 for every event
+     * @return the delta, with the version to ask the next one from
+     */
+    @GetMapping(params = {"sinceVersion", "!limit"})
+    public ResponseEntity<EventDelta> getChangedEvents(@RequestParam long sinceVersion) {
+        if (sinceVersion < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sinceVersion must not be negative");
+        }
+        log.debug("Getting events changed since version {}", sinceVersion);
+        return ResponseEntity.ok(eventService.getChangedEvents(sinceVersion));
+    }
+
+    /**
+     * Streams the matching events as newline delimited JSON. Events are written one by one as they are visited,
+     * the response is never materialized and the servlet thread is released while it is written.
+     * @param live only events with this status
+     * @param updatedSince only events polled at or after this ISO-8601 instant
+     * @return one event per line
+     */
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamEvents(@RequestParam(required = false) Boolean live,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant updatedSince) {
+        log.info("Streaming events");
+        EventFilter filter = new EventFilter(live, updatedSince);
+        // flushing after every event would turn each line into its own write
+        ObjectWriter writer = objectMapper.writerFor(Event.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                eventService.forEachEvent(filter, event -> {
+                    try {
+                        writer.writeValue(generator, event);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    /**
+     * Pushes the published updates as Server-Sent Events named {@value EventUpdateBroadcaster#UPDATES_EVENT_NAME},
+     * each holding a JSON array of updates. A client that falls behind receives only the latest update of each event.
+     * @param eventId events to receive the updates of, every event when absent
+     * @return the event stream
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEventUpdates(@RequestParam(required = false) Set<String> eventId) {
+        log.debug("Subscribing to updates of {}", eventId == null ? "all events" : eventId);
+        try {
+            return eventUpdateBroadcaster.subscribe(eventId);
+        } catch (TooManySubscribersException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Readiness is refused by the health prober while the pipeline is saturated, new tracking would only add to it.
+     */
+    private boolean refusingTraffic() {
+        return applicationAvailability.getReadinessState() == ReadinessState.REFUSING_TRAFFIC;
+    }
+
+    private List<EventStatusResult> routeStopsOnly(List<EventStatusRequest> requests) {
+        List<EventStatusRequest> stops = new ArrayList<>();
+        for (EventStatusRequest request : requests) {
+            if (request == null || !request.isStatus()) {
+                stops.add(request);
+            }
+        }
+        Iterator<EventStatusResult> routed = trackingCommandRouter.routeAll(stops).iterator();
+        List<EventStatusResult> results = new ArrayList<>(requests.size());
+        for (EventStatusRequest request : requests) {
+            results.add(request != null && request.isStatus() ? EventStatusResult.rejected(request, SATURATED_MESSAGE) : routed.next());
+        }
+        log.warn("Saturated, rejected {} of {} status changes that start tracking", requests.size() - stops.size(), requests.size());
+        return results;
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encodeCursor(String eventId) {
+        return eventId == null ? null : Base64.getUrlEncoder().withoutPadding().encodeToString(eventId.getBytes(StandardCharsets.UTF_8));
+    }
 }
\ No newline at end of file
@@ -1,46 +1,27 @@
 package com.event.controller;
 
+import com.event.health.HealthProber;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.ListTopicsResult;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/health")
 @RequiredArgsConstructor
-@Slf4j
 public class HealthController {
 
-    private final KafkaAdmin kafkaAdmin;
+    private final HealthProber healthProber;
 
     /**
-     * health check end point for app and kafka
+     * health check end point for app and kafka, served from the snapshot of the last background probe
      * @return health status
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> healthCheck() {
-        Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
-
-        try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
-            ListTopicsResult topics = adminClient.listTopics();
-            topics.names().get(5, TimeUnit.SECONDS);
-            health.put("kafka", "UP");
-        } catch (Exception e) {
-            log.warn("Kafka health check failed: {}", e.getMessage());
-            health.put("kafka", "DOWN");
-            health.put("error", e.getMessage());
-        }
-
-        return ResponseEntity.ok(health);
+        return ResponseEntity.ok(healthProber.snapshot());
     }
 }
\ No newline at end of file
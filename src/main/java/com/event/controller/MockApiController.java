@@ -1,40 +1,299 @@
 package com.event.controller;
 
+import com.event.external.BatchEtag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Mock upstream, which doubles as a simulator for load tests: responses can be delayed following a latency
+ * distribution, fail with 503 or hang past the client timeout, and scores can move on per request or on the
+ * wall clock, see {@code application-load-test.properties}.
+ */
 @RestController
 @RequestMapping("/mock-api")
 @Slf4j
 public class MockApiController {
 
-    private final Map<String, AtomicInteger> eventScores = new ConcurrentHashMap<>();
+    private final Map<String, Score> eventScores = new ConcurrentHashMap<>();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    // chance that a request sees a new score, 1.0 changes the score on every request
+    @Value("${event.api.mock.score-change-probability:1.0}")
+    private double scoreChangeProbability = 1.0;
+
+    // when positive scores move on after an exponentially distributed time of this mean instead of per request
+    @Value("${event.api.mock.score-change-interval-millis:0}")
+    private long scoreChangeIntervalMillis;
+
+    @Value("${event.api.mock.latency.distribution:none}")
+    private LatencyDistribution latencyDistribution = LatencyDistribution.NONE;
+
+    @Value("${event.api.mock.latency.mean-millis:0}")
+    private double latencyMeanMillis;
+
+    // spread of the log-normal distribution, the mean stays at mean-millis
+    @Value("${event.api.mock.latency.sigma:1.0}")
+    private double latencySigma = 1.0;
+
+    @Value("${event.api.mock.latency.max-millis:5000}")
+    private long latencyMaxMillis = 5000;
+
+    // chance that a request fails with 503 after its latency
+    @Value("${event.api.mock.error-rate:0.0}")
+    private double errorRate;
+
+    // chance that a request only answers (504) after timeout-millis, which should exceed the client read timeout
+    @Value("${event.api.mock.timeout-rate:0.0}")
+    private double timeoutRate;
+
+    @Value("${event.api.mock.timeout-millis:30000}")
+    private long timeoutMillis = 30000;
+
+    private volatile PollObserver pollObserver;
 
     /**
      * Mock external end point to get the latest score.
+     * The score is the ETag, a request whose If-None-Match still matches gets 304 Not Modified without a body.
      * @param eventId current event
+     * @param ifNoneMatch ETag of the previous response, if any
      * @return updated event data
      */
     @GetMapping("/events/{eventId}")
-    public ResponseEntity<Map<String, String>> getEventData(@PathVariable String eventId) {
+    public ResponseEntity<Map<String, String>> getEventData(@PathVariable String eventId,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Mock API received request for event: {}", eventId);
 
-        AtomicInteger score = eventScores.computeIfAbsent(eventId, k -> new AtomicInteger(0));
+        HttpStatus failure = simulateUpstream();
+        if (failure != null) {
+            return ResponseEntity.status(failure).build();
+        }
+
+        int score = nextScore(eventId);
+        String etag = etag(score);
+        if (etag.equals(ifNoneMatch)) {
+            log.info("Mock API returning not modified for event {}: {}", eventId, etag);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        Map<String, String> response = eventData(eventId, score);
+
+        log.info("Mock API returning data for event {}: {}", eventId, response);
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+    /**
+     * Mock external batch end point to get the latest scores of several events.
+     * Every entry carries the ETag of its event, the response carries their {@link BatchEtag}, a request whose
+     * If-None-Match still matches gets 304 Not Modified without a body.
+     * @param ids events
+     * @param ifNoneMatch batch ETag of the events as the client knows them, if any
+     * @return updated event data, one entry per requested event
+     */
+    @GetMapping("/events")
+    public ResponseEntity<List<Map<String, String>>> getEventsData(@RequestParam List<String> ids,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.info("Mock API received batch request for {} events", ids.size());
+
+        HttpStatus failure = simulateUpstream();
+        if (failure != null) {
+            return ResponseEntity.status(failure).build();
+        }
 
-        Map<String, String> response = Map.of(
+        List<Integer> scores = ids.stream().map(this::nextScore).toList();
+        List<String> etags = scores.stream().map(MockApiController::etag).toList();
+        String batchEtag = BatchEtag.of(ids, etags);
+        if (batchEtag.equals(ifNoneMatch)) {
+            log.info("Mock API returning not modified for {} events", ids.size());
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(batchEtag).build();
+        }
+
+        List<Map<String, String>> response = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Map<String, String> eventData = new HashMap<>(eventData(ids.get(i), scores.get(i)));
+            eventData.put("etag", etags.get(i));
+            response.add(eventData);
+        }
+        return ResponseEntity.ok().eTag(batchEtag).body(response);
+    }
+
+    /**
+     * Counters of the simulated upstream, polls count every event served including those of a batch request.
+     */
+    @GetMapping("/stats")
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "events", (long) eventScores.size(),
+                "polls", polls.sum(),
+                "errors", errors.sum(),
+                "timeouts", timeouts.sum()
+        );
+    }
+
+    /**
+     * @param observer notified of every served poll of an event, null to stop
+     */
+    public void setPollObserver(PollObserver observer) {
+        this.pollObserver = observer;
+    }
+
+    /**
+     * @return when the event moved to this score, -1 if it has moved on since or was never polled
+     */
+    public long getScoreChangedAtMillis(String eventId, int score) {
+        Score state = eventScores.get(eventId);
+        if (state == null) {
+            return -1;
+        }
+        synchronized (state) {
+            return state.value == score ? state.changedAtMillis : -1;
+        }
+    }
+
+    /**
+     * Applies the latency of one request and decides whether it fails.
+     * @return status of a failed request, null if it succeeds
+     */
+    private HttpStatus simulateUpstream() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double outcome = random.nextDouble();
+        if (outcome < timeoutRate) {
+            timeouts.increment();
+            sleep(timeoutMillis);
+            return HttpStatus.GATEWAY_TIMEOUT;
+        }
+        sleep(Math.min(latencyMaxMillis, latencyDistribution.sampleMillis(random, latencyMeanMillis, latencySigma)));
+        if (outcome < timeoutRate + errorRate) {
+            errors.increment();
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return null;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The first request of an event sees score 0, every later request moves it on with
+     * {@code event.api.mock.score-change-probability}, or with every change due since the last request when
+     * {@code event.api.mock.score-change-interval-millis} is set.
+     */
+    private int nextScore(String eventId) {
+        Score score = eventScores.computeIfAbsent(eventId, k -> new Score());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        long sinceLastPollNanos;
+        int value;
+        synchronized (score) {
+            sinceLastPollNanos = score.value < 0 ? -1 : nowNanos - score.lastPolledNanos;
+            score.lastPolledNanos = nowNanos;
+            if (score.value < 0) {
+                score.value = 0;
+                score.changedAtMillis = nowMillis;
+                score.nextChangeAtMillis = nowMillis + nextChangeDelayMillis(random);
+            } else if (scoreChangeIntervalMillis > 0) {
+                while (score.nextChangeAtMillis <= nowMillis) {
+                    score.value++;
+                    score.changedAtMillis = score.nextChangeAtMillis;
+                    score.nextChangeAtMillis += nextChangeDelayMillis(random);
+                }
+            } else if (random.nextDouble() < scoreChangeProbability) {
+                score.value++;
+                score.changedAtMillis = nowMillis;
+            }
+            value = score.value;
+        }
+
+        polls.increment();
+        PollObserver observer = pollObserver;
+        if (observer != null && sinceLastPollNanos >= 0) {
+            observer.onPoll(eventId, sinceLastPollNanos);
+        }
+        return value;
+    }
+
+    private long nextChangeDelayMillis(Random random) {
+        return Math.max(1, (long) (-scoreChangeIntervalMillis * Math.log(1 - random.nextDouble())));
+    }
+
+    private static String etag(int score) {
+        return "\"" + score + "\"";
+    }
+
+    private static Map<String, String> eventData(String eventId, int score) {
+        return Map.of(
                 "eventId", eventId,
-                "currentScore", String.valueOf(score.getAndIncrement())
+                "currentScore", String.valueOf(score)
         );
+    }
 
-        log.info("Mock API returning data for event {}: {}", eventId, response);
-        return ResponseEntity.ok(response);
+    private static final class Score {
+        private int value = -1;
+        private long changedAtMillis;
+        private long nextChangeAtMillis;
+        private long lastPolledNanos;
+    }
+
+    @FunctionalInterface
+    public interface PollObserver {
+        /**
+         * @param eventId polled event
+         * @param sinceLastPollNanos time since the previous poll of the event
+         */
+        void onPoll(String eventId, long sinceLastPollNanos);
+    }
+
+    /**
+     * Latency of a simulated upstream response around {@code event.api.mock.latency.mean-millis}.
+     */
+    public enum LatencyDistribution {
+        NONE,
+        FIXED,
+        UNIFORM,
+        EXPONENTIAL,
+        // long tail shaped by event.api.mock.latency.sigma
+        LOG_NORMAL;
+
+        long sampleMillis(Random random, double meanMillis, double sigma) {
+            if (meanMillis <= 0) {
+                return 0;
+            }
+            double millis = switch (this) {
+                case NONE -> 0;
+                case FIXED -> meanMillis;
+                case UNIFORM -> random.nextDouble() * 2 * meanMillis;
+                case EXPONENTIAL -> -meanMillis * Math.log(1 - random.nextDouble());
+                case LOG_NORMAL -> Math.exp(Math.log(meanMillis) - sigma * sigma / 2 + sigma * random.nextGaussian());
+            };
+            return Math.round(millis);
+        }
     }
-}
\ No newline at end of file
+}
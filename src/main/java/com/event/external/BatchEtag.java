@@ -0,0 +1,43 @@
+package com.event.external;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Validator of a batch fetch, combined from the ETags of its events in request order. The client derives it from
+ * the ETags it holds and the upstream from the current ones, so it matches whenever no event of the batch changed,
+ * however the events were grouped into batches before.
+ */
+public final class BatchEtag {
+
+    private BatchEtag() {
+    }
+
+    /**
+     * @param eventIds events of the batch, in request order
+     * @param etags ETag of each event, in the same order
+     * @return the quoted validator of the batch
+     */
+    public static String of(List<String> eventIds, List<String> etags) {
+        MessageDigest digest = sha256();
+        for (int i = 0; i < eventIds.size(); i++) {
+            digest.update(eventIds.get(i).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(etags.get(i).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        // 128 bits of the digest, a false match would hide a changed score
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -2,6 +2,31 @@ package com.event.external;
 
 import com.event.model.Event;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface ExternalApiClient {
+
+    /**
+     * Fetches an event, conditionally when a validator from the previous fetch is known.
+     * @param eventId event to fetch
+     * @return the event, or null when the upstream reports it unchanged since the previous fetch
+     */
     Event fetchEventData(String eventId);
+
+    /**
+     * Fetches several events with a single upstream call, conditionally when validators from previous fetches of all
+     * of them are known.
+     * @param eventIds events to fetch
+     * @return events by id, an id mapped to null is unchanged since the previous fetch, an id missing from the map had
+     * no data upstream
+     */
+    Map<String, Event> fetchEventsData(Collection<String> eventIds);
+
+    /**
+     * Drops the validator remembered for an event, the next fetch downloads it in full.
+     * @param eventId event no longer tracked
+     */
+    default void forget(String eventId) {
+    }
 }
@@ -1,19 +1,36 @@
 package com.event.external;
 
+import com.event.external.HostConcurrencyLimiter.PermitTimeoutException;
+import com.event.external.UpstreamCircuitBreaker.CircuitOpenException;
+import com.event.external.UpstreamCircuitBreaker.Permission;
+import com.event.metrics.EventMetrics;
+import com.event.metrics.EventMetrics.FetchType;
+import com.event.metrics.EventMetrics.Outcome;
 import com.event.model.Event;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -21,24 +38,47 @@ import java.util.Optional;
 public class ExternalApiClientImpl implements ExternalApiClient {
 
     private final RestTemplate restTemplate;
+    private final UpstreamRateLimiter rateLimiter;
+    private final HostConcurrencyLimiter hostConcurrencyLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final EventMetrics eventMetrics;
 
     @Value("${event.api.mock-endpoint}")
     private String apiMockUrl;
 
+    @Value("${event.api.mock-batch-endpoint}")
+    private String apiMockBatchUrl;
+
+    // ETag of the last full response per event, sent back as If-None-Match
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+
     /**
-     * method to call external service
+     * method to call external service, conditional on the ETag of the previous response
      * @param eventId current event
-     * @return event object with current score
+     * @return event object with current score, null when the upstream answered 304 Not Modified
      */
     @Override
     public Event fetchEventData(String eventId) {
         log.debug("Calling mock API for event: {}", eventId);
 
-        String url = UriComponentsBuilder.fromUriString(apiMockUrl).buildAndExpand(eventId).toUriString();
+        UriComponents uri = UriComponentsBuilder.fromUriString(apiMockUrl).buildAndExpand(eventId);
+        String url = uri.toUriString();
+
+        HttpHeaders headers = new HttpHeaders();
+        String etag = etags.get(eventId);
+        if (etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        HttpEntity<Void> request = new HttpEntity<>(headers);
 
         try {
-            // calling external api using restTemplate, web flux and circuit breaker can be used here.
-            ResponseEntity<Map<String, String>> responseEntity = restTemplate.exchange(url, HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+            ResponseEntity<Map<String, String>> responseEntity = callUpstream(hostOf(uri), FetchType.SINGLE,
+                    () -> restTemplate.exchange(url, HttpMethod.GET, request, new ParameterizedTypeReference<>() {}));
+
+            if (responseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                log.debug("Event {} not modified since {}", eventId, etag);
+                return null;
+            }
 
             Map<String, String> response = Optional.ofNullable(responseEntity.getBody())
                     .orElseThrow(() -> new ExternalApiException("Null response from mock API for event: " + eventId));
@@ -46,6 +86,8 @@ public class ExternalApiClientImpl implements ExternalApiClient {
             String currentScore = Optional.ofNullable(response.get("currentScore"))
                     .orElseThrow(() -> new ExternalApiException("Missing 'currentScore' in response for event: " + eventId));
 
+            // only remembered once the body is valid, a 304 must never stand in for a response we rejected
+            rememberEtag(eventId, responseEntity.getHeaders().getETag());
             return Event.builder().eventId(eventId).live(true).currentScore(currentScore).build();
 
         } catch (RestClientException e) {
@@ -54,6 +96,141 @@ public class ExternalApiClientImpl implements ExternalApiClient {
         }
     }
 
+    /**
+     * method to call external service for several events at once, one ids parameter per event so an id is never
+     * split or cut short by the characters it holds. When the ETag of every event is known the call is conditional
+     * on their {@link BatchEtag}, which the upstream answers with 304 Not Modified if none of them changed.
+     * @param eventIds events to fetch
+     * @return event objects with current score by event id, null for every event when not modified, events missing
+     * from the response are left out
+     */
+    @Override
+    public Map<String, Event> fetchEventsData(Collection<String> eventIds) {
+        log.debug("Calling mock API for {} events", eventIds.size());
+
+        Object[] placeholders = new Object[eventIds.size()];
+        for (int i = 0; i < placeholders.length; i++) {
+            placeholders[i] = "{id" + i + "}";
+        }
+        // ids are expanded as variables, which are strictly encoded, any reserved character in an id is escaped
+        UriComponents uri = UriComponentsBuilder.fromUriString(apiMockBatchUrl)
+                .queryParam("ids", placeholders)
+                .encode()
+                .buildAndExpand(eventIds.toArray());
+        // already encoded, as a URI the rest template does not encode it again
+        URI url = uri.toUri();
+
+        HttpHeaders headers = new HttpHeaders();
+        String batchEtag = batchEtag(eventIds);
+        if (batchEtag != null) {
+            headers.setIfNoneMatch(batchEtag);
+        }
+        HttpEntity<Void> request = new HttpEntity<>(headers);
+
+        try {
+            ResponseEntity<List<Map<String, String>>> responseEntity = callUpstream(hostOf(uri), FetchType.BATCH,
+                    () -> restTemplate.exchange(url, HttpMethod.GET, request, new ParameterizedTypeReference<>() {}));
+
+            if (responseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                log.debug("{} events not modified since {}", eventIds.size(), batchEtag);
+                Map<String, Event> notModified = new HashMap<>(eventIds.size() * 2);
+                eventIds.forEach(eventId -> notModified.put(eventId, null));
+                return notModified;
+            }
+
+            List<Map<String, String>> response = Optional.ofNullable(responseEntity.getBody())
+                    .orElseThrow(() -> new ExternalApiException("Null response from mock API for " + eventIds.size() + " events"));
+
+            Map<String, Event> events = new HashMap<>(response.size() * 2);
+            for (Map<String, String> eventData : response) {
+                String eventId = eventData.get("eventId");
+                String currentScore = eventData.get("currentScore");
+                if (eventId == null || currentScore == null) {
+                    log.warn("Skipping incomplete entry in batch response: {}", eventData);
+                    continue;
+                }
+                rememberEtag(eventId, eventData.get("etag"));
+                events.put(eventId, Event.builder().eventId(eventId).live(true).currentScore(currentScore).build());
+            }
+            // an event left out or rejected is fetched in full next time, and so is every batch holding it
+            for (String eventId : eventIds) {
+                if (!events.containsKey(eventId)) {
+                    etags.remove(eventId);
+                }
+            }
+            return events;
+
+        } catch (RestClientException e) {
+            log.error("Error calling mock API for {} events: {}", eventIds.size(), e.getMessage());
+            throw new ExternalApiException("Failed to fetch data from mock API: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void forget(String eventId) {
+        etags.remove(eventId);
+    }
+
+    /**
+     * The breaker admits the call first, so an open one fails fast without taking a rate limit slot. The rate limit
+     * comes next, a call deferred for its slot is neither timed nor counted as slow by the breaker. The breaker only
+     * sees the exchange itself, inside the bulkhead: the wait for a permit is not timed by it and a permit timeout,
+     * our own backlog rather than the upstream's, is not a failure. A call that never reached the upstream gives its
+     * admission back. The latency recorded includes the wait for the permit.
+     */
+    private <T> T callUpstream(String host, FetchType type, Supplier<T> call) {
+        long start = System.nanoTime();
+        Outcome outcome = Outcome.ERROR;
+        Permission permission = null;
+        try {
+            permission = circuitBreaker.tryAcquirePermission(host);
+            eventMetrics.recordThrottle(rateLimiter.acquire(host));
+            start = System.nanoTime();
+            Permission admitted = permission;
+            T response = hostConcurrencyLimiter.execute(host, () -> circuitBreaker.execute(admitted, call));
+            outcome = Outcome.SUCCESS;
+            return response;
+        } catch (CircuitOpenException e) {
+            outcome = Outcome.REJECTED;
+            throw e;
+        } catch (PermitTimeoutException e) {
+            outcome = Outcome.SATURATED;
+            throw e;
+        } finally {
+            if (permission != null) {
+                circuitBreaker.release(permission);
+            }
+            eventMetrics.recordFetch(type, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return validator of the events in request order, null if the ETag of any of them is unknown
+     */
+    private String batchEtag(Collection<String> eventIds) {
+        List<String> known = new ArrayList<>(eventIds.size());
+        for (String eventId : eventIds) {
+            String etag = etags.get(eventId);
+            if (etag == null) {
+                return null;
+            }
+            known.add(etag);
+        }
+        return BatchEtag.of(List.copyOf(eventIds), known);
+    }
+
+    private void rememberEtag(String eventId, String etag) {
+        if (etag == null) {
+            etags.remove(eventId);
+        } else {
+            etags.put(eventId, etag);
+        }
+    }
+
+    private static String hostOf(UriComponents uri) {
+        return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
     public static class ExternalApiException extends RuntimeException {
         public ExternalApiException(String message) {
             super(message);
@@ -0,0 +1,137 @@
+package com.event.external;
+
+import com.event.external.ExternalApiClientImpl.ExternalApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls per upstream host.
+ * Polls run on cheap virtual threads, so this is what keeps thousands of in-flight fetches
+ * from all hitting the same upstream at once; waiting callers park without holding a platform thread.
+ * <p>
+ * Every in-flight call holds one pooled connection over HTTP/1.1, so the per-host cap is also the
+ * connection pool size of that host and {@link #utilization()} reports how busy each pool is.
+ */
+@Component
+@Slf4j
+public class HostConcurrencyLimiter {
+
+    private final int maxConcurrentPerHost;
+    private final Map<String, Integer> maxConcurrentByHost;
+    private final long permitTimeoutNanos;
+
+    private final Map<String, HostPermits> permits = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrentPerHost default cap of concurrent calls per host
+     * @param maxConcurrentByHost per host overrides of the cap, keyed like {@code host} or {@code host:port}
+     * @param totalTimeoutMillis deadline of a call, including the wait for a permit
+     * @param readTimeoutMillis deadline of the exchange itself, the permit wait gets what is left of the total
+     */
+    public HostConcurrencyLimiter(@Value("${event.api.max-concurrent-per-host:64}") int maxConcurrentPerHost,
+                                  @Value("#{${event.api.max-concurrent-by-host:{:}}}") Map<String, Integer> maxConcurrentByHost,
+                                  @Value("${event.api.http.total-timeout-millis:10000}") long totalTimeoutMillis,
+                                  @Value("${event.api.http.read-timeout-millis:5000}") long readTimeoutMillis) {
+        if (maxConcurrentPerHost <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPerHost must be positive: " + maxConcurrentPerHost);
+        }
+        if (totalTimeoutMillis < readTimeoutMillis) {
+            throw new IllegalArgumentException("total timeout " + totalTimeoutMillis
+                    + "ms is shorter than the read timeout " + readTimeoutMillis + "ms");
+        }
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.maxConcurrentByHost = Map.copyOf(maxConcurrentByHost);
+        this.permitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(totalTimeoutMillis - readTimeoutMillis);
+    }
+
+    /**
+     * Runs a call once a permit for the host is available.
+     * @param host upstream host, including the port when it is not the default one
+     * @param call the blocking call
+     * @return result of the call
+     * @throws PermitTimeoutException when no permit frees up before the deadline
+     */
+    public <T> T execute(String host, Supplier<T> call) {
+        HostPermits hostPermits = permits.computeIfAbsent(host, this::newHostPermits);
+        try {
+            if (!hostPermits.semaphore.tryAcquire(permitTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                hostPermits.rejected.increment();
+                throw new PermitTimeoutException(host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalApiException("Interrupted waiting for a connection permit to " + host, e);
+        }
+        hostPermits.calls.increment();
+        try {
+            return call.get();
+        } finally {
+            hostPermits.semaphore.release();
+        }
+    }
+
+    /**
+     * @return calls currently in flight per host
+     */
+    public Map<String, Integer> inFlight() {
+        Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+        permits.forEach((host, hostPermits) -> inFlight.put(host, hostPermits.inFlight()));
+        return inFlight;
+    }
+
+    /**
+     * @return pool utilization per host: in flight, cap, callers waiting, total and rejected calls
+     */
+    public Map<String, Map<String, Object>> utilization() {
+        Map<String, Map<String, Object>> utilization = new TreeMap<>();
+        permits.forEach((host, hostPermits) -> utilization.put(host, Map.of(
+                "inFlight", hostPermits.inFlight(),
+                "max", hostPermits.max,
+                "utilization", (double) hostPermits.inFlight() / hostPermits.max,
+                "waiting", hostPermits.semaphore.getQueueLength(),
+                "calls", hostPermits.calls.sum(),
+                "rejected", hostPermits.rejected.sum()
+        )));
+        return utilization;
+    }
+
+    private HostPermits newHostPermits(String host) {
+        int max = maxConcurrentByHost.getOrDefault(host, maxConcurrentPerHost);
+        log.info("Limiting upstream {} to {} concurrent calls", host, max);
+        return new HostPermits(max);
+    }
+
+    /**
+     * Thrown when the calls to a host are backed up here, the upstream was not called.
+     */
+    public static class PermitTimeoutException extends ExternalApiException {
+        public PermitTimeoutException(String host) {
+            super("Timed out waiting for a connection permit to " + host);
+        }
+    }
+
+    private static final class HostPermits {
+        private final int max;
+        private final Semaphore semaphore;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private HostPermits(int max) {
+            this.max = max;
+            this.semaphore = new Semaphore(max, true);
+        }
+
+        private int inFlight() {
+            return max - semaphore.availablePermits();
+        }
+    }
+}
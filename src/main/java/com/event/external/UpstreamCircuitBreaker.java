@@ -0,0 +1,298 @@
+package com.event.external;
+
+import com.event.external.ExternalApiClientImpl.ExternalApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker per upstream host.
+ * <p>
+ * While closed, the outcome of the last {@code window-size} calls is kept. The breaker opens when, after at least
+ * {@code minimum-calls}, either the failure rate or the slow call rate reaches its threshold. While open, calls fail
+ * fast with {@link CircuitOpenException} instead of waiting for the upstream to time out. After {@code open-millis}
+ * a few half-open trial calls are let through: all of them succeeding closes the breaker, any failure opens it again.
+ */
+@Component
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenTrials;
+
+    private final Map<String, HostBreaker> breakers = new ConcurrentHashMap<>();
+
+    public UpstreamCircuitBreaker(@Value("${event.api.circuit-breaker.enabled:true}") boolean enabled,
+                                  @Value("${event.api.circuit-breaker.window-size:20}") int windowSize,
+                                  @Value("${event.api.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                  @Value("${event.api.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                  @Value("${event.api.circuit-breaker.slow-call-millis:2000}") long slowCallMillis,
+                                  @Value("${event.api.circuit-breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+                                  @Value("${event.api.circuit-breaker.open-millis:10000}") long openMillis,
+                                  @Value("${event.api.circuit-breaker.half-open-trials:3}") int halfOpenTrials) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("minimumCalls must be in [1, " + windowSize + "]: " + minimumCalls);
+        }
+        if (halfOpenTrials <= 0) {
+            throw new IllegalArgumentException("halfOpenTrials must be positive: " + halfOpenTrials);
+        }
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenTrials = halfOpenTrials;
+    }
+
+    /**
+     * Runs a call unless the breaker of the host is open.
+     * @param host upstream host, including the port when it is not the default one
+     * @param call the blocking call, an exception other than a plain 4xx counts as a failure
+     * @return result of the call
+     * @throws CircuitOpenException when the breaker does not permit the call
+     */
+    public <T> T execute(String host, Supplier<T> call) {
+        return execute(tryAcquirePermission(host), call);
+    }
+
+    /**
+     * Asks the breaker of the host to admit a call, before anything else is spent on it.
+     * The permission is either used by {@link #execute(Permission, Supplier)} or given back with {@link #release}.
+     * @param host upstream host, including the port when it is not the default one
+     * @throws CircuitOpenException when the breaker does not permit the call
+     */
+    public Permission tryAcquirePermission(String host) {
+        if (!enabled) {
+            return Permission.UNCHECKED;
+        }
+        HostBreaker breaker = breakers.computeIfAbsent(host, HostBreaker::new);
+        return new Permission(breaker, breaker.acquire());
+    }
+
+    /**
+     * Runs an admitted call.
+     * @param permission permission of the call, used once
+     * @param call the blocking call, an exception other than a plain 4xx counts as a failure
+     * @return result of the call
+     */
+    public <T> T execute(Permission permission, Supplier<T> call) {
+        if (permission.breaker == null) {
+            return call.get();
+        }
+        if (permission.used) {
+            throw new IllegalStateException("Permission already used for " + permission.breaker.host);
+        }
+        permission.used = true;
+
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            failed = countsAsFailure(e);
+            throw e;
+        } catch (Error e) {
+            failed = true;
+            throw e;
+        } finally {
+            permission.breaker.record(permission.trial, failed, System.nanoTime() - start >= slowCallNanos);
+        }
+    }
+
+    /**
+     * Gives back the permission of a call that never reached the upstream, a half-open trial goes to the next call.
+     * Does nothing once the call ran.
+     */
+    public void release(Permission permission) {
+        if (permission.breaker == null || permission.used) {
+            return;
+        }
+        permission.used = true;
+        if (permission.trial) {
+            permission.breaker.releaseTrial();
+        }
+    }
+
+    /**
+     * A 4xx other than 429 says the request was wrong, not that the upstream is unhealthy.
+     */
+    private static boolean countsAsFailure(RuntimeException e) {
+        return !(e instanceof HttpClientErrorException clientError) || clientError.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    public State getState(String host) {
+        HostBreaker breaker = breakers.get(host);
+        return breaker == null ? State.CLOSED : breaker.currentState();
+    }
+
+    /**
+     * @return state, rates of the current window and rejected calls per host
+     */
+    public Map<String, Map<String, Object>> status() {
+        Map<String, Map<String, Object>> status = new TreeMap<>();
+        breakers.forEach((host, breaker) -> status.put(host, breaker.status()));
+        return status;
+    }
+
+    private final class HostBreaker {
+        private final String host;
+        private final LongAdder notPermitted = new LongAdder();
+
+        // guarded by this, every critical section is a few field updates so carriers are never pinned for long
+        private State state = State.CLOSED;
+        private long openedAtNanos;
+        private final byte[] window = new byte[windowSize];
+        private int windowIndex;
+        private int windowCount;
+        private int failures;
+        private int slowCalls;
+        private int trialsStarted;
+        private int trialsSucceeded;
+
+        private HostBreaker(String host) {
+            this.host = host;
+        }
+
+        /**
+         * @return true if the call is a half-open trial
+         */
+        private synchronized boolean acquire() {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return false;
+            }
+            if (state == State.HALF_OPEN && trialsStarted < halfOpenTrials) {
+                trialsStarted++;
+                return true;
+            }
+            notPermitted.increment();
+            throw new CircuitOpenException(host, state);
+        }
+
+        private synchronized void releaseTrial() {
+            if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+                trialsStarted--;
+            }
+        }
+
+        private synchronized void record(boolean trial, boolean failed, boolean slow) {
+            if (trial) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (failed || slow) {
+                    transition(State.OPEN);
+                } else if (++trialsSucceeded >= halfOpenTrials) {
+                    transition(State.CLOSED);
+                }
+                return;
+            }
+            // calls that started before the breaker left the closed state do not count towards the new state
+            if (state != State.CLOSED) {
+                return;
+            }
+
+            byte outcome = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+            if (windowCount == windowSize) {
+                byte evicted = window[windowIndex];
+                failures -= evicted & 1;
+                slowCalls -= (evicted >> 1) & 1;
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = outcome;
+            windowIndex = (windowIndex + 1) % windowSize;
+            failures += outcome & 1;
+            slowCalls += (outcome >> 1) & 1;
+
+            if (windowCount >= minimumCalls
+                    && (failures * 100 >= failureRateThreshold * windowCount || slowCalls * 100 >= slowCallRateThreshold * windowCount)) {
+                log.warn("Opening circuit breaker for {}: {} failures and {} slow calls in the last {} calls",
+                        host, failures, slowCalls, windowCount);
+                transition(State.OPEN);
+            }
+        }
+
+        private void transition(State next) {
+            log.info("Circuit breaker for {} is {} (was {})", host, next, state);
+            state = next;
+            switch (next) {
+                case OPEN -> openedAtNanos = System.nanoTime();
+                case HALF_OPEN -> {
+                    trialsStarted = 0;
+                    trialsSucceeded = 0;
+                }
+                case CLOSED -> {
+                    windowIndex = 0;
+                    windowCount = 0;
+                    failures = 0;
+                    slowCalls = 0;
+                }
+            }
+        }
+
+        private synchronized State currentState() {
+            return state;
+        }
+
+        private synchronized Map<String, Object> status() {
+            return Map.of(
+                    "state", state,
+                    "calls", windowCount,
+                    "failureRate", windowCount == 0 ? 0.0 : (double) failures / windowCount,
+                    "slowCallRate", windowCount == 0 ? 0.0 : (double) slowCalls / windowCount,
+                    "notPermitted", notPermitted.sum()
+            );
+        }
+    }
+
+    /**
+     * Admission of one call by the breaker of its host, held by the calling thread.
+     */
+    public static final class Permission {
+        private static final Permission UNCHECKED = new Permission(null, false);
+
+        private final HostBreaker breaker;
+        private final boolean trial;
+        private boolean used;
+
+        private Permission(HostBreaker breaker, boolean trial) {
+            this.breaker = breaker;
+            this.trial = trial;
+        }
+    }
+
+    /**
+     * Thrown instead of calling an upstream whose breaker is open.
+     */
+    public static class CircuitOpenException extends ExternalApiException {
+        public CircuitOpenException(String host, State state) {
+            super("Circuit breaker for " + host + " is " + state);
+        }
+    }
+}
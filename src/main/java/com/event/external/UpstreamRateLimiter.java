@@ -0,0 +1,163 @@
+package com.event.external;
+
+import com.event.external.ExternalApiClientImpl.ExternalApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Caps the rate of upstream calls, across all hosts and per host.
+ * Where {@link HostConcurrencyLimiter} bounds how many calls are in flight, this bounds how many start per second,
+ * so a burst of due polls is smoothed into a flat request rate instead of a spike. A call over the rate is deferred
+ * until its slot comes up, never dropped: polls of the same event do not overlap, so the callers waiting here are
+ * bounded by the number of tracked events.
+ * <p>
+ * Each limit is a token bucket kept as the theoretical arrival time of the next call (GCRA), one CAS per call.
+ */
+@Component
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private final Bucket global;
+    private final double perHostPerSecond;
+    private final Map<String, Number> perSecondByHost;
+    private final int burst;
+
+    private final Map<String, Bucket> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param globalPerSecond calls per second over all hosts, 0 for no global limit
+     * @param perHostPerSecond default calls per second per host, 0 for no limit
+     * @param perSecondByHost per host overrides of the rate, keyed like {@code host} or {@code host:port}
+     * @param burst calls let through back to back before the rate applies
+     */
+    public UpstreamRateLimiter(@Value("${event.api.rate-limit.global-per-second:0}") double globalPerSecond,
+                               @Value("${event.api.rate-limit.per-host-per-second:0}") double perHostPerSecond,
+                               @Value("#{${event.api.rate-limit.per-second-by-host:{:}}}") Map<String, Number> perSecondByHost,
+                               @Value("${event.api.rate-limit.burst:1}") int burst) {
+        if (globalPerSecond < 0 || perHostPerSecond < 0) {
+            throw new IllegalArgumentException("Rate limits must not be negative: global=" + globalPerSecond
+                    + ", perHost=" + perHostPerSecond);
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive: " + burst);
+        }
+        this.global = new Bucket(globalPerSecond, burst);
+        this.perHostPerSecond = perHostPerSecond;
+        this.perSecondByHost = Map.copyOf(perSecondByHost);
+        this.burst = burst;
+    }
+
+    /**
+     * Waits for the slot of a call to the host under both limits.
+     * @param host upstream host, including the port when it is not the default one
+     * @return nanos the call was deferred
+     * @throws ExternalApiException when interrupted while waiting
+     */
+    public long acquire(String host) {
+        // the global slot is only booked once the host slot came up, a call held back by its host
+        // does not take global capacity from the calls to other hosts meanwhile
+        long waitNanos = await(host, reserveHost(host));
+        return waitNanos + await(host, reserveGlobal());
+    }
+
+    /**
+     * Books the slot of a call under the limit of its host without waiting for it, a booked slot is never given back.
+     * @return nanos until the slot
+     */
+    long reserveHost(String host) {
+        return hosts.computeIfAbsent(host, this::newHostBucket).reserve(System.nanoTime());
+    }
+
+    /**
+     * Books the slot of a call under the global limit without waiting for it.
+     * @return nanos until the slot
+     */
+    long reserveGlobal() {
+        return global.reserve(System.nanoTime());
+    }
+
+    private long await(String host, long waitNanos) {
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new ExternalApiException("Interrupted waiting for a rate limit slot to " + host);
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return waitNanos;
+    }
+
+    /**
+     * @return per host rate, calls and deferred calls, the global limit under {@code *}
+     */
+    public Map<String, Map<String, Object>> status() {
+        Map<String, Map<String, Object>> status = new TreeMap<>();
+        status.put("*", global.status());
+        hosts.forEach((host, bucket) -> status.put(host, bucket.status()));
+        return status;
+    }
+
+    private Bucket newHostBucket(String host) {
+        Number perSecond = perSecondByHost.getOrDefault(host, perHostPerSecond);
+        if (perSecond.doubleValue() > 0) {
+            log.info("Limiting upstream {} to {} calls per second", host, perSecond);
+        }
+        return new Bucket(perSecond.doubleValue(), burst);
+    }
+
+    private static final class Bucket {
+        private final double perSecond;
+        // 0 when unlimited
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        // theoretical arrival time of the next call, a call earlier than this minus the tolerance waits
+        private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder deferred = new LongAdder();
+
+        private Bucket(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.intervalNanos = perSecond > 0 ? Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond)) : 0;
+            this.toleranceNanos = (burst - 1) * intervalNanos;
+        }
+
+        private long reserve(long now) {
+            calls.increment();
+            if (intervalNanos == 0) {
+                return 0;
+            }
+            long slot;
+            long current;
+            do {
+                current = nextSlotNanos.get();
+                // an idle bucket does not bank more than the burst
+                slot = current - now > 0 ? current : now;
+            } while (!nextSlotNanos.compareAndSet(current, slot + intervalNanos));
+            long waitNanos = Math.max(0, slot - toleranceNanos - now);
+            if (waitNanos > 0) {
+                deferred.increment();
+            }
+            return waitNanos;
+        }
+
+        private Map<String, Object> status() {
+            return Map.of(
+                    "perSecond", perSecond,
+                    "calls", calls.sum(),
+                    "deferred", deferred.sum()
+            );
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.event.health;
+
+import com.event.external.HostConcurrencyLimiter;
+import com.event.external.UpstreamCircuitBreaker;
+import com.event.external.UpstreamRateLimiter;
+import com.event.metrics.EventMetrics;
+import com.event.metrics.EventMetrics.Outcome;
+import com.event.model.Event;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.stream.EventUpdateBroadcaster;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Computes the health of the app in the background and keeps the result as an immutable snapshot, so a health
+ * check is a volatile read however often load balancers probe. One admin client is kept for the Kafka check
+ * instead of one per request.
+ * <p>
+ * Every probe also checks whether this instance is saturated: the producer buffer is nearly full, or the task
+ * scheduler or the poll dispatcher has a backlog. A saturated app refuses traffic on its readiness state, which
+ * sheds new tracking requests, and accepts it again once a probe finds it clear. Kafka being down or the upstream
+ * failing most calls is reported as degraded in the snapshot but leaves readiness alone: both are shared by every
+ * replica, refusing on them would take all of them out of the load balancer at once, stops and listings included.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HealthProber {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    @Value("${event.health.kafka-timeout-millis:5000}")
+    private long kafkaTimeoutMillis;
+
+    @Value("${event.health.saturation.producer-buffer-usage:0.9}")
+    private double maxProducerBufferUsage;
+
+    @Value("${event.health.saturation.scheduler-queued:1000}")
+    private int maxSchedulerQueued;
+
+    @Value("${event.health.degraded.upstream-error-rate:0.5}")
+    private double maxUpstreamErrorRate;
+
+    @Value("${event.health.degraded.upstream-minimum-calls:20}")
+    private long upstreamMinimumCalls;
+
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaTemplate<String, Event> kafkaTemplate;
+    private final ThreadPoolTaskScheduler taskScheduler;
+    private final DeadlineDispatcher pollDispatcher;
+    private final PublishPolicy publishPolicy;
+    private final HostConcurrencyLimiter hostConcurrencyLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final UpstreamRateLimiter rateLimiter;
+    private final EventUpdateBroadcaster eventUpdateBroadcaster;
+    private final EventMetrics eventMetrics;
+    private final ApplicationAvailability applicationAvailability;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Map<String, Object> snapshot;
+    // guarded by lock
+    private AdminClient adminClient;
+    private long lastUpstreamCalls;
+    private long lastUpstreamErrors;
+    private boolean refusing;
+
+    /**
+     * @return the latest snapshot, probed on the calling thread only before the first background probe is done
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.lock();
+        try {
+            return snapshot != null ? snapshot : probe();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${event.health.probe-interval-millis:5000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            probe();
+        } catch (RuntimeException e) {
+            // keeps the previous snapshot, the next probe tries again
+            log.error("Health probe failed: {}", e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (adminClient != null) {
+                adminClient.close();
+                adminClient = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Object> probe() {
+        long start = System.nanoTime();
+        Map<String, Object> health = new LinkedHashMap<>();
+        List<String> saturated = new ArrayList<>();
+        List<String> degraded = new ArrayList<>();
+        health.put("status", "UP");
+
+        try {
+            if (adminClient == null) {
+                adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+            }
+            adminClient.listTopics().names().get(kafkaTimeoutMillis, TimeUnit.MILLISECONDS);
+            health.put("kafka", "UP");
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Kafka health check failed: {}", e.getMessage());
+            health.put("kafka", "DOWN");
+            health.put("error", e.getMessage());
+            degraded.add("kafka is down");
+        }
+
+        double bufferUsage = producerBufferUsage();
+        health.put("producer", Map.of("bufferUsage", bufferUsage));
+        if (bufferUsage > maxProducerBufferUsage) {
+            saturated.add("producer buffer " + Math.round(bufferUsage * 100) + "% full");
+        }
+
+        ScheduledThreadPoolExecutor executor = taskScheduler.getScheduledThreadPoolExecutor();
+        long queued = executor.getQueue().stream()
+                .filter(task -> task instanceof Delayed delayed && delayed.getDelay(TimeUnit.NANOSECONDS) <= 0)
+                .count();
+        health.put("scheduler", Map.of(
+                "active", executor.getActiveCount(),
+                "poolSize", executor.getPoolSize(),
+                "queued", queued
+        ));
+        if (queued > maxSchedulerQueued) {
+            saturated.add(queued + " overdue scheduler tasks");
+        }
+
+        health.put("dispatch", pollDispatcher.status());
+        int waiting = pollDispatcher.queued();
+        if (waiting > maxSchedulerQueued) {
+            saturated.add(waiting + " polls waiting for dispatch");
+        }
+
+        // since the previous probe, a call rejected by an open breaker counts as an error
+        long errors = eventMetrics.fetchCount(Outcome.ERROR) + eventMetrics.fetchCount(Outcome.REJECTED);
+        long calls = errors + eventMetrics.fetchCount(Outcome.SUCCESS);
+        long windowCalls = calls - lastUpstreamCalls;
+        double errorRate = windowCalls == 0 ? 0 : (double) (errors - lastUpstreamErrors) / windowCalls;
+        lastUpstreamCalls = calls;
+        lastUpstreamErrors = errors;
+        health.put("upstream", Map.of("calls", windowCalls, "errorRate", errorRate));
+        if (windowCalls >= upstreamMinimumCalls && errorRate > maxUpstreamErrorRate) {
+            degraded.add("upstream error rate " + Math.round(errorRate * 100) + "%");
+        }
+
+        health.put("readiness", updateReadiness(saturated));
+        health.put("saturated", List.copyOf(saturated));
+        health.put("degraded", List.copyOf(degraded));
+        health.put("publishPolicy", Map.of(
+                "mode", publishPolicy.getMode(),
+                "published", publishPolicy.getPublishedCount(),
+                "suppressed", publishPolicy.getSuppressedCount()
+        ));
+        health.put("upstreamPools", hostConcurrencyLimiter.utilization());
+        health.put("circuitBreakers", circuitBreaker.status());
+        health.put("upstreamRateLimits", rateLimiter.status());
+        health.put("eventStream", eventUpdateBroadcaster.status());
+        health.put("checkedAt", Instant.now().toString());
+        health.put("probeMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        Map<String, Object> probed = Collections.unmodifiableMap(health);
+        snapshot = probed;
+        return probed;
+    }
+
+    /**
+     * Only takes back a refusal this prober made, a refusal published by anyone else (e.g. on shutdown) stands.
+     * @param saturated local saturation found by the probe, empty when clear
+     */
+    ReadinessState updateReadiness(List<String> saturated) {
+        ReadinessState current = applicationAvailability.getReadinessState();
+        if (!saturated.isEmpty() && current == ReadinessState.ACCEPTING_TRAFFIC) {
+            log.warn("Refusing new tracking requests, saturated: {}", saturated);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            refusing = true;
+            return ReadinessState.REFUSING_TRAFFIC;
+        }
+        if (saturated.isEmpty() && refusing) {
+            refusing = false;
+            if (current == ReadinessState.REFUSING_TRAFFIC) {
+                log.info("Accepting new tracking requests again");
+                AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+                return ReadinessState.ACCEPTING_TRAFFIC;
+            }
+        }
+        return current;
+    }
+
+    private double producerBufferUsage() {
+        double total = 0;
+        double available = 0;
+        for (Map.Entry<MetricName, ? extends Metric> metric : kafkaTemplate.metrics().entrySet()) {
+            if (!PRODUCER_METRICS_GROUP.equals(metric.getKey().group())) {
+                continue;
+            }
+            switch (metric.getKey().name()) {
+                case "buffer-total-bytes" -> total = ((Number) metric.getValue().metricValue()).doubleValue();
+                case "buffer-available-bytes" -> available = ((Number) metric.getValue().metricValue()).doubleValue();
+                default -> {
+                }
+            }
+        }
+        return total == 0 ? 0 : 1 - available / total;
+    }
+}
@@ -0,0 +1,427 @@
+package com.event.journal;
+
+import com.event.model.Event;
+import com.event.serialization.EventBinaryCodec;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Durable registry of the tracked events, so a restart resumes polling without the live events being posted again.
+ * <p>
+ * Every status change and score change is appended to a memory-mapped log as
+ * {@code length:int type:byte pollingIntervalMillis:long event:(EventBinaryCodec)}, followed by a zero length
+ * that marks the end of the log. Appending is a copy into the mapping, the OS writes the pages back, so a crashed
+ * process loses nothing and a crashed host loses at most what was appended since the last snapshot.
+ * <p>
+ * There are two logs, each starting with the generation it was last started at. Periodically, and whenever the
+ * active log is full, appends move on to the other log and the current state is written to a compacted snapshot in
+ * the background. The snapshot names the generation recovery replays from, once it is written the log before it
+ * is free to be reused. Recovery loads the snapshot and replays the logs from that generation on top of it;
+ * replaying a record that is already part of the snapshot is harmless because every record carries the full state
+ * of its event, and the records of an event are appended in the order its state was read.
+ * <p>
+ * A snapshot that cannot be written stops the journal, it is logged as an error and {@link #isEnabled()} turns false.
+ */
+@Component
+@Slf4j
+public class EventJournal {
+
+    static final String[] LOG_FILES = {"events-0.log", "events-1.log"};
+    static final String SNAPSHOT_FILE = "events.snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x45564e55;
+    private static final byte TYPE_UPSERT = 1;
+    private static final byte TYPE_REMOVE = 2;
+    // generation of the log
+    private static final int LOG_HEADER = 8;
+    // length, type and polling interval
+    private static final int RECORD_HEADER = 4 + 1 + 8;
+    private static final int STRIPES = 64;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int logSizeBytes;
+
+    // order the state read and the append of the records of an event
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // not a monitor, appending virtual threads must not pin their carriers while they wait for a snapshot
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition standbyReleased = lock.newCondition();
+
+    // guarded by lock
+    private MappedByteBuffer[] logs;
+    private int active;
+    private long generation;
+    private int position;
+    // whether the log appends are not going to is covered by a snapshot
+    private boolean standbyFree;
+    private Supplier<? extends Collection<Event>> state;
+
+    private volatile boolean failed;
+
+    /**
+     * @param enabled false to keep nothing on disk, the journal is also off in cluster mode where the control topic
+     *                is replayed instead
+     * @param directory directory of the log and snapshot files
+     * @param logSizeMb size of the memory-mapped log, a full log triggers a snapshot
+     */
+    public EventJournal(@Value("#{${event.journal.enabled:true} and !${event.cluster.enabled:false}}") boolean enabled,
+                        @Value("${event.journal.dir:data/journal}") Path directory,
+                        @Value("${event.journal.log-size-mb:64}") int logSizeMb) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.logSizeBytes = Math.toIntExact(logSizeMb * 1024L * 1024L);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Opens the journal and recovers the events it holds.
+     * @param state current state of every tracked event, written to the snapshots
+     * @return recovered events by id, empty when the journal is disabled or new
+     */
+    public Map<String, Event> open(Supplier<? extends Collection<Event>> state) {
+        if (!enabled) {
+            return Map.of();
+        }
+        lock.lock();
+        try {
+            return recover(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<String, Event> recover(Supplier<? extends Collection<Event>> state) {
+        this.state = state;
+        long start = System.nanoTime();
+        Map<String, Event> events = new HashMap<>();
+        try {
+            Files.createDirectories(directory);
+            long replayFrom = readSnapshot(events);
+            int snapshotEvents = events.size();
+            logs = new MappedByteBuffer[LOG_FILES.length];
+            for (int i = 0; i < logs.length; i++) {
+                try (FileChannel channel = FileChannel.open(directory.resolve(LOG_FILES[i]),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    logs[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, logSizeBytes);
+                }
+            }
+            List<Integer> replayed = new ArrayList<>();
+            for (int i = 0; i < logs.length; i++) {
+                if (logs[i].getLong(0) >= replayFrom) {
+                    replayed.add(i);
+                }
+            }
+            replayed.sort(Comparator.comparingLong(i -> logs[i].getLong(0)));
+            int logRecords = 0;
+            for (int i : replayed) {
+                logRecords += replayLog(logs[i], events);
+                generation = Math.max(generation, logs[i].getLong(0));
+            }
+
+            // both logs are covered by a snapshot of what was recovered, appends start over in the first one
+            active = 0;
+            generation = Math.max(generation, replayFrom) + 1;
+            startLog(active, generation);
+            if (!writeSnapshot(events.values(), generation)) {
+                throw new IOException("Failed to write the snapshot of the recovered events");
+            }
+            standbyFree = true;
+
+            log.info("Recovered {} events from journal in {}ms: {} from snapshot, {} log records", events.size(),
+                    (System.nanoTime() - start) / 1_000_000, snapshotEvents, logRecords);
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event journal in " + directory, e);
+        }
+    }
+
+    /**
+     * @return false when the journal is off or stopped after a failed snapshot
+     */
+    public boolean isEnabled() {
+        return enabled && !failed;
+    }
+
+    /**
+     * Records the current state of an event, an upsert or, once the event is gone, a removal. The state is read
+     * under a lock of the event, so the last record of an event always holds the state that was read last.
+     * @param currentState current state of the event by id, null when it is no longer tracked
+     */
+    public void record(String eventId, Function<String, ? extends Event> currentState) {
+        if (!isEnabled()) {
+            return;
+        }
+        ReentrantLock stripe = stripes[(eventId.hashCode() ^ (eventId.hashCode() >>> 16)) & (STRIPES - 1)];
+        stripe.lock();
+        try {
+            Event event = currentState.apply(eventId);
+            if (event == null) {
+                Event removed = Event.builder().eventId(eventId).build();
+                append(TYPE_REMOVE, removed, EventBinaryCodec.encode(removed));
+            } else {
+                append(TYPE_UPSERT, event, EventBinaryCodec.encode(event));
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${event.journal.snapshot-interval-millis:60000}",
+            initialDelayString = "${event.journal.snapshot-interval-millis:60000}")
+    public void snapshot() {
+        long replayFrom;
+        lock.lock();
+        try {
+            // a snapshot still being written covers the appends so far
+            if (logs == null || failed || !standbyFree) {
+                return;
+            }
+            replayFrom = rotate();
+        } finally {
+            lock.unlock();
+        }
+        snapshotFrom(replayFrom);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            while (logs != null && !failed && !standbyFree) {
+                standbyReleased.awaitUninterruptibly();
+            }
+            if (logs == null || failed) {
+                return;
+            }
+            long replayFrom = rotate();
+            writeSnapshot(state.get(), replayFrom);
+            for (MappedByteBuffer mappedLog : logs) {
+                mappedLog.force();
+            }
+            logs = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the appends to the standby log, which must be free.
+     * @return generation of the log appends now go to, the one a snapshot taken from now on replays from
+     */
+    private long rotate() {
+        active = 1 - active;
+        startLog(active, ++generation);
+        standbyFree = false;
+        return generation;
+    }
+
+    private void startLog(int log, long logGeneration) {
+        // the terminator goes in before the generation, a log is never seen with records of an older generation
+        logs[log].putInt(LOG_HEADER, 0);
+        logs[log].putLong(0, logGeneration);
+        position = LOG_HEADER;
+    }
+
+    /**
+     * Writes the snapshot of a rotation outside the lock, appends go on in the other log meanwhile.
+     */
+    private void snapshotFrom(long replayFrom) {
+        boolean written = writeSnapshot(state.get(), replayFrom);
+        lock.lock();
+        try {
+            if (written) {
+                standbyFree = true;
+            } else {
+                failed = true;
+                // neither log is reused, a restart still recovers everything appended up to now
+                log.error("Event journal stopped after a failed snapshot, nothing more is journaled");
+            }
+            standbyReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the snapshot could not be written, the previous one is kept
+     */
+    private boolean writeSnapshot(Collection<Event> events, long replayFrom) {
+        long start = System.nanoTime();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        int written = 0;
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(replayFrom);
+            for (Event event : events) {
+                byte[] payload = EventBinaryCodec.encode(event);
+                out.writeInt(payload.length + RECORD_HEADER - 4);
+                out.writeByte(TYPE_UPSERT);
+                out.writeLong(intervalOf(event));
+                out.write(payload);
+                written++;
+            }
+            out.writeInt(0);
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            log.error("Failed to write journal snapshot: {}", e.getMessage(), e);
+            return false;
+        }
+
+        try {
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to replace journal snapshot: {}", e.getMessage(), e);
+            return false;
+        }
+        log.debug("Wrote journal snapshot of {} events in {}ms", written, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private void append(byte type, Event event, byte[] payload) {
+        int recordSize = RECORD_HEADER + payload.length;
+        if (LOG_HEADER + recordSize + 4 > logSizeBytes) {
+            log.warn("Journal record of event {} does not fit in the log, not recorded", event.getEventId());
+            return;
+        }
+        long replayFrom = 0;
+        lock.lock();
+        try {
+            while (logs != null && !failed && position + recordSize + 4 > logSizeBytes && !standbyFree) {
+                // both logs full, only when the log fills up faster than a snapshot is written
+                standbyReleased.awaitUninterruptibly();
+            }
+            if (logs == null || failed) {
+                return;
+            }
+            if (position + recordSize + 4 > logSizeBytes) {
+                replayFrom = rotate();
+            }
+            MappedByteBuffer mappedLog = logs[active];
+            // the terminator goes in before the length, a reader never sees a length without its record
+            mappedLog.put(position + 4, type);
+            mappedLog.putLong(position + 5, intervalOf(event));
+            mappedLog.put(position + RECORD_HEADER, payload);
+            mappedLog.putInt(position + recordSize, 0);
+            mappedLog.putInt(position, recordSize - 4);
+            position += recordSize;
+        } finally {
+            lock.unlock();
+        }
+        if (replayFrom > 0) {
+            long from = replayFrom;
+            Thread.ofVirtual().name("event-journal-snapshot").start(() -> snapshotFrom(from));
+        }
+    }
+
+    /**
+     * @return generation of the first log to replay on top of the snapshot, 0 without a snapshot
+     */
+    private long readSnapshot(Map<String, Event> events) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        long replayFrom = 0;
+        int count = 0;
+        try (InputStream file = Files.newInputStream(snapshot);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not an event journal snapshot: " + snapshot);
+            }
+            replayFrom = in.readLong();
+            int length;
+            while ((length = in.readInt()) > 0) {
+                byte type = in.readByte();
+                long intervalMillis = in.readLong();
+                byte[] payload = new byte[length - RECORD_HEADER + 4];
+                in.readFully(payload);
+                apply(events, type, intervalMillis, payload);
+                count++;
+            }
+        } catch (EOFException e) {
+            log.warn("Journal snapshot {} is truncated, recovered {} events from it", snapshot, count);
+        }
+        return replayFrom;
+    }
+
+    private int replayLog(MappedByteBuffer mappedLog, Map<String, Event> events) {
+        int offset = LOG_HEADER;
+        int count = 0;
+        while (offset + 4 <= logSizeBytes) {
+            int length = mappedLog.getInt(offset);
+            if (length <= 0) {
+                break;
+            }
+            int payloadLength = length - RECORD_HEADER + 4;
+            if (payloadLength <= 0 || offset + 4 + length + 4 > logSizeBytes) {
+                log.warn("Corrupt journal record at {}, ignoring the rest of the log", offset);
+                break;
+            }
+            byte type = mappedLog.get(offset + 4);
+            long intervalMillis = mappedLog.getLong(offset + 5);
+            byte[] payload = new byte[payloadLength];
+            mappedLog.get(offset + RECORD_HEADER, payload);
+            try {
+                apply(events, type, intervalMillis, payload);
+            } catch (IllegalArgumentException e) {
+                log.warn("Undecodable journal record at {}, ignoring the rest of the log: {}", offset, e.getMessage());
+                break;
+            }
+            offset += 4 + length;
+            count++;
+        }
+        return count;
+    }
+
+    private static void apply(Map<String, Event> events, byte type, long intervalMillis, byte[] payload) {
+        Event event = EventBinaryCodec.decode(payload);
+        if (type == TYPE_REMOVE) {
+            events.remove(event.getEventId());
+            return;
+        }
+        if (type != TYPE_UPSERT) {
+            throw new IllegalArgumentException("Unknown journal record type: " + type);
+        }
+        events.put(event.getEventId(), event.toBuilder().pollingIntervalMillis(intervalMillis > 0 ? intervalMillis : null).build());
+    }
+
+    private static long intervalOf(Event event) {
+        return event.getPollingIntervalMillis() == null ? 0 : event.getPollingIntervalMillis();
+    }
+}
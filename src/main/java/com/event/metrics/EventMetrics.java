@@ -0,0 +1,182 @@
+package com.event.metrics;
+
+import com.event.model.EventPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the polling hot path. Every meter is registered once up front, recording is a map lookup by enum and a
+ * timer update, never a registry lookup. Percentile histograms are switched on by configuration with
+ * {@code management.metrics.distribution.percentiles-histogram.event}.
+ */
+@Component
+public class EventMetrics {
+
+    private final MeterRegistry registry;
+
+    private final Map<FetchType, Map<Outcome, Timer>> fetchTimers = new EnumMap<>(FetchType.class);
+    private final Map<PublishMode, Map<Outcome, Timer>> publishTimers = new EnumMap<>(PublishMode.class);
+    private final Map<PublishMode, Counter> publishRetries = new EnumMap<>(PublishMode.class);
+    private final Timer throttle;
+    private final Map<EventPriority, Timer> pollingLag = new EnumMap<>(EventPriority.class);
+    private final Map<EventPriority, Timer> staleness = new EnumMap<>(EventPriority.class);
+    private final Map<EventPriority, Counter> shedPolls = new EnumMap<>(EventPriority.class);
+    private final Map<EventPriority, Counter> coalescedPolls = new EnumMap<>(EventPriority.class);
+
+    public EventMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (FetchType type : FetchType.values()) {
+            Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                timers.put(outcome, Timer.builder("event.upstream.fetch")
+                        .description("Upstream calls including the wait for a per host permit")
+                        .tag("type", type.tag).tag("outcome", outcome.tag).register(registry));
+            }
+            fetchTimers.put(type, timers);
+        }
+        for (PublishMode mode : PublishMode.values()) {
+            Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                timers.put(outcome, Timer.builder("event.publish")
+                        .description("Kafka publishes until acknowledged or failed, an async publish includes its retries")
+                        .tag("mode", mode.tag).tag("outcome", outcome.tag).register(registry));
+            }
+            publishTimers.put(mode, timers);
+            publishRetries.put(mode, Counter.builder("event.publish.retries")
+                    .description("Kafka sends retried after a failed attempt")
+                    .tag("mode", mode.tag).register(registry));
+        }
+        throttle = Timer.builder("event.upstream.throttle")
+                .description("Deferral of upstream calls by the request rate limits")
+                .register(registry);
+        for (EventPriority priority : EventPriority.values()) {
+            String tier = priority.name().toLowerCase();
+            pollingLag.put(priority, Timer.builder("event.polling.lag")
+                    .description("Delay from the intended fire time of a poll to its start on a worker")
+                    .tag("priority", tier).register(registry));
+            staleness.put(priority, Timer.builder("event.staleness")
+                    .description("Age of the state of an event when a poll refreshes it")
+                    .tag("priority", tier).register(registry));
+            shedPolls.put(priority, Counter.builder("event.polling.shed")
+                    .description("Due polls dropped because they missed their deadline under overload")
+                    .tag("priority", tier).register(registry));
+            coalescedPolls.put(priority, Counter.builder("event.polling.coalesced")
+                    .description("Due polls merged into the queued or running poll of the same event")
+                    .tag("priority", tier).register(registry));
+        }
+    }
+
+    public void recordFetch(FetchType type, Outcome outcome, long nanos) {
+        fetchTimers.get(type).get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return upstream calls with the outcome since startup, single and batch
+     */
+    public long fetchCount(Outcome outcome) {
+        long count = 0;
+        for (Map<Outcome, Timer> timers : fetchTimers.values()) {
+            count += timers.get(outcome).count();
+        }
+        return count;
+    }
+
+    public void recordPublish(PublishMode mode, Outcome outcome, long nanos) {
+        publishTimers.get(mode).get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPublishRetry(PublishMode mode) {
+        publishRetries.get(mode).increment();
+    }
+
+    public void recordThrottle(long nanos) {
+        throttle.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPollingLag(EventPriority priority, long nanos) {
+        pollingLag.get(priority).record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStaleness(EventPriority priority, long millis) {
+        staleness.get(priority).record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordShed(EventPriority priority) {
+        shedPolls.get(priority).increment();
+    }
+
+    public void recordCoalesced(EventPriority priority) {
+        coalescedPolls.get(priority).increment();
+    }
+
+    /**
+     * @return polls of the tier started and refreshed so far, their mean and recent max lag and staleness in millis,
+     * and the polls shed and coalesced
+     */
+    public Map<String, Object> tierStatus(EventPriority priority) {
+        Timer lag = pollingLag.get(priority);
+        Timer age = staleness.get(priority);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("polls", lag.count());
+        status.put("lagMeanMillis", lag.mean(TimeUnit.MILLISECONDS));
+        status.put("lagMaxMillis", lag.max(TimeUnit.MILLISECONDS));
+        status.put("stalenessMeanMillis", age.mean(TimeUnit.MILLISECONDS));
+        status.put("stalenessMaxMillis", age.max(TimeUnit.MILLISECONDS));
+        status.put("shed", (long) shedPolls.get(priority).count());
+        status.put("coalesced", (long) coalescedPolls.get(priority).count());
+        return status;
+    }
+
+    /**
+     * Registers a gauge sampled on every scrape, the supplier must be cheap and thread safe.
+     */
+    public void gauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value).description(description).register(registry);
+    }
+
+    public enum FetchType {
+        SINGLE("single"),
+        BATCH("batch");
+
+        private final String tag;
+
+        FetchType(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum PublishMode {
+        BLOCKING("blocking"),
+        ASYNC("async");
+
+        private final String tag;
+
+        PublishMode(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS("success"),
+        ERROR("error"),
+        // failed fast by an open circuit breaker or a full publish window, nothing was sent
+        REJECTED("rejected"),
+        // gave up waiting for a permit of the host bulkhead, nothing was sent and the upstream is not to blame
+        SATURATED("saturated");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+}
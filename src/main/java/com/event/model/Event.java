@@ -1,20 +1,32 @@
 package com.event.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.Instant;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * An event and its state. Immutable, so the instances a store hands out can be shared: a change builds a new one
+ * with {@link #toBuilder()}.
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
 public class Event {
     private String eventId;
     private boolean live;
     private String currentScore;
     @Builder.Default
     private Instant lastUpdated = Instant.now();
+    // current adaptive polling interval of a tracked event, not set on published updates
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long pollingIntervalMillis;
+    // version of the stored state, see EventStore#changedSince, not set on published updates
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    // tier of a tracked event, null for the default NORMAL tier, not set on published updates
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private EventPriority priority;
 }
\ No newline at end of file
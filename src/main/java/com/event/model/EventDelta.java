@@ -0,0 +1,15 @@
+package com.event.model;
+
+import java.util.List;
+
+/**
+ * Events changed since a version a client holds. Apply the removals first, an event removed and tracked again is in
+ * both lists.
+ * @param version version to ask the next delta from
+ * @param full whether the delta could not be told and events hold every tracked event instead, the client drops what
+ * it holds
+ * @param events current state of the events changed since the version, ordered by version
+ * @param removed ids of the events no longer tracked here
+ */
+public record EventDelta(long version, boolean full, List<Event> events, List<String> removed) {
+}
@@ -0,0 +1,20 @@
+package com.event.model;
+
+import java.time.Instant;
+
+/**
+ * Filter of the events listing, a null criterion matches every event.
+ * @param live only events with this status
+ * @param updatedSince only events polled at or after this instant
+ */
+public record EventFilter(Boolean live, Instant updatedSince) {
+
+    public static final EventFilter ALL = new EventFilter(null, null);
+
+    public boolean matches(Event event) {
+        if (live != null && event.isLive() != live) {
+            return false;
+        }
+        return updatedSince == null || (event.getLastUpdated() != null && !event.getLastUpdated().isBefore(updatedSince));
+    }
+}
@@ -0,0 +1,11 @@
+package com.event.model;
+
+import java.util.List;
+
+/**
+ * One page of events ordered by event id.
+ * @param events events of the page
+ * @param nextCursor cursor of the next page, null on the last page
+ */
+public record EventPage(List<Event> events, String nextCursor) {
+}
@@ -0,0 +1,11 @@
+package com.event.model;
+
+/**
+ * Tier of a tracked event. When polls fall behind, the due polls of a higher tier are dispatched first and the late
+ * polls of the lowest one are shed, see {@link com.event.scheduler.DeadlineDispatcher}.
+ */
+public enum EventPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -12,4 +12,7 @@ public class EventStatusRequest {
 
     @NotNull(message = "Status is required")
     private boolean status;
+
+    // tier to track the event in, a start without one keeps the tier of a tracked event and NORMAL for a new one
+    private EventPriority priority;
 }
@@ -0,0 +1,21 @@
+package com.event.model;
+
+/**
+ * Outcome of one status change of a bulk request.
+ * @param eventId event of the change
+ * @param status requested status
+ * @param applied true if the change was applied, or routed to the owning instance in cluster mode
+ * @param error why the change was not applied, null when it was
+ */
+public record EventStatusResult(String eventId, boolean status, boolean applied, String error) {
+
+    public static EventStatusResult applied(EventStatusRequest request) {
+        return new EventStatusResult(request.getEventId(), request.isStatus(), true, null);
+    }
+
+    public static EventStatusResult rejected(EventStatusRequest request, String error) {
+        return request == null
+                ? new EventStatusResult(null, false, false, error)
+                : new EventStatusResult(request.getEventId(), request.isStatus(), false, error);
+    }
+}
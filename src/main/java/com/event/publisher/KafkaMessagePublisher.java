@@ -1,25 +1,50 @@
 package com.event.publisher;
 
+import com.event.metrics.EventMetrics;
+import com.event.metrics.EventMetrics.Outcome;
+import com.event.metrics.EventMetrics.PublishMode;
 import com.event.model.Event;
+import com.event.serialization.EventBinaryCodec;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.utils.Utils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.retry.RetryContext;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaMessagePublisher implements MessagePublisher {
 
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final double RETRY_MULTIPLIER = 1.5;
+
+    private static final byte[] FORMAT_ENVELOPE_V1 = {EventBinaryCodec.FORMAT_ENVELOPE_V1};
+
     private final KafkaTemplate<String, Event> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> envelopeKafkaTemplate;
+    private final EventMetrics eventMetrics;
 
     @Value("${kafka.topic.events}")
     private String topicName;
@@ -27,6 +52,20 @@ public class KafkaMessagePublisher implements MessagePublisher {
     @Value("${kafka.publish.timeout.seconds:10}")
     private long publishTimeoutSeconds;
 
+    @Value("${kafka.publish.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${kafka.publish.envelope.enabled:false}")
+    private boolean envelopeEnabled;
+
+    // bounds the async publishes that are sent or waiting for a retry
+    private Semaphore inFlightWindow;
+
+    @PostConstruct
+    void initInFlightWindow() {
+        inFlightWindow = new Semaphore(maxInFlight);
+    }
+
     /**
      * Publishes event updates to Kafka with retry capability.
      *
@@ -34,27 +73,163 @@ public class KafkaMessagePublisher implements MessagePublisher {
      * @throws MessagePublishException if the message cannot be published after retries
      */
     @Override
-    @Retryable(retryFor = {MessagePublishException.class}, maxAttempts = 5, backoff = @Backoff(delay = 500, multiplier = 1.5))
+    @Retryable(retryFor = {MessagePublishException.class}, maxAttempts = MAX_ATTEMPTS, backoff = @Backoff(delay = RETRY_DELAY_MILLIS, multiplier = RETRY_MULTIPLIER))
     public void publishEventUpdate(Event event) {
         Objects.requireNonNull(event, "Event cannot be null");
         Objects.requireNonNull(event.getEventId(), "Event ID cannot be null");
 
         log.debug("Publishing event update to Kafka: {}", event);
 
+        RetryContext retryContext = RetrySynchronizationManager.getContext();
+        if (retryContext != null && retryContext.getRetryCount() > 0) {
+            eventMetrics.recordPublishRetry(PublishMode.BLOCKING);
+        }
+
+        long start = System.nanoTime();
         try {
             CompletableFuture<SendResult<String, Event>> future = kafkaTemplate.send(topicName, event.getEventId(), event);
 
             SendResult<String, Event> result = future.get(publishTimeoutSeconds, TimeUnit.SECONDS);
+            eventMetrics.recordPublish(PublishMode.BLOCKING, Outcome.SUCCESS, System.nanoTime() - start);
 
             log.info("Published event update successfully: eventId={}, topic={}, partition={}, offset={}", event.getEventId(), result.getRecordMetadata()
                     .topic(), result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
 
         } catch (Exception ex) {
+            eventMetrics.recordPublish(PublishMode.BLOCKING, Outcome.ERROR, System.nanoTime() - start);
             log.error("Failed to publish event update to Kafka: {}", ex.getMessage(), ex);
             throw new MessagePublishException("Failed to publish event update for " + event.getEventId(), ex);
         }
     }
 
+    /**
+     * Publishes event updates to Kafka without blocking on the broker acknowledgement.
+     * At most {@code kafka.publish.max-in-flight} publishes are outstanding, callers wait up to the publish timeout
+     * for a free slot. Failed sends are retried with the same backoff as {@link #publishEventUpdate(Event)}, but the
+     * retry is scheduled from the send callback instead of sleeping on the calling thread.
+     *
+     * @param event The event data to publish
+     * @return future completed once the update is acknowledged, or with a {@link MessagePublishException}
+     */
+    @Override
+    public CompletableFuture<Void> publishEventUpdateAsync(Event event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+        Objects.requireNonNull(event.getEventId(), "Event ID cannot be null");
+
+        return publishAsync("update for " + event.getEventId(), () -> kafkaTemplate.send(topicName, event.getEventId(), event));
+    }
+
+    /**
+     * In envelope mode ({@code kafka.publish.envelope.enabled}) the updates are grouped by the partition their
+     * event id keys to, and the updates of a partition are sent as one {@link EventBinaryCodec} envelope record
+     * tagged with the envelope format header. Per event order holds, an event always lands on the same partition
+     * as its keyed records would. An envelope takes one slot of the in-flight window and is retried as a whole.
+     *
+     * @param events The event data to publish
+     * @return one future per event, completed with the envelope that carries it
+     */
+    @Override
+    public List<CompletableFuture<Void>> publishEventUpdatesAsync(List<Event> events) {
+        if (!envelopeEnabled) {
+            return MessagePublisher.super.publishEventUpdatesAsync(events);
+        }
+        int partitions;
+        try {
+            // looked up per batch from the producer's metadata, the same view its partitioner has of the topic,
+            // so envelopes follow partitions added to the topic once the metadata is refreshed
+            partitions = envelopeKafkaTemplate.partitionsFor(topicName).size();
+        } catch (Exception ex) {
+            log.error("Failed to look up the partitions of {}: {}", topicName, ex.getMessage());
+            CompletableFuture<Void> failed = CompletableFuture.failedFuture(new MessagePublishException("No partitions of " + topicName, ex));
+            return events.stream().map(event -> failed).toList();
+        }
+
+        int[] partitionOf = new int[events.size()];
+        Map<Integer, List<Event>> envelopes = new HashMap<>();
+        for (int i = 0; i < partitionOf.length; i++) {
+            Event event = Objects.requireNonNull(events.get(i), "Event cannot be null");
+            partitionOf[i] = partitionFor(Objects.requireNonNull(event.getEventId(), "Event ID cannot be null"), partitions);
+            envelopes.computeIfAbsent(partitionOf[i], partition -> new ArrayList<>()).add(event);
+        }
+
+        Map<Integer, CompletableFuture<Void>> published = new HashMap<>();
+        envelopes.forEach((partition, envelope) -> {
+            byte[] value = EventBinaryCodec.encodeEnvelope(envelope);
+            // a new record per attempt, the producer makes the headers of a sent record read only
+            published.put(partition, publishAsync("envelope of " + envelope.size() + " updates to partition " + partition,
+                    () -> envelopeKafkaTemplate.send(new ProducerRecord<>(topicName, partition, null, null, value,
+                            new RecordHeaders().add(EventBinaryCodec.FORMAT_HEADER, FORMAT_ENVELOPE_V1)))));
+        });
+        List<CompletableFuture<Void>> futures = new ArrayList<>(partitionOf.length);
+        for (int partition : partitionOf) {
+            futures.add(published.get(partition));
+        }
+        return futures;
+    }
+
+    /**
+     * Partition the default partitioner picks for a record keyed by the event id.
+     */
+    static int partitionFor(String eventId, int partitions) {
+        return Utils.toPositive(Utils.murmur2(eventId.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private CompletableFuture<Void> publishAsync(String description, Supplier<CompletableFuture<? extends SendResult<String, ?>>> sender) {
+        long start = System.nanoTime();
+        try {
+            if (!inFlightWindow.tryAcquire(publishTimeoutSeconds, TimeUnit.SECONDS)) {
+                eventMetrics.recordPublish(PublishMode.ASYNC, Outcome.REJECTED, System.nanoTime() - start);
+                return CompletableFuture.failedFuture(new MessagePublishException("Publish window full, dropping " + description, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new MessagePublishException("Interrupted waiting to publish " + description, e));
+        }
+
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        published.whenComplete((result, ex) -> {
+            inFlightWindow.release();
+            eventMetrics.recordPublish(PublishMode.ASYNC, ex == null ? Outcome.SUCCESS : Outcome.ERROR, System.nanoTime() - start);
+        });
+        send(description, sender, 1, published);
+        return published;
+    }
+
+    private void send(String description, Supplier<CompletableFuture<? extends SendResult<String, ?>>> sender, int attempt,
+                      CompletableFuture<Void> published) {
+        log.debug("Publishing event {} to Kafka, attempt {}", description, attempt);
+
+        CompletableFuture<? extends SendResult<String, ?>> future;
+        try {
+            future = sender.get().orTimeout(publishTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+
+        future.whenComplete((result, ex) -> {
+            if (ex == null) {
+                log.debug("Published event {} successfully: topic={}, partition={}, offset={}", description, result.getRecordMetadata()
+                        .topic(), result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                published.complete(null);
+            } else if (attempt >= MAX_ATTEMPTS) {
+                log.error("Failed to publish event {} to Kafka after {} attempts: {}", description, attempt, ex.getMessage(), ex);
+                published.completeExceptionally(new MessagePublishException("Failed to publish event " + description, ex));
+            } else {
+                long delay = (long) (RETRY_DELAY_MILLIS * Math.pow(RETRY_MULTIPLIER, attempt - 1));
+                log.warn("Failed to publish event {}, retrying in {}ms: {}", description, delay, ex.getMessage());
+                eventMetrics.recordPublishRetry(PublishMode.ASYNC);
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> send(description, sender, attempt + 1, published));
+            }
+        });
+    }
+
+    /**
+     * @return async publishes currently sent or waiting for a retry
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlightWindow.availablePermits();
+    }
+
     /**
      * Custom exception for message publishing failures.
      */
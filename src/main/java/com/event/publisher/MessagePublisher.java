@@ -2,7 +2,27 @@ package com.event.publisher;
 
 import com.event.model.Event;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface MessagePublisher {
 
     void publishEventUpdate(Event event);
+
+    /**
+     * Publishes without blocking the caller.
+     * @param event the event data to publish
+     * @return future completed once the broker acknowledged the update, or exceptionally after the last retry
+     */
+    CompletableFuture<Void> publishEventUpdateAsync(Event event);
+
+    /**
+     * Publishes the updates of several events without blocking the caller, one record each unless the
+     * publisher packs them into envelopes.
+     * @param events the event data to publish
+     * @return one future per event, in the order of the events
+     */
+    default List<CompletableFuture<Void>> publishEventUpdatesAsync(List<Event> events) {
+        return events.stream().map(this::publishEventUpdateAsync).toList();
+    }
 }
\ No newline at end of file
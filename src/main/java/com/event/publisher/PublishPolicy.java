@@ -0,0 +1,101 @@
+package com.event.publisher;
+
+import com.event.model.Event;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a fetched event update is published to Kafka.
+ * <p>
+ * Per event only a fingerprint of the last published state is kept, packed into one long:
+ * the high 32 bits hold a hash of score and live flag, the low 32 bits count the polls suppressed since.
+ */
+@Component
+@Slf4j
+public class PublishPolicy {
+
+    private static final long COUNTER_MASK = 0xFFFFFFFFL;
+
+    private final Mode mode;
+    private final int heartbeatEvery;
+
+    private final Map<String, AtomicLong> fingerprints = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public PublishPolicy(@Value("${kafka.publish.policy:on-change-with-heartbeat}") Mode mode,
+                         @Value("${kafka.publish.heartbeat-every:10}") int heartbeatEvery) {
+        this.mode = Objects.requireNonNull(mode, "Mode cannot be null");
+        if (mode == Mode.ON_CHANGE_WITH_HEARTBEAT && heartbeatEvery <= 0) {
+            throw new IllegalArgumentException("heartbeatEvery must be positive: " + heartbeatEvery);
+        }
+        this.heartbeatEvery = heartbeatEvery;
+    }
+
+    /**
+     * Records a fetched update and tells whether it should be published.
+     * @param event fetched event data
+     * @return true if the update must be published
+     */
+    public boolean shouldPublish(Event event) {
+        if (mode == Mode.ALWAYS) {
+            published.increment();
+            return true;
+        }
+
+        long hash = (long) Objects.hash(event.getCurrentScore(), event.isLive()) << 32;
+        AtomicLong fingerprint = fingerprints.computeIfAbsent(event.getEventId(), key -> new AtomicLong(~hash));
+
+        long current;
+        long next;
+        boolean publish;
+        do {
+            current = fingerprint.get();
+            long sinceLastPublish = current & COUNTER_MASK;
+            publish = (current & ~COUNTER_MASK) != hash
+                    || (mode == Mode.ON_CHANGE_WITH_HEARTBEAT && sinceLastPublish + 1 >= heartbeatEvery);
+            next = publish ? hash : hash | Math.min(sinceLastPublish + 1, COUNTER_MASK);
+        } while (!fingerprint.compareAndSet(current, next));
+
+        if (publish) {
+            published.increment();
+        } else {
+            suppressed.increment();
+        }
+        return publish;
+    }
+
+    /**
+     * Drops the fingerprint of an event, the next update is published whatever its content.
+     * Used when an event stops being tracked or when publishing its last update failed.
+     * @param eventId event to forget
+     */
+    public void forget(String eventId) {
+        fingerprints.remove(eventId);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    public enum Mode {
+        ALWAYS,
+        ON_CHANGE,
+        ON_CHANGE_WITH_HEARTBEAT
+    }
+}
@@ -0,0 +1,61 @@
+package com.event.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts the polling interval of an event to how often its score changes.
+ * Every poll that returns an unchanged score backs the interval off by a multiplier up to the max interval,
+ * a changed score tightens it straight back to the min interval.
+ */
+@Component
+public class AdaptiveIntervalPolicy {
+
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double backoffMultiplier;
+
+    public AdaptiveIntervalPolicy(@Value("${event.polling.adaptive.enabled:true}") boolean enabled,
+                                  @Value("${event.polling.interval}") long baseIntervalSeconds,
+                                  @Value("${event.polling.adaptive.min-interval:${event.polling.interval}}") long minIntervalSeconds,
+                                  @Value("${event.polling.adaptive.max-interval:${event.polling.interval}}") long maxIntervalSeconds,
+                                  @Value("${event.polling.adaptive.backoff-multiplier:1.5}") double backoffMultiplier) {
+        if (minIntervalSeconds <= 0 || maxIntervalSeconds < minIntervalSeconds) {
+            throw new IllegalArgumentException("Invalid adaptive polling bounds: min=" + minIntervalSeconds + ", max=" + maxIntervalSeconds);
+        }
+        if (backoffMultiplier < 1) {
+            throw new IllegalArgumentException("backoffMultiplier must be at least 1: " + backoffMultiplier);
+        }
+        this.enabled = enabled;
+        this.minIntervalMillis = TimeUnit.SECONDS.toMillis(minIntervalSeconds);
+        this.maxIntervalMillis = TimeUnit.SECONDS.toMillis(maxIntervalSeconds);
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(baseIntervalSeconds);
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * @return interval a newly tracked event starts polling at
+     */
+    public long initialIntervalMillis() {
+        return enabled ? Math.min(Math.max(intervalMillis, minIntervalMillis), maxIntervalMillis) : intervalMillis;
+    }
+
+    /**
+     * @param currentIntervalMillis interval the event is polled at
+     * @param changed whether the last poll returned a different score
+     * @return interval for the next polls
+     */
+    public long nextIntervalMillis(long currentIntervalMillis, boolean changed) {
+        if (!enabled) {
+            return currentIntervalMillis;
+        }
+        if (changed) {
+            return minIntervalMillis;
+        }
+        return Math.min(maxIntervalMillis, Math.max(minIntervalMillis, (long) Math.ceil(currentIntervalMillis * backoffMultiplier)));
+    }
+}
@@ -0,0 +1,257 @@
+package com.event.scheduler;
+
+import com.event.config.AppConfig;
+import com.event.config.AppConfig.PollingExecutionMode;
+import com.event.metrics.EventMetrics;
+import com.event.model.EventPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Dispatches due polls to the polling executor earliest deadline first, at most {@code event.polling.max-concurrent-polls}
+ * chunks at a time. The deadline of a poll is its due time plus the SLA of the event's tier, so when the polls fall
+ * behind a high tier event goes ahead of the waiting polls of lower tiers, and a poll that waited long enough goes
+ * ahead of any newer one, which bounds the lag of every tier.
+ * <p>
+ * Under overload a due event whose poll is still queued or running is coalesced into it instead of queued twice, and
+ * a poll of a tier in {@code event.polling.priority.shed-late} that missed its deadline is shed, the event is polled
+ * again at its next due time. Due polls popped together are fetched as one chunk of up to
+ * {@code event.polling.batch-size} events.
+ */
+@Component
+@Slf4j
+public class DeadlineDispatcher {
+
+    private static final Map<EventPriority, Long> DEFAULT_SLA_MILLIS = Map.of(
+            EventPriority.HIGH, 500L, EventPriority.NORMAL, 2_000L, EventPriority.LOW, 5_000L);
+
+    private final Executor executor;
+    private final int maxConcurrentPolls;
+    private final int batchSize;
+    private final Map<EventPriority, Long> slaNanos = new EnumMap<>(EventPriority.class);
+    private final Set<EventPriority> shedLate;
+    private final EventMetrics eventMetrics;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> Long.compare(a.deadlineNanos - b.deadlineNanos, 0));
+    private final int[] queuedByTier = new int[EventPriority.values().length];
+    private int running;
+    // events with a poll queued or running
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private volatile Function<String, EventPriority> priorities;
+    private volatile Consumer<List<String>> poller;
+
+    /**
+     * In platform execution mode polls beyond the scheduler threads would wait in the executor's own queue in
+     * submission order, so at most that many chunks are dispatched.
+     */
+    @Autowired
+    public DeadlineDispatcher(Executor pollingExecutor,
+                              @Value("${event.polling.execution-mode:virtual}") PollingExecutionMode executionMode,
+                              @Value("${event.polling.max-concurrent-polls:64}") int maxConcurrentPolls,
+                              @Value("${event.polling.batch-size:50}") int batchSize,
+                              @Value("#{${event.polling.priority.sla-millis:{:}}}") Map<String, Number> slaMillis,
+                              @Value("${event.polling.priority.shed-late:LOW}") Set<EventPriority> shedLate,
+                              EventMetrics eventMetrics) {
+        this(pollingExecutor, executionMode == PollingExecutionMode.PLATFORM
+                        ? Math.min(maxConcurrentPolls, AppConfig.SCHEDULER_POOL_SIZE) : maxConcurrentPolls,
+                batchSize, slaMillis, shedLate, eventMetrics);
+    }
+
+    /**
+     * @param slaMillis dispatch deadline past the due time by tier name, a missing tier keeps its default
+     */
+    public DeadlineDispatcher(Executor executor, int maxConcurrentPolls, int batchSize, Map<String, Number> slaMillis,
+                              Set<EventPriority> shedLate, EventMetrics eventMetrics) {
+        if (maxConcurrentPolls <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPolls and batchSize must be positive: "
+                    + maxConcurrentPolls + ", " + batchSize);
+        }
+        this.executor = executor;
+        this.maxConcurrentPolls = maxConcurrentPolls;
+        this.batchSize = batchSize;
+        for (EventPriority priority : EventPriority.values()) {
+            Number millis = slaMillis.getOrDefault(priority.name(), DEFAULT_SLA_MILLIS.get(priority));
+            slaNanos.put(priority, TimeUnit.MILLISECONDS.toNanos(millis.longValue()));
+        }
+        this.shedLate = Set.copyOf(shedLate);
+        this.eventMetrics = eventMetrics;
+    }
+
+    /**
+     * @param priorities tier of an event, looked up once per due poll
+     * @param poller polls a chunk of events on a worker thread
+     */
+    public void start(Function<String, EventPriority> priorities, Consumer<List<String>> poller) {
+        this.priorities = priorities;
+        this.poller = poller;
+    }
+
+    /**
+     * Queues the polls of the events due in a tick and dispatches as many as the free slots allow, never blocks.
+     * @param dueNanos intended fire time of the tick, in {@link System#nanoTime()} units
+     */
+    public void dispatch(List<String> eventIds, long dueNanos) {
+        lock.lock();
+        try {
+            for (String eventId : eventIds) {
+                EventPriority priority = priorities.apply(eventId);
+                if (!inFlight.add(eventId)) {
+                    log.debug("Previous poll still queued or running, coalescing tick for event: {}", eventId);
+                    eventMetrics.recordCoalesced(priority);
+                    continue;
+                }
+                queue.add(new Pending(eventId, priority, dueNanos, dueNanos + slaNanos.get(priority)));
+                queuedByTier[priority.ordinal()]++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * @return events with a poll queued or running
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return polls waiting for a free slot
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> tiers = new LinkedHashMap<>();
+        int runningChunks;
+        lock.lock();
+        try {
+            runningChunks = running;
+            for (EventPriority priority : EventPriority.values()) {
+                Map<String, Object> tier = new LinkedHashMap<>(eventMetrics.tierStatus(priority));
+                tier.put("queued", queuedByTier[priority.ordinal()]);
+                tier.put("slaMillis", TimeUnit.NANOSECONDS.toMillis(slaNanos.get(priority)));
+                tiers.put(priority.name(), tier);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Map.of(
+                "maxConcurrentPolls", maxConcurrentPolls,
+                "running", runningChunks,
+                "tiers", tiers
+        );
+    }
+
+    /**
+     * Pops chunks in deadline order while a slot is free, called after queueing and whenever a chunk finishes. Stops
+     * at a chunk the executor rejects, the rest stays queued for the next dispatch or finished chunk.
+     */
+    private void drain() {
+        while (true) {
+            List<Pending> chunk;
+            lock.lock();
+            try {
+                if (running >= maxConcurrentPolls || queue.isEmpty()) {
+                    return;
+                }
+                long now = System.nanoTime();
+                chunk = new ArrayList<>(Math.min(batchSize, queue.size()));
+                while (chunk.size() < batchSize && !queue.isEmpty()) {
+                    Pending pending = queue.poll();
+                    queuedByTier[pending.priority.ordinal()]--;
+                    if (shedLate.contains(pending.priority) && now - pending.deadlineNanos > 0) {
+                        log.debug("Shedding poll of event {} that missed its deadline", pending.eventId);
+                        inFlight.remove(pending.eventId);
+                        eventMetrics.recordShed(pending.priority);
+                        continue;
+                    }
+                    chunk.add(pending);
+                }
+                if (chunk.isEmpty()) {
+                    continue;
+                }
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            if (!submit(chunk)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the executor rejected the chunk, its events are dropped and polled again at their next due time
+     */
+    private boolean submit(List<Pending> chunk) {
+        List<String> eventIds = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            eventIds.add(pending.eventId);
+        }
+        try {
+            executor.execute(() -> {
+                // lag of the ticker plus the wait for a slot and a worker, grows once the polls fall behind
+                long now = System.nanoTime();
+                for (Pending pending : chunk) {
+                    eventMetrics.recordPollingLag(pending.priority, now - pending.dueNanos);
+                }
+                try {
+                    poller.accept(eventIds);
+                } finally {
+                    finish(eventIds);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Error dispatching poll for {} events, dropping them: {}", eventIds.size(), e.getMessage(), e);
+            // no drain from here, the caller is draining and a rejecting executor would recurse until the stack overflows
+            release(eventIds);
+            return false;
+        }
+        return true;
+    }
+
+    private void finish(List<String> eventIds) {
+        release(eventIds);
+        drain();
+    }
+
+    private void release(List<String> eventIds) {
+        eventIds.forEach(inFlight::remove);
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Pending(String eventId, EventPriority priority, long dueNanos, long deadlineNanos) {
+    }
+}
@@ -0,0 +1,328 @@
+package com.event.scheduler;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel polling engine.
+ * <p>
+ * A single ticker thread advances the wheel every tick and collects the events whose deadline has passed.
+ * Schedule and cancel are O(1): callers only enqueue the change, the ticker applies it before the next tick,
+ * so the wheel buckets are never touched by more than one thread.
+ */
+@Component
+@Slf4j
+public class HashedWheelPollingEngine implements PollingEngine {
+
+    public static final String TICKER_THREAD_NAME = "polling-wheel-ticker";
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Map<String, Timeout> timeouts = new ConcurrentHashMap<>();
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> rescheduledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private volatile DueEventsHandler handler;
+    private volatile Thread ticker;
+    private volatile boolean running;
+    private volatile long startNanos;
+
+    // only accessed by the ticker thread
+    private long tick;
+
+    public HashedWheelPollingEngine(@Value("${event.polling.tick-millis:10}") long tickMillis,
+                                    @Value("${event.polling.wheel-size:1024}") int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = createWheel(wheelSize);
+        this.mask = wheel.length - 1;
+    }
+
+    private static Bucket[] createWheel(int wheelSize) {
+        // round up to a power of two so the bucket index is a mask instead of a modulo
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        Bucket[] buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    @Override
+    public synchronized void start(DueEventsHandler handler) {
+        Objects.requireNonNull(handler, "Handler cannot be null");
+        if (running) {
+            throw new IllegalStateException("Polling engine already started");
+        }
+        this.handler = handler;
+        this.startNanos = System.nanoTime();
+        this.running = true;
+
+        Thread thread = new Thread(this::run, TICKER_THREAD_NAME);
+        thread.setDaemon(true);
+        this.ticker = thread;
+        thread.start();
+        log.info("Started polling wheel: buckets={}, tick={}ms", wheel.length, TimeUnit.NANOSECONDS.toMillis(tickNanos));
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = ticker;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timeouts.clear();
+        pendingTimeouts.clear();
+        cancelledTimeouts.clear();
+        rescheduledTimeouts.clear();
+        log.info("Stopped polling wheel");
+    }
+
+    @Override
+    public void schedule(String eventId, Duration initialDelay, Duration interval) {
+        Objects.requireNonNull(eventId, "Event ID cannot be null");
+        Timeout timeout = new Timeout(eventId, System.nanoTime() + initialDelay.toNanos(), toTicks(interval));
+
+        Timeout previous = timeouts.put(eventId, timeout);
+        if (previous != null) {
+            markCancelled(previous);
+        }
+        pendingTimeouts.add(timeout);
+    }
+
+    @Override
+    public boolean updateInterval(String eventId, Duration interval) {
+        Timeout timeout = timeouts.get(eventId);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.intervalTicks = toTicks(interval);
+        rescheduledTimeouts.add(timeout);
+        return true;
+    }
+
+    @Override
+    public boolean cancel(String eventId) {
+        Timeout timeout = timeouts.remove(eventId);
+        if (timeout == null) {
+            return false;
+        }
+        markCancelled(timeout);
+        return true;
+    }
+
+    @Override
+    public boolean isScheduled(String eventId) {
+        return timeouts.containsKey(eventId);
+    }
+
+    @Override
+    public int size() {
+        return timeouts.size();
+    }
+
+    private void markCancelled(Timeout timeout) {
+        timeout.cancelled = true;
+        cancelledTimeouts.add(timeout);
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startNanos + tick * tickNanos;
+            if (!waitUntil(deadline)) {
+                break;
+            }
+
+            removeCancelled();
+            transferPending();
+            moveRescheduled();
+
+            List<String> due = expire(wheel[(int) (tick & mask)]);
+            if (!due.isEmpty()) {
+                try {
+                    handler.onDue(due, deadline);
+                } catch (Exception e) {
+                    log.error("Error dispatching {} due events: {}", due.size(), e.getMessage(), e);
+                }
+            }
+            tick++;
+        }
+    }
+
+    private boolean waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (!running || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return running;
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long deadlineTick = ceilDiv(timeout.initialDeadlineNanos - startNanos, tickNanos);
+            timeout.deadlineTick = Math.max(deadlineTick, tick);
+            wheel[(int) (timeout.deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void moveRescheduled() {
+        Timeout timeout;
+        while ((timeout = rescheduledTimeouts.poll()) != null) {
+            // a timeout that has not fired yet keeps its initial delay and picks the interval up when it fires
+            if (timeout.cancelled || timeout.bucket == null || timeout.lastFireTick < 0) {
+                continue;
+            }
+            long deadlineTick = Math.max(tick, timeout.lastFireTick + timeout.intervalTicks);
+            if (deadlineTick != timeout.deadlineTick) {
+                timeout.bucket.remove(timeout);
+                timeout.deadlineTick = deadlineTick;
+                wheel[(int) (deadlineTick & mask)].add(timeout);
+            }
+        }
+    }
+
+    private List<String> expire(Bucket bucket) {
+        List<Timeout> fired = null;
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.cancelled) {
+                bucket.remove(timeout);
+            } else if (timeout.deadlineTick <= tick) {
+                bucket.remove(timeout);
+                if (fired == null) {
+                    fired = new ArrayList<>();
+                }
+                fired.add(timeout);
+            }
+            timeout = next;
+        }
+        if (fired == null) {
+            return List.of();
+        }
+
+        // re-arm after the scan so an interval that is a multiple of the wheel size is not revisited this tick
+        List<String> due = new ArrayList<>(fired.size());
+        for (Timeout firedTimeout : fired) {
+            due.add(firedTimeout.eventId);
+            firedTimeout.lastFireTick = tick;
+            long nextTick = firedTimeout.deadlineTick + firedTimeout.intervalTicks;
+            // when the ticker fell behind, skip the missed periods instead of bunching them up
+            firedTimeout.deadlineTick = nextTick > tick ? nextTick : tick + firedTimeout.intervalTicks;
+            wheel[(int) (firedTimeout.deadlineTick & mask)].add(firedTimeout);
+        }
+        return due;
+    }
+
+    private long toTicks(Duration interval) {
+        return Math.max(1, ceilDiv(interval.toNanos(), tickNanos));
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private static final class Timeout {
+        private final String eventId;
+        private final long initialDeadlineNanos;
+        private volatile long intervalTicks;
+        private volatile boolean cancelled;
+
+        // only accessed by the ticker thread
+        private long deadlineTick;
+        private long lastFireTick = -1;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(String eventId, long initialDeadlineNanos, long intervalTicks) {
+            this.eventId = eventId;
+            this.initialDeadlineNanos = initialDeadlineNanos;
+            this.intervalTicks = intervalTicks;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list so removal is O(1).
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
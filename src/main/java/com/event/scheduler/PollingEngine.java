@@ -0,0 +1,63 @@
+package com.event.scheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Drives periodic polling of every tracked event from a single ticker.
+ * Due events are handed to a {@link DueEventsHandler} which is expected to
+ * dispatch the actual work to worker threads.
+ */
+public interface PollingEngine {
+
+    /**
+     * Starts the ticker.
+     * @param handler callback invoked on the ticker thread with the events due in a tick
+     */
+    void start(DueEventsHandler handler);
+
+    /**
+     * Stops the ticker, pending schedules are discarded.
+     */
+    void stop();
+
+    /**
+     * Schedules (or re-schedules) periodic polling of an event.
+     * @param eventId event to poll
+     * @param initialDelay delay before the first poll
+     * @param interval period between polls
+     */
+    void schedule(String eventId, Duration initialDelay, Duration interval);
+
+    /**
+     * Changes the polling interval of a scheduled event without resetting its schedule,
+     * the next poll is moved to the last poll plus the new interval.
+     * @param eventId scheduled event
+     * @param interval new period between polls
+     * @return true if the event was scheduled
+     */
+    boolean updateInterval(String eventId, Duration interval);
+
+    /**
+     * Cancels polling of an event.
+     * @param eventId event to cancel
+     * @return true if the event was scheduled
+     */
+    boolean cancel(String eventId);
+
+    boolean isScheduled(String eventId);
+
+    /**
+     * @return number of currently scheduled events
+     */
+    int size();
+
+    @FunctionalInterface
+    interface DueEventsHandler {
+        /**
+         * @param eventIds events due in this tick
+         * @param deadlineNanos intended fire time of the tick, in {@link System#nanoTime()} units
+         */
+        void onDue(List<String> eventIds, long deadlineNanos);
+    }
+}
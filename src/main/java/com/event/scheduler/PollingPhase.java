@@ -0,0 +1,33 @@
+package com.event.scheduler;
+
+/**
+ * Deterministic phase of an event within its polling interval.
+ * Events started together would otherwise all be due in the same tick of every interval, offsetting each by a hash
+ * of its id spreads them evenly over the interval, and the same event always lands on the same phase, on every
+ * node and after every restart.
+ */
+public final class PollingPhase {
+
+    private PollingPhase() {
+    }
+
+    /**
+     * @param eventId event to place
+     * @param intervalMillis polling interval of the event
+     * @return offset in [0, intervalMillis) to add to the first delay of the event
+     */
+    public static long offsetMillis(String eventId, long intervalMillis) {
+        if (intervalMillis <= 1) {
+            return 0;
+        }
+        // String.hashCode of ids like event-1, event-2 only differs in the low bits, the 64-bit finalizer of
+        // MurmurHash3 avalanches them before taking the remainder
+        long hash = eventId.hashCode();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return Math.floorMod(hash, intervalMillis);
+    }
+}
@@ -0,0 +1,285 @@
+package com.event.serialization;
+
+import com.event.model.Event;
+import com.event.model.EventPriority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, versioned binary encoding of {@link Event}.
+ * <pre>
+ * v1: version:byte flags:byte eventId:(varint length, utf-8) [currentScore:(varint length, utf-8)] [lastUpdated:varint epoch millis]
+ * v2: v1 followed by priority:byte ordinal, written only for an event with a tier, which is journaled, never published
+ * envelope v1: version:byte count:varint (length:varint, v1 or v2 record) * count
+ * </pre>
+ * An event without a tier is still written as v1, so the published records stay readable by v1 consumers, and a
+ * v1 decoder fails on a v2 record instead of misreading it. Flags a version does not define are rejected.
+ * An envelope packs the updates of several events into a single record, consumers unpack it with
+ * {@link #decodeEnvelope(byte[])} or {@link EventEnvelopeDeserializer}.
+ * The encoder sizes the record first and writes straight into the result array, so encoding allocates
+ * nothing but the byte[] that Kafka takes ownership of.
+ */
+public final class EventBinaryCodec {
+
+    /** Record header carrying the value format, absent for JSON records. */
+    public static final String FORMAT_HEADER = "event-format";
+    public static final byte FORMAT_BINARY_V1 = 1;
+    public static final byte FORMAT_ENVELOPE_V1 = 2;
+
+    static final byte VERSION_1 = 1;
+    static final byte VERSION_2 = 2;
+
+    private static final int FLAG_LIVE = 1;
+    private static final int FLAG_SCORE = 1 << 1;
+    private static final int FLAG_LAST_UPDATED = 1 << 2;
+    private static final int FLAG_PRIORITY = 1 << 3;
+    private static final int FLAGS_V1 = FLAG_LIVE | FLAG_SCORE | FLAG_LAST_UPDATED;
+    private static final int FLAGS_V2 = FLAGS_V1 | FLAG_PRIORITY;
+    private static final EventPriority[] PRIORITIES = EventPriority.values();
+
+    private EventBinaryCodec() {
+    }
+
+    public static byte[] encode(Event event) {
+        byte[] bytes = new byte[size(event)];
+        write(event, bytes, 0);
+        return bytes;
+    }
+
+    public static Event decode(byte[] bytes) {
+        Reader reader = new Reader(bytes, 0);
+        Event event = reader.readEvent(bytes.length);
+        if (reader.position != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes in event record");
+        }
+        return event;
+    }
+
+    /**
+     * Encodes the events into a single envelope, sized up front like a single record.
+     */
+    public static byte[] encodeEnvelope(List<Event> events) {
+        int[] sizes = new int[events.size()];
+        int size = 1 + varintSize(events.size());
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = size(events.get(i));
+            size += varintSize(sizes[i]) + sizes[i];
+        }
+
+        byte[] bytes = new byte[size];
+        bytes[0] = VERSION_1;
+        int position = writeVarint(bytes, 1, events.size());
+        for (int i = 0; i < sizes.length; i++) {
+            position = writeVarint(bytes, position, sizes[i]);
+            position = write(events.get(i), bytes, position);
+        }
+        return bytes;
+    }
+
+    public static List<Event> decodeEnvelope(byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported event envelope version: " + (bytes.length == 0 ? "empty" : bytes[0]));
+        }
+        Reader reader = new Reader(bytes, 1);
+        long count = reader.readVarint();
+        // every record takes at least 3 bytes, a larger count can only come from a corrupt envelope
+        if (count > (bytes.length - reader.position) / 3) {
+            throw new IllegalArgumentException("Truncated event envelope of " + count + " records");
+        }
+        List<Event> events = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            long length = reader.readVarint();
+            if (length > bytes.length - reader.position) {
+                throw new IllegalArgumentException("Truncated record in event envelope");
+            }
+            int end = reader.position + (int) length;
+            events.add(reader.readEvent(end));
+            if (reader.position != end) {
+                throw new IllegalArgumentException("Malformed record in event envelope");
+            }
+        }
+        if (reader.position != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes in event envelope");
+        }
+        return events;
+    }
+
+    private static int size(Event event) {
+        int eventIdLength = utf8Length(event.getEventId());
+        int size = 2 + varintSize(eventIdLength) + eventIdLength;
+        if (event.getCurrentScore() != null) {
+            int scoreLength = utf8Length(event.getCurrentScore());
+            size += varintSize(scoreLength) + scoreLength;
+        }
+        if (event.getLastUpdated() != null) {
+            size += varintSize(event.getLastUpdated().toEpochMilli());
+        }
+        if (event.getPriority() != null) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int write(Event event, byte[] bytes, int position) {
+        String eventId = event.getEventId();
+        String currentScore = event.getCurrentScore();
+        Instant lastUpdated = event.getLastUpdated();
+
+        int flags = event.isLive() ? FLAG_LIVE : 0;
+        if (currentScore != null) {
+            flags |= FLAG_SCORE;
+        }
+        if (lastUpdated != null) {
+            flags |= FLAG_LAST_UPDATED;
+        }
+        if (event.getPriority() != null) {
+            flags |= FLAG_PRIORITY;
+        }
+        bytes[position++] = (flags & FLAG_PRIORITY) != 0 ? VERSION_2 : VERSION_1;
+        bytes[position++] = (byte) flags;
+        position = writeVarint(bytes, position, utf8Length(eventId));
+        position = writeUtf8(bytes, position, eventId);
+        if (currentScore != null) {
+            position = writeVarint(bytes, position, utf8Length(currentScore));
+            position = writeUtf8(bytes, position, currentScore);
+        }
+        if (lastUpdated != null) {
+            position = writeVarint(bytes, position, lastUpdated.toEpochMilli());
+        }
+        if (event.getPriority() != null) {
+            bytes[position++] = (byte) event.getPriority().ordinal();
+        }
+        return position;
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] bytes, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static int writeUtf8(byte[] bytes, int position, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                // lone surrogate, written as a 3 byte sequence to match utf8Length
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= bytes.length || shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint in event record");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        private Event readEvent(int end) {
+            if (end - position < 2 || (bytes[position] != VERSION_1 && bytes[position] != VERSION_2)) {
+                throw new IllegalArgumentException("Unsupported event record version: " + (end == position ? "empty" : bytes[position]));
+            }
+            int flags = bytes[position + 1];
+            if ((flags & ~(bytes[position] == VERSION_1 ? FLAGS_V1 : FLAGS_V2)) != 0) {
+                throw new IllegalArgumentException("Unknown flags " + flags + " in event record version " + bytes[position]);
+            }
+            position += 2;
+
+            Event.EventBuilder event = Event.builder()
+                    .eventId(readString())
+                    .live((flags & FLAG_LIVE) != 0);
+            if ((flags & FLAG_SCORE) != 0) {
+                event.currentScore(readString());
+            }
+            event.lastUpdated((flags & FLAG_LAST_UPDATED) != 0 ? Instant.ofEpochMilli(readVarint()) : null);
+            if ((flags & FLAG_PRIORITY) != 0) {
+                event.priority(readPriority(end));
+            }
+            return event.build();
+        }
+
+        private EventPriority readPriority(int end) {
+            if (position >= end || bytes[position] < 0 || bytes[position] >= PRIORITIES.length) {
+                throw new IllegalArgumentException("Invalid priority in event record");
+            }
+            return PRIORITIES[bytes[position++]];
+        }
+
+        private String readString() {
+            long length = readVarint();
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("Truncated string in event record");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
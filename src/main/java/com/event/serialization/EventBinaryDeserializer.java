@@ -0,0 +1,47 @@
+package com.event.serialization;
+
+import com.event.model.Event;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka deserializer for {@link Event} records in either format: records tagged with the binary
+ * {@link EventBinaryCodec#FORMAT_HEADER} are decoded with {@link EventBinaryCodec}, everything else is read as JSON.
+ */
+public class EventBinaryDeserializer implements Deserializer<Event> {
+
+    private final JsonDeserializer<Event> jsonDeserializer = new JsonDeserializer<>(Event.class, false);
+
+    @Override
+    public Event deserialize(String topic, byte[] data) {
+        return data == null ? null : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public Event deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header format = headers.lastHeader(EventBinaryCodec.FORMAT_HEADER);
+        if (format == null) {
+            return jsonDeserializer.deserialize(topic, headers, data);
+        }
+        byte[] value = format.value();
+        if (value == null || value.length != 1 || value[0] != EventBinaryCodec.FORMAT_BINARY_V1) {
+            throw new SerializationException("Unsupported event format on topic " + topic);
+        }
+        try {
+            return EventBinaryCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode event record on topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
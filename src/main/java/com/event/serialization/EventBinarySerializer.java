@@ -0,0 +1,29 @@
+package com.event.serialization;
+
+import com.event.model.Event;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer writing {@link Event} in the {@link EventBinaryCodec} format and tagging the record with
+ * the {@link EventBinaryCodec#FORMAT_HEADER} header so consumers can tell it apart from JSON.
+ */
+public class EventBinarySerializer implements Serializer<Event> {
+
+    private static final byte[] FORMAT_BINARY_V1 = {EventBinaryCodec.FORMAT_BINARY_V1};
+
+    @Override
+    public byte[] serialize(String topic, Event data) {
+        return data == null ? null : EventBinaryCodec.encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Event data) {
+        if (data == null) {
+            return null;
+        }
+        headers.remove(EventBinaryCodec.FORMAT_HEADER);
+        headers.add(EventBinaryCodec.FORMAT_HEADER, FORMAT_BINARY_V1);
+        return EventBinaryCodec.encode(data);
+    }
+}
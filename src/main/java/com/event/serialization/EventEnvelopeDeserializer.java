@@ -0,0 +1,46 @@
+package com.event.serialization;
+
+import com.event.model.Event;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.List;
+
+/**
+ * Kafka deserializer for consumers of a topic published in envelope mode: records tagged with the envelope
+ * {@link EventBinaryCodec#FORMAT_HEADER} are unpacked into their updates, any other record is read by
+ * {@link EventBinaryDeserializer} as a single update.
+ */
+public class EventEnvelopeDeserializer implements Deserializer<List<Event>> {
+
+    private final EventBinaryDeserializer eventDeserializer = new EventBinaryDeserializer();
+
+    @Override
+    public List<Event> deserialize(String topic, byte[] data) {
+        return data == null ? null : List.of(eventDeserializer.deserialize(topic, data));
+    }
+
+    @Override
+    public List<Event> deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        Header format = headers.lastHeader(EventBinaryCodec.FORMAT_HEADER);
+        byte[] value = format == null ? null : format.value();
+        if (value == null || value.length != 1 || value[0] != EventBinaryCodec.FORMAT_ENVELOPE_V1) {
+            return List.of(eventDeserializer.deserialize(topic, headers, data));
+        }
+        try {
+            return EventBinaryCodec.decodeEnvelope(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Failed to decode event envelope on topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        eventDeserializer.close();
+    }
+}
@@ -1,11 +1,63 @@
 package com.event.service;
 
 import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventFilter;
+import com.event.model.EventPage;
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
 
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface EventService {
-    void updateEventStatus(String eventId, boolean isLive);
+    default void updateEventStatus(String eventId, boolean isLive) {
+        updateEventStatus(eventId, isLive, null);
+    }
+
+    /**
+     * @param priority polling tier of a started event, null keeps the tier of an event already tracked
+     */
+    void updateEventStatus(String eventId, boolean isLive, EventPriority priority);
+
+    /**
+     * Applies a batch of status changes in order, a change that is invalid or fails does not stop the others.
+     * @param requests status changes
+     * @return one result per request, in request order
+     */
+    List<EventStatusResult> updateEventStatuses(List<EventStatusRequest> requests);
+
+    /**
+     * Stops polling an event and drops all of its local state without publishing anything,
+     * used when the event is handed over to another instance.
+     * @param eventId event to release
+     */
+    void releaseEvent(String eventId);
 
     Map<String, Event> getAllEvents();
+
+    /**
+     * Lists the matching events ordered by id.
+     * @param filter events to include
+     * @param afterEventId id the previous page ended with, null for the first page
+     * @param limit maximum number of events in the page
+     * @return the page, its next cursor is the id to continue after or null when there are no more events
+     */
+    EventPage getEvents(EventFilter filter, String afterEventId, int limit);
+
+    /**
+     * Visits the matching events one at a time without copying the registry, in no particular order.
+     * @param filter events to include
+     * @param action called for every matching event
+     */
+    void forEachEvent(EventFilter filter, Consumer<Event> action);
+
+    /**
+     * Lists the events changed and removed after a version of the event store.
+     * @param sinceVersion version of the previous delta, 0 for every event
+     * @return the delta, holding every event when the changes since the version cannot be told
+     */
+    EventDelta getChangedEvents(long sinceVersion);
 }
@@ -1,39 +1,103 @@
 package com.event.service;
 
 import com.event.external.ExternalApiClient;
+import com.event.external.UpstreamCircuitBreaker.CircuitOpenException;
+import com.event.journal.EventJournal;
+import com.event.metrics.EventMetrics;
 import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventFilter;
+import com.event.model.EventPage;
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
 import com.event.publisher.MessagePublisher;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.scheduler.PollingEngine;
+import com.event.scheduler.PollingPhase;
+import com.event.state.EventStore;
+import com.event.stream.EventUpdateBroadcaster;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EventServiceImpl implements EventService {
 
-    @Value("${event.polling.interval}")
-    private long pollingIntervalSeconds;
-
     @Value("${event.initial.delay:1}")
     private long initialDelaySeconds;
 
-    private final TaskScheduler taskScheduler;
+    @Value("${kafka.publish.async:true}")
+    private boolean asyncPublish;
+
+    @Value("${kafka.publish.envelope.enabled:false}")
+    private boolean envelopePublish;
+
+    private final DeadlineDispatcher pollDispatcher;
+    private final PollingEngine pollingEngine;
+    private final AdaptiveIntervalPolicy adaptiveIntervalPolicy;
     private final ExternalApiClient externalApiClient;
     private final MessagePublisher messagePublisher;
+    private final PublishPolicy publishPolicy;
+    private final EventJournal eventJournal;
+    private final EventUpdateBroadcaster eventUpdateBroadcaster;
+    private final EventStore eventStore;
+    private final EventMetrics eventMetrics;
 
-    private final Map<String, Event> events = new ConcurrentHashMap<>();
-    private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
+    // ordered ids for cursor pagination, only changes when an event is added or released, never on a poll
+    private final NavigableSet<String> eventIds = new ConcurrentSkipListSet<>();
+
+    @PostConstruct
+    void startPolling() {
+        eventMetrics.gauge("event.polling.scheduled", "Events scheduled on the polling wheel", pollingEngine::size);
+        eventMetrics.gauge("event.polling.in.flight", "Events with a poll queued for dispatch or running", pollDispatcher::inFlight);
+        eventMetrics.gauge("event.tracked", "Tracked events, live or not", eventStore::size);
+        pollDispatcher.start(eventStore::getPriority, this::pollChunk);
+        pollingEngine.start(pollDispatcher::dispatch);
+        restoreEvents(eventJournal.open(() -> eventStore.asMap().values()));
+    }
+
+    /**
+     * Resumes polling of the live events recovered from the journal. The first polls keep each event's phase within
+     * its interval so a restart with many live events does not hit the upstream with all of them in the same tick.
+     */
+    private void restoreEvents(Map<String, Event> recovered) {
+        int resumed = 0;
+        for (Event recoveredEvent : recovered.values()) {
+            Event event = recoveredEvent.isLive() && recoveredEvent.getPollingIntervalMillis() == null
+                    ? recoveredEvent.toBuilder().pollingIntervalMillis(adaptiveIntervalPolicy.initialIntervalMillis()).build()
+                    : recoveredEvent;
+            eventStore.put(event);
+            eventIds.add(event.getEventId());
+            if (!event.isLive()) {
+                continue;
+            }
+            long intervalMillis = event.getPollingIntervalMillis();
+            long initialDelayMillis = Duration.ofSeconds(initialDelaySeconds).toMillis() + PollingPhase.offsetMillis(event.getEventId(), intervalMillis);
+            pollingEngine.schedule(event.getEventId(), Duration.ofMillis(initialDelayMillis), Duration.ofMillis(intervalMillis));
+            resumed++;
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Restored {} events from the journal, resumed polling of {}", recovered.size(), resumed);
+        }
+    }
 
     /**
      * Create or update event status
@@ -41,42 +105,76 @@ public class EventServiceImpl implements EventService {
      * @param live status
      */
     @Override
-    public void updateEventStatus(String eventId, boolean live) {
+    public void updateEventStatus(String eventId, boolean live, EventPriority priority) {
         Objects.requireNonNull(eventId, "Event ID cannot be null");
-        log.info("Updating event status: eventId={}, live={}", eventId, live);
+        log.info("Updating event status: eventId={}, live={}, priority={}", eventId, live, priority);
 
         if (live) {
-            startEventTracking(eventId);
+            startEventTracking(eventId, priority);
         } else {
             stopEventTracking(eventId);
         }
     }
 
-    private void startEventTracking(String eventId) {
-        log.info("Starting tracking for event: {}", eventId);
-
-        // Create or Update event status
-        events.compute(eventId, (key, existingEvent) -> {
-            if (existingEvent == null) {
-                return Event.builder().eventId(key).live(true).build();
-            } else {
-                existingEvent.setLive(true);
-                return existingEvent;
+    /**
+     * Applies the changes without logging each of them, the first polls of the started events are spread over
+     * their interval like any other start.
+     */
+    @Override
+    public List<EventStatusResult> updateEventStatuses(List<EventStatusRequest> requests) {
+        Objects.requireNonNull(requests, "Requests cannot be null");
+        long start = System.nanoTime();
+        List<EventStatusResult> results = new ArrayList<>(requests.size());
+        int started = 0;
+        int stopped = 0;
+        for (EventStatusRequest request : requests) {
+            if (request == null || request.getEventId() == null || request.getEventId().isBlank()) {
+                results.add(EventStatusResult.rejected(request, "Event ID is required"));
+                continue;
+            }
+            try {
+                if (request.isStatus()) {
+                    trackEvent(request.getEventId(), request.getPriority());
+                    started++;
+                } else {
+                    untrackEvent(request.getEventId());
+                    stopped++;
+                }
+                results.add(EventStatusResult.applied(request));
+            } catch (RuntimeException e) {
+                log.error("Error updating status of event {}: {}", request.getEventId(), e.getMessage());
+                results.add(EventStatusResult.rejected(request, e.getMessage()));
             }
-        });
+        }
+        log.info("Applied {} of {} status changes in {}ms: {} started, {} stopped", started + stopped, requests.size(),
+                (System.nanoTime() - start) / 1_000_000, started, stopped);
+        return results;
+    }
 
-        // stop any existing scheduled task
-        stopScheduledTask(eventId);
+    private void startEventTracking(String eventId, EventPriority priority) {
+        log.info("Starting tracking for event: {}", eventId);
+        trackEvent(eventId, priority);
+        log.info("Successfully scheduled task for event: {}", eventId);
+    }
 
-        // create task scheduler and add current event to it
-        try {
-            log.debug("Scheduling periodic task for event: {}", eventId);
+    /**
+     * Starts polling an event at its phase within the interval, so events started together, one call each or in a
+     * batch, are due in different ticks instead of all at once.
+     * @param priority tier of the event, null keeps the tier of an event already tracked
+     */
+    private void trackEvent(String eventId, EventPriority priority) {
+        long intervalMillis = adaptiveIntervalPolicy.initialIntervalMillis();
+        Duration initialDelay = Duration.ofMillis(Duration.ofSeconds(initialDelaySeconds).toMillis()
+                + PollingPhase.offsetMillis(eventId, intervalMillis));
 
-            ScheduledFuture<?> scheduledTask = taskScheduler.scheduleAtFixedRate(() -> fetchAndPublishEventUpdate(eventId), Instant.now()
-                    .plusSeconds(initialDelaySeconds), Duration.ofSeconds(pollingIntervalSeconds));
+        // Create or Update event status
+        eventStore.start(eventId, intervalMillis, System.currentTimeMillis(), priority);
+        eventIds.add(eventId);
+        journal(eventId);
 
-            log.info("Successfully scheduled task for event: {}", eventId);
-            scheduledTasks.put(eventId, scheduledTask);
+        // add current event to the polling wheel, replacing any existing schedule
+        try {
+            pollingEngine.schedule(eventId, initialDelay, Duration.ofMillis(intervalMillis));
         } catch (Exception e) {
             log.error("Error scheduling task for event {}: {}", eventId, e.getMessage(), e);
             throw new EventSchedulingException("Failed to schedule event tracking", e);
@@ -85,24 +183,55 @@ public class EventServiceImpl implements EventService {
 
     private void stopEventTracking(String eventId) {
         log.info("Stopping tracking for event: {}", eventId);
+        if (untrackEvent(eventId)) {
+            log.info("Cancelled scheduled task for event: {}", eventId);
+        }
+    }
+
+    /**
+     * @return true if the event was scheduled
+     */
+    private boolean untrackEvent(String eventId) {
+        if (eventStore.stop(eventId)) {
+            journal(eventId);
+        }
 
-        events.computeIfPresent(eventId, (key, event) -> {
-            event.setLive(false);
-            return event;
-        });
+        boolean cancelled = pollingEngine.cancel(eventId);
+        publishPolicy.forget(eventId);
+        externalApiClient.forget(eventId);
+        return cancelled;
+    }
 
+    @Override
+    public void releaseEvent(String eventId) {
         stopScheduledTask(eventId);
+        if (eventStore.remove(eventId)) {
+            eventIds.remove(eventId);
+            journal(eventId);
+            log.info("Released event: {}", eventId);
+        }
+        publishPolicy.forget(eventId);
+        externalApiClient.forget(eventId);
     }
 
     /**
-     * Cancels and removes a scheduled task for an event.
+     * Removes an event from the polling wheel.
      */
     private void stopScheduledTask(String eventId) {
-        ScheduledFuture<?> scheduledTask = scheduledTasks.remove(eventId);
-        if (scheduledTask != null) {
-            log.info("Cancelling scheduled task for event: {}", eventId);
-            boolean cancelled = scheduledTask.cancel(false);
-            log.info("Task cancellation result: {}", cancelled);
+        if (pollingEngine.cancel(eventId)) {
+            log.info("Cancelled scheduled task for event: {}", eventId);
+        }
+    }
+
+    /**
+     * Polls a chunk handed out by the dispatcher on a worker thread, a chunk of more than one event is fetched with a
+     * single upstream call.
+     */
+    private void pollChunk(List<String> chunk) {
+        if (chunk.size() == 1) {
+            fetchAndPublishEventUpdate(chunk.get(0));
+        } else {
+            fetchAndPublishEventUpdates(chunk);
         }
     }
 
@@ -111,38 +240,212 @@ public class EventServiceImpl implements EventService {
      * @param eventId current event
      */
     private void fetchAndPublishEventUpdate(String eventId) {
-        Event currentEvent = events.get(eventId);
-        if (currentEvent == null || !currentEvent.isLive()) {
-            log.warn("Attempted to update non-live event: {}", eventId);
-            stopScheduledTask(eventId);
+        if (!isLive(eventId)) {
             return;
         }
 
         try {
             log.debug("Fetching update for event: {}", eventId);
             Event eventUpdate = externalApiClient.fetchEventData(eventId);
-
             if (eventUpdate == null) {
-                log.warn("Received null event data from external API for event: {}", eventId);
-                return;
+                applyNotModified(eventId, null);
+            } else {
+                applyEventUpdate(eventId, eventUpdate, null);
             }
+        } catch (CircuitOpenException e) {
+            log.debug("Skipping poll of event {}: {}", eventId, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error processing update for event {}: {}", eventId, e.getMessage(), e);
+            // Don't rethrow to prevent the scheduler from cancelling future executions
+        }
+    }
 
-            events.computeIfPresent(eventId, (key, existingEvent) -> {
-                existingEvent.setCurrentScore(eventUpdate.getCurrentScore());
-                existingEvent.setLastUpdated(Instant.now());
-                log.info("Updated score for event {}: {}", eventId, eventUpdate.getCurrentScore());
-                return existingEvent;
-            });
+    /**
+     * Fetch the latest scores of a chunk of events with one upstream call, then apply and publish every
+     * result individually so a failure of one event does not affect the others. In envelope mode the updates
+     * of the chunk are published together once all of them are applied.
+     * @param eventIds events due in the same tick
+     */
+    private void fetchAndPublishEventUpdates(List<String> eventIds) {
+        List<String> liveEventIds = eventIds.stream().filter(this::isLive).toList();
+        if (liveEventIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Event> eventUpdates;
+        try {
+            log.debug("Fetching update for {} events", liveEventIds.size());
+            eventUpdates = externalApiClient.fetchEventsData(liveEventIds);
+        } catch (CircuitOpenException e) {
+            log.debug("Skipping poll of {} events: {}", liveEventIds.size(), e.getMessage());
+            return;
+        } catch (Exception e) {
+            log.error("Error fetching update for {} events: {}", liveEventIds.size(), e.getMessage(), e);
+            return;
+        }
+
+        List<Event> pending = envelopePublish ? new ArrayList<>(liveEventIds.size()) : null;
+        for (String eventId : liveEventIds) {
+            try {
+                Event eventUpdate = eventUpdates.get(eventId);
+                if (eventUpdate == null && eventUpdates.containsKey(eventId)) {
+                    applyNotModified(eventId, pending);
+                } else {
+                    applyEventUpdate(eventId, eventUpdate, pending);
+                }
+            } catch (Exception e) {
+                log.error("Error processing update for event {}: {}", eventId, e.getMessage(), e);
+            }
+        }
+        if (pending != null && !pending.isEmpty()) {
+            publishEventUpdates(pending);
+        }
+    }
 
-            messagePublisher.publishEventUpdate(eventUpdate);
+    private boolean isLive(String eventId) {
+        if (!eventStore.isLive(eventId)) {
+            log.warn("Attempted to update non-live event: {}", eventId);
+            stopScheduledTask(eventId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param pending collects the update instead of publishing it when not null
+     */
+    private void applyEventUpdate(String eventId, Event eventUpdate, List<Event> pending) {
+        if (eventUpdate == null) {
+            log.warn("Received null event data from external API for event: {}", eventId);
+            return;
+        }
+
+        long nowMillis = System.currentTimeMillis();
+        long lastUpdatedMillis = eventStore.getLastUpdatedMillis(eventId);
+        EventStore.Update update = eventStore.updateScore(eventId, eventUpdate.getCurrentScore(), nowMillis);
+        if (update != EventStore.Update.ABSENT) {
+            recordStaleness(eventId, lastUpdatedMillis, nowMillis);
+            adaptPollingInterval(eventId, update == EventStore.Update.CHANGED);
+            log.info("Updated score for event {}: {}", eventId, eventUpdate.getCurrentScore());
+        }
+        // an unchanged score only moved the last updated time, which is not worth a record per poll
+        if (update == EventStore.Update.CHANGED) {
+            journal(eventId);
+        }
+
+        publishEventUpdate(eventId, eventUpdate, pending);
+    }
+
+    /**
+     * The upstream answered 304, so the score is unchanged and there is nothing to parse.
+     * The interval backs off as for any unchanged score and only a due heartbeat is published.
+     */
+    private void applyNotModified(String eventId, List<Event> pending) {
+        long nowMillis = System.currentTimeMillis();
+        long lastUpdatedMillis = eventStore.getLastUpdatedMillis(eventId);
+        if (!eventStore.touch(eventId, nowMillis)) {
+            return;
+        }
+        recordStaleness(eventId, lastUpdatedMillis, nowMillis);
+        adaptPollingInterval(eventId, false);
+        String currentScore = eventStore.getCurrentScore(eventId);
+        if (currentScore == null) {
+            return;
+        }
+        log.debug("Score of event {} not modified", eventId);
+
+        publishEventUpdate(eventId, Event.builder().eventId(eventId).live(true).currentScore(currentScore).build(), pending);
+    }
+
+    private void publishEventUpdate(String eventId, Event eventUpdate, List<Event> pending) {
+        if (!publishPolicy.shouldPublish(eventUpdate)) {
+            log.debug("Unchanged update for event {}, not publishing", eventId);
+            return;
+        }
+
+        // subscribers get the update before the kafka publish, their buffers never block
+        eventUpdateBroadcaster.broadcast(eventUpdate);
+        if (pending != null) {
+            pending.add(eventUpdate);
+            return;
+        }
+
+        // a failed publish resets the fingerprint so the next poll publishes again even if nothing changed
+        if (asyncPublish) {
+            messagePublisher.publishEventUpdateAsync(eventUpdate).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    publishPolicy.forget(eventId);
+                    log.error("Error publishing update for event {}: {}", eventId, ex.getMessage());
+                } else {
+                    log.debug("Published update for event {}", eventId);
+                }
+            });
+        } else {
+            try {
+                messagePublisher.publishEventUpdate(eventUpdate);
+            } catch (RuntimeException e) {
+                publishPolicy.forget(eventId);
+                throw e;
+            }
             log.debug("Published update for event {}", eventId);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing update for event {}: {}", eventId, e.getMessage(), e);
-            // Don't rethrow to prevent the scheduler from cancelling future executions
+    /**
+     * Publishes the updates of a chunk as envelopes. Without async publishing the poll waits for them like it waits
+     * for a single publish.
+     */
+    private void publishEventUpdates(List<Event> eventUpdates) {
+        List<CompletableFuture<Void>> published = messagePublisher.publishEventUpdatesAsync(eventUpdates);
+        for (int i = 0; i < eventUpdates.size(); i++) {
+            String eventId = eventUpdates.get(i).getEventId();
+            CompletableFuture<Void> future = published.get(i).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    publishPolicy.forget(eventId);
+                    log.error("Error publishing update for event {}: {}", eventId, ex.getMessage());
+                }
+            });
+            if (!asyncPublish) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    // logged and forgotten above, the other updates of the chunk still count
+                }
+            }
+        }
+        log.debug("Published {} updates", eventUpdates.size());
+    }
+
+    /**
+     * Backs the polling interval off while the score stays the same and tightens it when it changes.
+     */
+    private void adaptPollingInterval(String eventId, boolean changed) {
+        long storedMillis = eventStore.getPollingIntervalMillis(eventId);
+        long currentMillis = storedMillis == 0 ? adaptiveIntervalPolicy.initialIntervalMillis() : storedMillis;
+        long nextMillis = adaptiveIntervalPolicy.nextIntervalMillis(currentMillis, changed);
+        if (nextMillis != currentMillis && pollingEngine.updateInterval(eventId, Duration.ofMillis(nextMillis))) {
+            eventStore.setPollingIntervalMillis(eventId, nextMillis);
+            log.debug("Polling interval for event {} changed from {}ms to {}ms", eventId, currentMillis, nextMillis);
         }
     }
 
+    /**
+     * Records how old the state of an event was when a poll refreshed it, the gap between two successful polls.
+     */
+    private void recordStaleness(String eventId, long lastUpdatedMillis, long nowMillis) {
+        if (lastUpdatedMillis >= 0) {
+            eventMetrics.recordStaleness(eventStore.getPriority(eventId), nowMillis - lastUpdatedMillis);
+        }
+    }
+
+    /**
+     * Journals the current state of an event, or its removal once it is gone from the store. The journal reads the
+     * state in the order of the records of the event, so a poll journaling after a concurrent stop records the stop.
+     */
+    private void journal(String eventId) {
+        eventJournal.record(eventId, eventStore::get);
+    }
+
     public static class EventSchedulingException extends RuntimeException {
         public EventSchedulingException(String message, Throwable cause) {
             super(message, cause);
@@ -155,6 +458,38 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public Map<String, Event> getAllEvents() {
-        return Collections.unmodifiableMap(events);
+        return eventStore.asMap();
+    }
+
+    @Override
+    public EventPage getEvents(EventFilter filter, String afterEventId, int limit) {
+        NavigableSet<String> ids = afterEventId == null ? eventIds : eventIds.tailSet(afterEventId, false);
+        List<Event> page = new ArrayList<>(Math.min(limit, 1024));
+        for (String eventId : ids) {
+            Event event = eventStore.get(eventId);
+            if (event == null || !filter.matches(event)) {
+                continue;
+            }
+            if (page.size() == limit) {
+                // a further match exists, the next page starts after the last event of this one
+                return new EventPage(page, page.get(page.size() - 1).getEventId());
+            }
+            page.add(event);
+        }
+        return new EventPage(page, null);
+    }
+
+    @Override
+    public void forEachEvent(EventFilter filter, Consumer<Event> action) {
+        for (Event event : eventStore.asMap().values()) {
+            if (filter.matches(event)) {
+                action.accept(event);
+            }
+        }
+    }
+
+    @Override
+    public EventDelta getChangedEvents(long sinceVersion) {
+        return eventStore.changedSince(sinceVersion);
     }
 }
\ No newline at end of file
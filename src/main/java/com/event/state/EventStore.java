@@ -0,0 +1,105 @@
+package com.event.state;
+
+import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventPriority;
+
+import java.util.Map;
+
+/**
+ * State of the tracked events. The operations of the polling path take and return primitives and the strings the
+ * caller already holds, so an implementation can keep the state without an object per event or per update.
+ * <p>
+ * Every change a client sees, a start, a stop, a changed score or tier, a restore or a removal, stamps the event with the next
+ * version of the store. A poll that only refreshes the last updated time or the polling interval keeps the version,
+ * so a delta grows with the score changes and not with the polls.
+ */
+public interface EventStore {
+
+    /**
+     * Marks an event as live, creating it if it is not tracked yet, as one change.
+     * @param eventId event to start
+     * @param intervalMillis polling interval to start at
+     * @param nowMillis last updated time of a new event
+     * @param priority tier of the event, null keeps the tier of an event already tracked
+     */
+    void start(String eventId, long intervalMillis, long nowMillis, EventPriority priority);
+
+    /**
+     * Marks an event as not live.
+     * @return false if the event is not tracked
+     */
+    boolean stop(String eventId);
+
+    /**
+     * Restores an event recovered on startup, replacing any state of the same id.
+     */
+    void put(Event event);
+
+    /**
+     * Drops an event.
+     * @return false if the event is not tracked
+     */
+    boolean remove(String eventId);
+
+    boolean isLive(String eventId);
+
+    /**
+     * Records a polled score.
+     * @param nowMillis time of the poll
+     * @return whether the score changed, or {@link Update#ABSENT} if the event is not tracked
+     */
+    Update updateScore(String eventId, String score, long nowMillis);
+
+    /**
+     * Records a poll that found the score unchanged.
+     * @return false if the event is not tracked
+     */
+    boolean touch(String eventId, long nowMillis);
+
+    /**
+     * @return the current score, null if there is none or the event is not tracked
+     */
+    String getCurrentScore(String eventId);
+
+    /**
+     * @return epoch millis of the last update, -1 if it is not set or the event is not tracked
+     */
+    long getLastUpdatedMillis(String eventId);
+
+    /**
+     * @return the polling interval, 0 if it is not set or the event is not tracked
+     */
+    long getPollingIntervalMillis(String eventId);
+
+    void setPollingIntervalMillis(String eventId, long intervalMillis);
+
+    /**
+     * @return the tier of the event, {@link EventPriority#NORMAL} if it is not set or the event is not tracked
+     */
+    EventPriority getPriority(String eventId);
+
+    /**
+     * @return the event, null if it is not tracked. Depending on the store it is the stored object or a copy
+     */
+    Event get(String eventId);
+
+    int size();
+
+    /**
+     * @return read-only view of every tracked event by id
+     */
+    Map<String, Event> asMap();
+
+    /**
+     * @param sinceVersion version of the last delta a client applied, 0 for the full state
+     * @return the events changed and removed after the version, every event when that cannot be told
+     */
+    EventDelta changedSince(long sinceVersion);
+
+    enum Update {
+        ABSENT,
+        UNCHANGED,
+        CHANGED
+    }
+}
@@ -0,0 +1,171 @@
+package com.event.state;
+
+import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventPriority;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link Event} per tracked event in a concurrent map. Events are immutable, every update stores a copy, so a
+ * reader never sees the score of one poll with the time of another and the stored instances can be handed out.
+ */
+@Component
+@ConditionalOnProperty(name = "event.state.store", havingValue = "map", matchIfMissing = true)
+public class MapEventStore implements EventStore {
+
+    private final Map<String, Event> events = new ConcurrentHashMap<>();
+    private final VersionLog versions = new VersionLog();
+
+    @Override
+    public void start(String eventId, long intervalMillis, long nowMillis, EventPriority priority) {
+        long stamp = versions.beginWrite();
+        try {
+            events.compute(eventId, (key, existingEvent) -> {
+                Event.EventBuilder next = existingEvent == null
+                        ? Event.builder().eventId(key).lastUpdated(Instant.ofEpochMilli(nowMillis))
+                        : existingEvent.toBuilder();
+                if (priority != null) {
+                    next.priority(priority);
+                }
+                return changed(key, next.live(true).pollingIntervalMillis(intervalMillis));
+            });
+        } finally {
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean stop(String eventId) {
+        long stamp = versions.beginWrite();
+        try {
+            return events.computeIfPresent(eventId, (key, event) ->
+                    event.isLive() ? changed(key, event.toBuilder().live(false)) : event) != null;
+        } finally {
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public void put(Event event) {
+        long stamp = versions.beginWrite();
+        try {
+            events.compute(event.getEventId(), (key, existingEvent) -> changed(key, event.toBuilder()));
+        } finally {
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(String eventId) {
+        boolean[] removed = {false};
+        long stamp = versions.beginWrite();
+        try {
+            events.computeIfPresent(eventId, (key, event) -> {
+                versions.removed(key);
+                removed[0] = true;
+                return null;
+            });
+        } finally {
+            versions.endWrite(stamp);
+        }
+        return removed[0];
+    }
+
+    @Override
+    public boolean isLive(String eventId) {
+        Event event = events.get(eventId);
+        return event != null && event.isLive();
+    }
+
+    @Override
+    public Update updateScore(String eventId, String score, long nowMillis) {
+        Update[] update = {Update.ABSENT};
+        long stamp = versions.beginWrite();
+        try {
+            events.computeIfPresent(eventId, (key, event) -> {
+                Event.EventBuilder next = event.toBuilder().lastUpdated(Instant.ofEpochMilli(nowMillis));
+                if (Objects.equals(event.getCurrentScore(), score)) {
+                    update[0] = Update.UNCHANGED;
+                    return next.build();
+                }
+                update[0] = Update.CHANGED;
+                return changed(key, next.currentScore(score));
+            });
+        } finally {
+            versions.endWrite(stamp);
+        }
+        return update[0];
+    }
+
+    @Override
+    public boolean touch(String eventId, long nowMillis) {
+        return events.computeIfPresent(eventId, (key, event) ->
+                event.toBuilder().lastUpdated(Instant.ofEpochMilli(nowMillis)).build()) != null;
+    }
+
+    @Override
+    public String getCurrentScore(String eventId) {
+        Event event = events.get(eventId);
+        return event == null ? null : event.getCurrentScore();
+    }
+
+    @Override
+    public long getLastUpdatedMillis(String eventId) {
+        Event event = events.get(eventId);
+        return event == null || event.getLastUpdated() == null ? -1 : event.getLastUpdated().toEpochMilli();
+    }
+
+    @Override
+    public long getPollingIntervalMillis(String eventId) {
+        Event event = events.get(eventId);
+        return event == null || event.getPollingIntervalMillis() == null ? 0 : event.getPollingIntervalMillis();
+    }
+
+    @Override
+    public void setPollingIntervalMillis(String eventId, long intervalMillis) {
+        events.computeIfPresent(eventId, (key, event) -> event.toBuilder().pollingIntervalMillis(intervalMillis).build());
+    }
+
+    @Override
+    public EventPriority getPriority(String eventId) {
+        Event event = events.get(eventId);
+        return event == null || event.getPriority() == null ? EventPriority.NORMAL : event.getPriority();
+    }
+
+    /**
+     * @return the stored event, immutable like every {@link Event}
+     */
+    @Override
+    public Event get(String eventId) {
+        return events.get(eventId);
+    }
+
+    @Override
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public Map<String, Event> asMap() {
+        return Collections.unmodifiableMap(events);
+    }
+
+    @Override
+    public EventDelta changedSince(long sinceVersion) {
+        return versions.changedSince(sinceVersion, events::get, events::values);
+    }
+
+    /**
+     * Stamps the next version, within the compute of the event so its changes are logged in order.
+     */
+    private Event changed(String eventId, Event.EventBuilder next) {
+        return next.version(versions.changed(eventId)).build();
+    }
+}
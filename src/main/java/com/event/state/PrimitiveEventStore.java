@@ -0,0 +1,549 @@
+package com.event.state;
+
+import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventPriority;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Struct-of-arrays store: every tracked event is a slot index into pages of parallel arrays holding its id, score,
+ * last updated epoch millis, polling interval, version, tier and a live bit. Pages are allocated once and never move, so after an
+ * event is added the polling path reads and writes primitives and string references only, without allocating.
+ * <p>
+ * A slot is written under the lock of its stripe, the 64 slots sharing a live bitset word share a stripe. A removed
+ * slot is reused, every access checks the id of the slot so a stale index of a removed event never touches the event
+ * that took the slot over. Reads that return an {@link Event} build a copy.
+ */
+@Component
+@ConditionalOnProperty(name = "event.state.store", havingValue = "primitive")
+public class PrimitiveEventStore implements EventStore {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int STRIPES = 256;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final EventPriority[] PRIORITIES = EventPriority.values();
+
+    // slot of every tracked event, the boxed index is allocated once when the event is added
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final VersionLog versions = new VersionLog();
+
+    // guards page allocation and the free list
+    private final ReentrantLock allocationLock = new ReentrantLock();
+    private volatile Page[] pages = new Page[0];
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int nextSlot;
+
+    public PrimitiveEventStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    private static final class Page {
+        private final String[] eventIds = new String[PAGE_SIZE];
+        private final String[] scores = new String[PAGE_SIZE];
+        private final long[] lastUpdatedMillis = new long[PAGE_SIZE];
+        private final long[] intervalMillis = new long[PAGE_SIZE];
+        private final long[] versions = new long[PAGE_SIZE];
+        // ordinal + 1 of the tier, 0 when it is not set
+        private final byte[] priorities = new byte[PAGE_SIZE];
+        private final long[] liveBits = new long[PAGE_SIZE >>> 6];
+    }
+
+    @Override
+    public void start(String eventId, long intervalMillis, long nowMillis, EventPriority priority) {
+        long stamp = versions.beginWrite();
+        try {
+            startSlot(eventId, intervalMillis, nowMillis, priority);
+        } finally {
+            versions.endWrite(stamp);
+        }
+    }
+
+    /**
+     * Starts an event and stamps its version, between {@link VersionLog#beginWrite()} and its end.
+     */
+    private void startSlot(String eventId, long intervalMillis, long nowMillis, EventPriority priority) {
+        while (true) {
+            int slot = slots.computeIfAbsent(eventId, this::allocate);
+            Page page = page(slot);
+            int offset = slot & PAGE_MASK;
+            ReentrantLock lock = stripe(slot);
+            lock.lock();
+            try {
+                if (page.eventIds[offset] == null) {
+                    // a new slot, or a removed one not yet back on the free list
+                    Integer current = slots.get(eventId);
+                    if (current == null || current != slot) {
+                        continue;
+                    }
+                    page.eventIds[offset] = eventId;
+                    page.scores[offset] = null;
+                    page.priorities[offset] = 0;
+                    page.lastUpdatedMillis[offset] = nowMillis;
+                } else if (!eventId.equals(page.eventIds[offset])) {
+                    continue;
+                }
+                page.intervalMillis[offset] = intervalMillis;
+                if (priority != null) {
+                    page.priorities[offset] = encode(priority);
+                }
+                setLive(page, offset, true);
+                page.versions[offset] = versions.changed(eventId);
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean stop(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return false;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        long stamp = versions.beginWrite();
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!eventId.equals(page.eventIds[offset])) {
+                return false;
+            }
+            if (isLive(page, offset)) {
+                setLive(page, offset, false);
+                page.versions[offset] = versions.changed(eventId);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public void put(Event event) {
+        String eventId = event.getEventId();
+        long stamp = versions.beginWrite();
+        try {
+            startSlot(eventId, 0, NO_TIME, null);
+            int slot = slots.get(eventId);
+            Page page = page(slot);
+            int offset = slot & PAGE_MASK;
+            ReentrantLock lock = stripe(slot);
+            lock.lock();
+            try {
+                page.scores[offset] = event.getCurrentScore();
+                page.lastUpdatedMillis[offset] = event.getLastUpdated() == null ? NO_TIME : event.getLastUpdated().toEpochMilli();
+                page.intervalMillis[offset] = event.getPollingIntervalMillis() == null ? 0 : event.getPollingIntervalMillis();
+                setLive(page, offset, event.isLive());
+                page.priorities[offset] = encode(event.getPriority());
+                page.versions[offset] = versions.changed(eventId);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(String eventId) {
+        long stamp = versions.beginWrite();
+        Integer slot;
+        try {
+            slot = slots.remove(eventId);
+            if (slot == null) {
+                return false;
+            }
+            Page page = page(slot);
+            int offset = slot & PAGE_MASK;
+            ReentrantLock lock = stripe(slot);
+            lock.lock();
+            try {
+                page.eventIds[offset] = null;
+                page.scores[offset] = null;
+                setLive(page, offset, false);
+                versions.removed(eventId);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            versions.endWrite(stamp);
+        }
+        release(slot);
+        return true;
+    }
+
+    @Override
+    public boolean isLive(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return false;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            return eventId.equals(page.eventIds[offset]) && isLive(page, offset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Update updateScore(String eventId, String score, long nowMillis) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return Update.ABSENT;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        long stamp = versions.beginWrite();
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!eventId.equals(page.eventIds[offset])) {
+                return Update.ABSENT;
+            }
+            page.lastUpdatedMillis[offset] = nowMillis;
+            if (Objects.equals(page.scores[offset], score)) {
+                return Update.UNCHANGED;
+            }
+            page.scores[offset] = score;
+            page.versions[offset] = versions.changed(eventId);
+            return Update.CHANGED;
+        } finally {
+            lock.unlock();
+            versions.endWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean touch(String eventId, long nowMillis) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return false;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!eventId.equals(page.eventIds[offset])) {
+                return false;
+            }
+            page.lastUpdatedMillis[offset] = nowMillis;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getCurrentScore(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return null;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            return eventId.equals(page.eventIds[offset]) ? page.scores[offset] : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getLastUpdatedMillis(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return -1;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            long lastUpdated = page.lastUpdatedMillis[offset];
+            return eventId.equals(page.eventIds[offset]) && lastUpdated != NO_TIME ? lastUpdated : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getPollingIntervalMillis(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return 0;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            return eventId.equals(page.eventIds[offset]) ? page.intervalMillis[offset] : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setPollingIntervalMillis(String eventId, long intervalMillis) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (eventId.equals(page.eventIds[offset])) {
+                page.intervalMillis[offset] = intervalMillis;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public EventPriority getPriority(String eventId) {
+        Integer slot = slots.get(eventId);
+        if (slot == null) {
+            return EventPriority.NORMAL;
+        }
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            EventPriority priority = eventId.equals(page.eventIds[offset]) ? decode(page.priorities[offset]) : null;
+            return priority == null ? EventPriority.NORMAL : priority;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Event get(String eventId) {
+        Integer slot = slots.get(eventId);
+        return slot == null ? null : copy(slot, eventId);
+    }
+
+    @Override
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public Map<String, Event> asMap() {
+        return view;
+    }
+
+    @Override
+    public EventDelta changedSince(long sinceVersion) {
+        return versions.changedSince(sinceVersion, this::get, view::values);
+    }
+
+    private final Map<String, Event> view = new AbstractMap<>() {
+
+        @Override
+        public Event get(Object key) {
+            return key instanceof String eventId ? PrimitiveEventStore.this.get(eventId) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return slots.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return slots.size();
+        }
+
+        @Override
+        public Collection<Event> values() {
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<Event> iterator() {
+                    return new EventIterator();
+                }
+
+                @Override
+                public int size() {
+                    return slots.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Entry<String, Event>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Event>> iterator() {
+                    EventIterator events = new EventIterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return events.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Event> next() {
+                            Event event = events.next();
+                            return Map.entry(event.getEventId(), event);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return slots.size();
+                }
+            };
+        }
+    };
+
+    /**
+     * Walks the slots in order, weakly consistent like the iterators of the concurrent collections.
+     */
+    private final class EventIterator implements Iterator<Event> {
+
+        private final Page[] snapshot = pages;
+        private int slot;
+        private Event next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && slot < snapshot.length * PAGE_SIZE) {
+                String eventId = snapshot[slot >>> PAGE_BITS].eventIds[slot & PAGE_MASK];
+                if (eventId != null) {
+                    next = copy(slot, eventId);
+                }
+                slot++;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Event next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Event event = next;
+            next = null;
+            return event;
+        }
+    }
+
+    private Event copy(int slot, String eventId) {
+        Page page = page(slot);
+        int offset = slot & PAGE_MASK;
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!eventId.equals(page.eventIds[offset])) {
+                return null;
+            }
+            long lastUpdated = page.lastUpdatedMillis[offset];
+            long interval = page.intervalMillis[offset];
+            return Event.builder()
+                    .eventId(page.eventIds[offset])
+                    .live(isLive(page, offset))
+                    .currentScore(page.scores[offset])
+                    .lastUpdated(lastUpdated == NO_TIME ? null : Instant.ofEpochMilli(lastUpdated))
+                    .pollingIntervalMillis(interval == 0 ? null : interval)
+                    .version(page.versions[offset])
+                    .priority(decode(page.priorities[offset]))
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Integer allocate(String eventId) {
+        allocationLock.lock();
+        try {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            int slot = nextSlot++;
+            if ((slot >>> PAGE_BITS) == pages.length) {
+                Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+                grown[pages.length] = new Page();
+                pages = grown;
+            }
+            return slot;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    private void release(int slot) {
+        allocationLock.lock();
+        try {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    private Page page(int slot) {
+        return pages[slot >>> PAGE_BITS];
+    }
+
+    private ReentrantLock stripe(int slot) {
+        return stripes[(slot >>> 6) & (STRIPES - 1)];
+    }
+
+    private static byte encode(EventPriority priority) {
+        return priority == null ? 0 : (byte) (priority.ordinal() + 1);
+    }
+
+    private static EventPriority decode(byte priority) {
+        return priority == 0 ? null : PRIORITIES[priority - 1];
+    }
+
+    private static boolean isLive(Page page, int offset) {
+        return (page.liveBits[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    private static void setLive(Page page, int offset, boolean live) {
+        if (live) {
+            page.liveBits[offset >>> 6] |= 1L << offset;
+        } else {
+            page.liveBits[offset >>> 6] &= ~(1L << offset);
+        }
+    }
+}
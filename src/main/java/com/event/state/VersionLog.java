@@ -0,0 +1,130 @@
+package com.event.state;
+
+import com.event.model.Event;
+import com.event.model.EventDelta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Version clock of a store and the index of its changes: a ring of the last {@value #CAPACITY} versions, each
+ * entry holding the id of the event changed or removed at that version. Recording a change writes two array
+ * entries and allocates nothing, a delta reads the entries after the client's version, so its cost follows the
+ * number of changes and not the number of events.
+ * <p>
+ * A writer stamps a version and makes the change visible between {@link #beginWrite()} and {@link #endWrite(long)},
+ * which only share a lock with each other. The watermark of a delta is read under the exclusive lock, so every
+ * change stamped at or below it is visible by then and a client that continues from it misses none. Versions start
+ * at the creation time in micros, a restarted instance continues above the versions of the previous one unless that
+ * one changed more than a million events a second on average.
+ */
+final class VersionLog {
+
+    static final int CAPACITY = 1 << 18;
+    private static final int MASK = CAPACITY - 1;
+    private static final Comparator<Event> BY_VERSION = Comparator.comparingLong(Event::getVersion);
+
+    private final StampedLock lock = new StampedLock();
+    private final long start;
+    private final AtomicLong clock;
+    // version of the entry, negated for a removal, 0 while it is written
+    private final AtomicLongArray versions = new AtomicLongArray(CAPACITY);
+    private final AtomicReferenceArray<String> eventIds = new AtomicReferenceArray<>(CAPACITY);
+
+    VersionLog() {
+        start = System.currentTimeMillis() * 1000;
+        clock = new AtomicLong(start);
+    }
+
+    long beginWrite() {
+        return lock.readLock();
+    }
+
+    void endWrite(long stamp) {
+        lock.unlockRead(stamp);
+    }
+
+    /**
+     * Records a change of an event, only between {@link #beginWrite()} and {@link #endWrite(long)}.
+     * @return the version of the change
+     */
+    long changed(String eventId) {
+        return record(eventId, false);
+    }
+
+    /**
+     * Records the removal of an event, only between {@link #beginWrite()} and {@link #endWrite(long)}.
+     */
+    void removed(String eventId) {
+        record(eventId, true);
+    }
+
+    private long record(String eventId, boolean removal) {
+        long version = clock.incrementAndGet();
+        int entry = (int) (version & MASK);
+        versions.set(entry, 0);
+        eventIds.set(entry, eventId);
+        versions.set(entry, removal ? -version : version);
+        return version;
+    }
+
+    /**
+     * @param lookup current state of a tracked event, null if it was removed since
+     * @param all every tracked event, for a client whose version is not in the ring: older than its oldest entry,
+     * or newer than any version of this store, e.g. handed out before a restart
+     * @return the events changed and removed after a version
+     */
+    EventDelta changedSince(long sinceVersion, Function<String, Event> lookup, Supplier<? extends Collection<Event>> all) {
+        long watermark = watermark();
+        if (sinceVersion < start || sinceVersion > watermark || watermark - sinceVersion > CAPACITY) {
+            return fullState(watermark, all);
+        }
+        Set<String> changed = new LinkedHashSet<>();
+        Set<String> removed = new LinkedHashSet<>();
+        for (long version = sinceVersion + 1; version <= watermark; version++) {
+            int entry = (int) (version & MASK);
+            long tag = versions.get(entry);
+            String eventId = eventIds.get(entry);
+            if (Math.abs(tag) != version || versions.get(entry) != tag) {
+                // a lap of newer changes overwrote the entry while it was read
+                return fullState(watermark, all);
+            }
+            (tag < 0 ? removed : changed).add(eventId);
+        }
+        List<Event> events = new ArrayList<>(changed.size());
+        for (String eventId : changed) {
+            // an event changed again after the watermark is taken with its newer state
+            Event event = lookup.apply(eventId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        events.sort(BY_VERSION);
+        return new EventDelta(watermark, false, events, List.copyOf(removed));
+    }
+
+    private long watermark() {
+        long stamp = lock.writeLock();
+        try {
+            return clock.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static EventDelta fullState(long watermark, Supplier<? extends Collection<Event>> all) {
+        List<Event> events = new ArrayList<>(all.get());
+        events.sort(BY_VERSION);
+        return new EventDelta(watermark, true, events, List.of());
+    }
+}
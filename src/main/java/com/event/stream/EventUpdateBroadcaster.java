@@ -0,0 +1,251 @@
+package com.event.stream;
+
+import com.event.model.Event;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans the published event updates out to Server-Sent Events subscribers.
+ * <p>
+ * Every subscriber has a bounded buffer that keeps only the latest pending update of each event, so a burst of
+ * updates to one event is conflated into one message. When a subscriber falls behind on more events than the buffer
+ * holds, the oldest pending update is dropped. Broadcasting is an insert into these buffers and never waits on a
+ * client: the buffer of a subscriber is drained by a virtual thread that only exists while there is something to send.
+ * Everything pending when a drain starts goes out as one message holding a JSON array of updates, so a subscriber
+ * costs one write and flush per drain however many events changed.
+ */
+@Component
+@Slf4j
+public class EventUpdateBroadcaster {
+
+    public static final String UPDATES_EVENT_NAME = "event-updates";
+
+    private final int bufferCapacity;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-stream-", 0).factory());
+
+    // subscribers of every event, and subscribers of some events by event id
+    private final Set<Subscriber> allEventsSubscribers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscriber>> subscribersByEventId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final LongAdder broadcast = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param bufferCapacity events with a pending update a subscriber can fall behind on before updates are dropped
+     * @param maxSubscribers concurrent subscribers, further subscriptions are refused
+     * @param timeoutMillis lifetime of a subscription, clients reconnect after it, 0 never times out
+     */
+    public EventUpdateBroadcaster(@Value("${event.stream.buffer-capacity:256}") int bufferCapacity,
+                                  @Value("${event.stream.max-subscribers:10000}") int maxSubscribers,
+                                  @Value("${event.stream.timeout-millis:1800000}") long timeoutMillis) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity must be positive: " + bufferCapacity);
+        }
+        this.bufferCapacity = bufferCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Subscribes to the updates of some or all events.
+     * @param eventIds events to receive the updates of, null or empty for every event
+     * @return emitter of the subscription
+     * @throws TooManySubscribersException when the node already has the maximum number of subscribers
+     */
+    public SseEmitter subscribe(Set<String> eventIds) {
+        return subscribe(eventIds, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Set<String> eventIds, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManySubscribersException("Subscriber limit reached: " + maxSubscribers);
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, eventIds == null ? Set.of() : Set.copyOf(eventIds));
+        emitter.onCompletion(subscriber::unsubscribe);
+        emitter.onTimeout(subscriber::unsubscribe);
+        emitter.onError(e -> subscriber.unsubscribe());
+
+        if (subscriber.eventIds.isEmpty()) {
+            allEventsSubscribers.add(subscriber);
+        } else {
+            // added inside compute, an unsubscribe of the last subscriber of the event cannot remove the set meanwhile
+            subscriber.eventIds.forEach(eventId -> subscribersByEventId.compute(eventId, (key, subscribers) -> {
+                Set<Subscriber> eventSubscribers = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                eventSubscribers.add(subscriber);
+                return eventSubscribers;
+            }));
+        }
+        log.debug("New event stream subscriber for {}", subscriber.eventIds.isEmpty() ? "all events" : subscriber.eventIds);
+        return emitter;
+    }
+
+    /**
+     * Queues an update for every subscriber of its event, returns without waiting for any of them.
+     */
+    public void broadcast(Event update) {
+        broadcast.increment();
+        for (Subscriber subscriber : allEventsSubscribers) {
+            subscriber.offer(update);
+        }
+        Set<Subscriber> subscribers = subscribersByEventId.get(update.getEventId());
+        if (subscribers != null) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(update);
+            }
+        }
+    }
+
+    /**
+     * @return current subscriber count, and updates broadcast, sent, conflated and dropped since startup
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("subscribers", subscriberCount.get());
+        status.put("maxSubscribers", maxSubscribers);
+        status.put("broadcast", broadcast.sum());
+        status.put("sent", sent.sum());
+        status.put("conflated", conflated.sum());
+        status.put("dropped", dropped.sum());
+        return status;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        allEventsSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribersByEventId.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> eventIds;
+
+        // not a monitor, offering threads must not pin their carriers
+        private final ReentrantLock lock = new ReentrantLock();
+        // guarded by lock, latest pending update by event id in arrival order
+        private final LinkedHashMap<String, Event> pending = new LinkedHashMap<>();
+        private boolean sending;
+        private boolean closed;
+
+        private Subscriber(SseEmitter emitter, Set<String> eventIds) {
+            this.emitter = emitter;
+            this.eventIds = eventIds;
+        }
+
+        private void offer(Event update) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (pending.put(update.getEventId(), update) != null) {
+                    conflated.increment();
+                } else if (pending.size() > bufferCapacity) {
+                    Iterator<Event> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.increment();
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RuntimeException e) {
+                // shutting down
+                unsubscribe();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<Event> updates;
+                lock.lock();
+                try {
+                    if (pending.isEmpty() || closed) {
+                        sending = false;
+                        return;
+                    }
+                    updates = new ArrayList<>(pending.values());
+                    pending.clear();
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    emitter.send(SseEmitter.event().name(UPDATES_EVENT_NAME).data(updates, MediaType.APPLICATION_JSON));
+                    sent.add(updates.size());
+                } catch (IOException | IllegalStateException e) {
+                    // the container completes the request of a failed send, completeWithError is not needed
+                    log.debug("Event stream subscriber gone: {}", e.getMessage());
+                    unsubscribe();
+                    return;
+                }
+            }
+        }
+
+        private void unsubscribe() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+            if (eventIds.isEmpty()) {
+                allEventsSubscribers.remove(this);
+            } else {
+                eventIds.forEach(eventId -> subscribersByEventId.computeIfPresent(eventId, (key, subscribers) -> {
+                    subscribers.remove(this);
+                    return subscribers.isEmpty() ? null : subscribers;
+                }));
+            }
+            subscriberCount.decrementAndGet();
+            log.debug("Event stream subscriber removed");
+        }
+    }
+
+    public static class TooManySubscribersException extends RuntimeException {
+        public TooManySubscribersException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.event;
 
+import com.event.controller.EventController;
 import com.event.model.Event;
 import com.event.model.EventStatusRequest;
 import com.event.service.EventService;
@@ -14,9 +15,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
@@ -28,6 +33,7 @@ import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -37,17 +43,23 @@ import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 @EmbeddedKafka(partitions = 1, topics = {"live-sports-events"})
 @ActiveProfiles("test")
 public class EventMonitoringIntegrationTest {
@@ -67,6 +79,9 @@ public class EventMonitoringIntegrationTest {
 	@Autowired
 	private EmbeddedKafkaBroker embeddedKafkaBroker;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
 	@Value("${kafka.topic.events}")
 	private String topicName;
 
@@ -151,6 +166,9 @@ public class EventMonitoringIntegrationTest {
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.status").value("UP"))
 				.andExpect(jsonPath("$.kafka").value("UP"))
+				.andExpect(jsonPath("$.readiness").value("ACCEPTING_TRAFFIC"))
+				.andExpect(jsonPath("$.scheduler.queued").isNumber())
+				.andExpect(jsonPath("$.producer.bufferUsage").isNumber())
 				.andReturn().getResponse().getContentAsString();
 
 		System.out.println("Kafka Health Response: " + healthResponse);
@@ -176,7 +194,15 @@ public class EventMonitoringIntegrationTest {
 				.andDo(print())
 				.andExpect(status().isOk())
 				.andExpect(jsonPath("$.eventId").value(eventId))
-				.andExpect(jsonPath("$.currentScore").exists());
+				.andExpect(jsonPath("$.currentScore").exists())
+				.andExpect(header().exists("ETag"));
+
+		mockMvc.perform(get("/mock-api/events").param("ids", eventId + ",other-event"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].eventId").value(eventId))
+				.andExpect(jsonPath("$[1].eventId").value("other-event"))
+				.andExpect(jsonPath("$[1].currentScore").exists());
 
 		// Test #4: Wait for Event Updates in Kafka
 		System.out.println("\n----- Waiting for Event Updates in Kafka -----");
@@ -206,6 +232,86 @@ public class EventMonitoringIntegrationTest {
 
 		System.out.println("All Events Response: " + allEventsResponse);
 
+		mockMvc.perform(get("/events").param("limit", "1").param("live", "true"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.events.length()").value(1))
+				.andExpect(jsonPath("$.events[0].live").value(true));
+
+		mockMvc.perform(get("/events").param("limit", "0"))
+				.andExpect(status().isBadRequest());
+
+		MvcResult streamResult = mockMvc.perform(get("/events").accept(EventController.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String ndjson = mockMvc.perform(asyncDispatch(streamResult))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(EventController.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString();
+		assertThat(ndjson.lines().map(line -> {
+			try {
+				return objectMapper.readValue(line, Event.class).getEventId();
+			} catch (Exception e) {
+				throw new AssertionError(line, e);
+			}
+		})).contains(eventId);
+
+		String fullDelta = mockMvc.perform(get("/events").param("sinceVersion", "0"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.full").value(true))
+				.andExpect(jsonPath("$.events[?(@.eventId == '" + eventId + "')].live").value(true))
+				.andReturn().getResponse().getContentAsString();
+		long deltaVersion = objectMapper.readTree(fullDelta).get("version").asLong();
+
+		mockMvc.perform(get("/events").param("sinceVersion", "-1"))
+				.andExpect(status().isBadRequest());
+
+		// Test #5b: Bulk status changes
+		System.out.println("\n----- Testing Bulk Status Changes -----");
+		mockMvc.perform(post("/events/status/batch")
+								.contentType(MediaType.APPLICATION_JSON)
+								.content("[{\"eventId\":\"bulk-1\",\"status\":true},{\"eventId\":\" \",\"status\":true},"
+										+ "{\"eventId\":\"bulk-1\",\"status\":false}]"))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$[0].applied").value(true))
+				.andExpect(jsonPath("$[1].applied").value(false))
+				.andExpect(jsonPath("$[1].error").value("Event ID is required"))
+				.andExpect(jsonPath("$[2].applied").value(true));
+		assertThat(eventService.getAllEvents().get("bulk-1").isLive()).isFalse();
+
+		// Test #5c: Hot path metrics
+		System.out.println("\n----- Testing Metrics -----");
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("event_upstream_fetch_seconds_bucket")))
+				.andExpect(content().string(containsString("event_polling_lag_seconds_count")))
+				.andExpect(content().string(containsString("event_staleness_seconds_max")))
+				.andExpect(content().string(containsString("event_tracked ")));
+
+		// Test #5d: New tracking is shed while refusing traffic, stops still apply
+		System.out.println("\n----- Testing Load Shedding -----");
+		AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+		try {
+			mockMvc.perform(get("/actuator/health/readiness"))
+					.andExpect(status().isServiceUnavailable());
+			mockMvc.perform(post("/events/status")
+									.contentType(MediaType.APPLICATION_JSON)
+									.content("{\"eventId\":\"shed-1\",\"status\":true}"))
+					.andExpect(status().isServiceUnavailable());
+			mockMvc.perform(post("/events/status/batch")
+									.contentType(MediaType.APPLICATION_JSON)
+									.content("[{\"eventId\":\"shed-1\",\"status\":true},{\"eventId\":\"bulk-1\",\"status\":false}]"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$[0].applied").value(false))
+					.andExpect(jsonPath("$[0].error").value(EventController.SATURATED_MESSAGE))
+					.andExpect(jsonPath("$[1].applied").value(true));
+			assertThat(eventService.getAllEvents()).doesNotContainKey("shed-1");
+		} finally {
+			AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+		}
+
 		// Test #6: Deactivate Event
 		System.out.println("\n----- Testing Event Deactivation -----");
 		request.setStatus(false);
@@ -232,6 +338,11 @@ public class EventMonitoringIntegrationTest {
 			System.out.println("Final event state: " + event);
 			assertThat(event.isLive()).isFalse();
 		});
+		mockMvc.perform(get("/events").param("sinceVersion", String.valueOf(deltaVersion)))
+				.andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.full").value(false))
+				.andExpect(jsonPath("$.events[?(@.eventId == '" + eventId + "')].live").value(false));
 
 		System.out.println("\n----- All Tests Passed Successfully -----");
 	}
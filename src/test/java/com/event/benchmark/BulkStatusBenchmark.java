@@ -0,0 +1,122 @@
+package com.event.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.event.external.ExternalApiClient;
+import com.event.journal.EventJournal;
+import com.event.model.Event;
+import com.event.model.EventStatusRequest;
+import com.event.model.EventStatusResult;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.HashedWheelPollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.MapEventStore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kickoff burst of status changes: {@value #EVENTS} starts then {@value #EVENTS} stops applied one call per event,
+ * as {@code POST /events/status} does, against one {@code POST /events/status/batch} body, including its JSON
+ * parsing and the serialization of the per-item results. The journal is on and {@code com.event} logs at INFO.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=BulkStatusBenchmark [-Dbenchmark.events=10000]}
+ */
+@Tag("benchmark")
+class BulkStatusBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.events", 10_000);
+	private static final int ROUNDS = 3;
+
+	@TempDir
+	Path directory;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void compareSingleAndBatch() throws Exception {
+		((Logger) LoggerFactory.getLogger("com.event")).setLevel(Level.INFO);
+		List<EventStatusRequest> starts = requests(true);
+		List<EventStatusRequest> stops = requests(false);
+		byte[] startBody = objectMapper.writeValueAsBytes(starts);
+		byte[] stopBody = objectMapper.writeValueAsBytes(stops);
+
+		long[] single = new long[2];
+		long[] batch = new long[2];
+		for (int round = 0; round < ROUNDS; round++) {
+			EventServiceImpl service = service(round);
+			long start = System.nanoTime();
+			starts.forEach(request -> service.updateEventStatus(request.getEventId(), true));
+			single[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			stops.forEach(request -> service.updateEventStatus(request.getEventId(), false));
+			single[1] = System.nanoTime() - start;
+
+			EventServiceImpl batchService = service(round + ROUNDS);
+			start = System.nanoTime();
+			applyBatch(batchService, startBody);
+			batch[0] = System.nanoTime() - start;
+			start = System.nanoTime();
+			applyBatch(batchService, stopBody);
+			batch[1] = System.nanoTime() - start;
+		}
+
+		System.out.printf("%n%-28s %12s %12s%n", EVENTS + " status changes", "starts ms", "stops ms");
+		System.out.printf("%-28s %12.1f %12.1f%n", "one call per event", single[0] / 1e6, single[1] / 1e6);
+		System.out.printf("%-28s %12.1f %12.1f%n", "batch (json in and out)", batch[0] / 1e6, batch[1] / 1e6);
+	}
+
+	private void applyBatch(EventServiceImpl service, byte[] body) throws Exception {
+		List<EventStatusRequest> requests = objectMapper.readValue(body, new TypeReference<>() { });
+		List<EventStatusResult> results = service.updateEventStatuses(requests);
+		objectMapper.writeValueAsBytes(results);
+	}
+
+	private EventServiceImpl service(int round) {
+		// the wheel is never started, scheduling only queues the timeouts like between two ticks
+		return new EventServiceImpl(null, new HashedWheelPollingEngine(10, 1024),
+				new AdaptiveIntervalPolicy(true, 10, 2, 60, 1.5), new IdleApiClient(), null,
+				new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 10), journal(round), null, new MapEventStore(), null);
+	}
+
+	private EventJournal journal(int round) {
+		EventJournal journal = new EventJournal(true, directory.resolve("journal-" + round), 64);
+		journal.open(List::of);
+		return journal;
+	}
+
+	// nothing is polled, a mock would only add the cost of recording every forget
+	private static class IdleApiClient implements ExternalApiClient {
+
+		@Override
+		public Event fetchEventData(String eventId) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Map<String, Event> fetchEventsData(Collection<String> eventIds) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static List<EventStatusRequest> requests(boolean status) {
+		List<EventStatusRequest> requests = new ArrayList<>(EVENTS);
+		for (int i = 0; i < EVENTS; i++) {
+			EventStatusRequest request = new EventStatusRequest();
+			request.setEventId("kickoff-" + i);
+			request.setStatus(status);
+			requests.add(request);
+		}
+		return requests;
+	}
+}
@@ -0,0 +1,106 @@
+package com.event.benchmark;
+
+import com.event.config.KafkaConfig;
+import com.event.config.KafkaConfig.ValueFormat;
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.publisher.KafkaMessagePublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Publishes {@code benchmark.updates} score updates in chunks of {@value #CHUNK}, as the polls of one tick hand them
+ * over, one record per update against one envelope per partition and chunk, on a topic of {@value #PARTITIONS}
+ * partitions. Reports updates/s, and the records and bytes the producer sent per second and per update.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=EnvelopePublishBenchmark [-Dbenchmark.updates=100000]}
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = EnvelopePublishBenchmark.PARTITIONS, topics = EnvelopePublishBenchmark.TOPIC)
+class EnvelopePublishBenchmark {
+
+	static final String TOPIC = "envelope-benchmark";
+	static final int PARTITIONS = 12;
+
+	private static final int UPDATES = Integer.getInteger("benchmark.updates", 100_000);
+	private static final int CHUNK = 50;
+
+	@Test
+	void compareRecordPerUpdateAndEnvelopes(EmbeddedKafkaBroker broker) throws Exception {
+		List<Event> events = IntStream.range(0, UPDATES)
+				.mapToObj(i -> Event.builder().eventId("event-" + (i % 100_000)).live(true).currentScore(i % 7 + "-" + i % 5)
+						.lastUpdated(Instant.ofEpochMilli(1_747_391_445_000L + i)).build())
+				.toList();
+
+		System.out.printf("%n%-20s %12s %12s %12s %14s %14s%n", UPDATES + " updates", "updates/s", "records/s", "MB/s",
+				"records/update", "bytes/update");
+		for (int run = 0; run < 2; run++) {
+			boolean report = run == 1;
+			measure("record json", broker, ValueFormat.JSON, false, events, report);
+			measure("record binary", broker, ValueFormat.BINARY, false, events, report);
+			measure("envelope", broker, ValueFormat.JSON, true, events, report);
+		}
+	}
+
+	private void measure(String name, EmbeddedKafkaBroker broker, ValueFormat format, boolean envelope, List<Event> events,
+						 boolean report) throws Exception {
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", broker.getBrokersAsString());
+		ReflectionTestUtils.setField(kafkaConfig, "valueFormat", format);
+		KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(kafkaConfig.producerFactory());
+		KafkaTemplate<String, byte[]> envelopeKafkaTemplate = new KafkaTemplate<>(kafkaConfig.envelopeProducerFactory());
+
+		KafkaMessagePublisher publisher = new KafkaMessagePublisher(kafkaTemplate, envelopeKafkaTemplate,
+				new EventMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(publisher, "topicName", TOPIC);
+		ReflectionTestUtils.setField(publisher, "publishTimeoutSeconds", 30L);
+		ReflectionTestUtils.setField(publisher, "maxInFlight", 1000);
+		ReflectionTestUtils.setField(publisher, "envelopeEnabled", envelope);
+		ReflectionTestUtils.invokeMethod(publisher, "initInFlightWindow");
+		// connects both producers before the clock starts
+		kafkaTemplate.partitionsFor(TOPIC);
+		envelopeKafkaTemplate.partitionsFor(TOPIC);
+
+		List<CompletableFuture<Void>> published = new ArrayList<>(events.size());
+		long start = System.nanoTime();
+		for (int i = 0; i < events.size(); i += CHUNK) {
+			published.addAll(publisher.publishEventUpdatesAsync(events.subList(i, Math.min(i + CHUNK, events.size()))));
+		}
+		CompletableFuture.allOf(published.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		KafkaTemplate<String, ?> used = envelope ? envelopeKafkaTemplate : kafkaTemplate;
+		double records = producerMetric(used, "record-send-total");
+		double bytes = producerMetric(used, "outgoing-byte-total");
+		if (report) {
+			System.out.printf("%-20s %12.0f %12.0f %12.2f %14.3f %14.1f%n", name, events.size() / seconds,
+					records / seconds, bytes / seconds / 1e6, records / events.size(), bytes / events.size());
+		}
+		kafkaTemplate.destroy();
+		envelopeKafkaTemplate.destroy();
+	}
+
+	private static double producerMetric(KafkaTemplate<String, ?> kafkaTemplate, String name) {
+		for (Map.Entry<MetricName, ? extends Metric> metric : kafkaTemplate.metrics().entrySet()) {
+			if (metric.getKey().group().equals("producer-metrics") && metric.getKey().name().equals(name)) {
+				return ((Number) metric.getValue().metricValue()).doubleValue();
+			}
+		}
+		throw new IllegalStateException("No producer metric " + name);
+	}
+}
@@ -0,0 +1,143 @@
+package com.event.benchmark;
+
+import com.event.controller.EventController;
+import com.event.model.Event;
+import com.event.model.EventFilter;
+import com.event.model.EventPage;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.HashedWheelPollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.MapEventStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.NavigableSet;
+
+/**
+ * Allocation and latency of listing every tracked event: the legacy {@code GET /events} map, a full walk of the
+ * cursor-paginated listing, the first page alone, the NDJSON stream, and the delta since a version after 1% of the
+ * scores changed, as a refreshing dashboard reads it. Every response is written to a stream that
+ * discards its bytes, so only the cost of producing it on the server is measured.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=EventListingBenchmark [-Dbenchmark.sizes=10000,100000,1000000]}
+ */
+@Tag("benchmark")
+class EventListingBenchmark {
+
+	private static final String SIZES = System.getProperty("benchmark.sizes", "10000,100000,1000000");
+	private static final int ROUNDS = 3;
+	private static final int CHANGED_PERCENT = 1;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	// version a dashboard holds, before the changed scores
+	private long dashboardVersion;
+
+	@Test
+	void compareListings() {
+		System.out.printf("%n%-10s %-20s %12s %14s %12s%n", "events", "listing", "ms", "allocated MB", "bytes MB");
+		for (String size : SIZES.split(",")) {
+			EventServiceImpl service = populate(Integer.parseInt(size.trim()));
+			for (int round = 0; round < ROUNDS; round++) {
+				boolean report = round == ROUNDS - 1;
+				measure(size, "legacy map", report, out -> objectMapper.writeValue(out, service.getAllEvents()));
+				measure(size, "all pages of 1000", report, out -> {
+					String cursor = null;
+					do {
+						EventPage page = service.getEvents(EventFilter.ALL, cursor, EventController.MAX_PAGE_SIZE);
+						objectMapper.writeValue(out, page);
+						cursor = page.nextCursor();
+					} while (cursor != null);
+				});
+				measure(size, "first page of 100", report,
+						out -> objectMapper.writeValue(out, service.getEvents(EventFilter.ALL, null, 100)));
+				measure(size, "delta of " + CHANGED_PERCENT + "% changed", report,
+						out -> objectMapper.writeValue(out, service.getChangedEvents(dashboardVersion)));
+				measure(size, "ndjson stream", report, out -> {
+					ObjectWriter writer = objectMapper.writerFor(Event.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+					try (JsonGenerator generator = writer.createGenerator(out)) {
+						generator.setRootValueSeparator(null);
+						service.forEachEvent(EventFilter.ALL, event -> {
+							try {
+								writer.writeValue(generator, event);
+								generator.writeRaw('\n');
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						});
+					}
+				});
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private EventServiceImpl populate(int size) {
+		// never started, nothing is polled, published or journaled
+		MapEventStore eventStore = new MapEventStore();
+		EventServiceImpl service = new EventServiceImpl(null, new HashedWheelPollingEngine(10, 1024),
+				new AdaptiveIntervalPolicy(true, 10, 2, 60, 1.5), null, null, null, null, null, eventStore, null);
+		NavigableSet<String> eventIds = (NavigableSet<String>) ReflectionTestUtils.getField(service, "eventIds");
+		Instant now = Instant.now();
+		for (int i = 0; i < size; i++) {
+			String eventId = "event-" + i;
+			eventStore.put(Event.builder().eventId(eventId).live(i % 10 != 0).currentScore(i % 7 + "-" + i % 3)
+					.lastUpdated(now).pollingIntervalMillis(10_000L).build());
+			eventIds.add(eventId);
+		}
+		dashboardVersion = service.getChangedEvents(0).version();
+		for (int i = 0; i < size; i += 100 / CHANGED_PERCENT) {
+			eventStore.updateScore("event-" + i, "changed", now.toEpochMilli());
+		}
+		return service;
+	}
+
+	private void measure(String size, String listing, boolean report, Listing body) {
+		CountingOutputStream out = new CountingOutputStream();
+		long threadId = Thread.currentThread().threadId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		try {
+			body.writeTo(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		if (report) {
+			System.out.printf("%-10s %-20s %12.1f %14.1f %12.1f%n", size, listing, elapsedNanos / 1e6,
+					allocated / 1e6, out.count / 1e6);
+		}
+	}
+
+	private interface Listing {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private static final class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
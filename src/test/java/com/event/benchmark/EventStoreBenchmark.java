@@ -0,0 +1,96 @@
+package com.event.benchmark;
+
+import com.event.state.EventStore;
+import com.event.state.MapEventStore;
+import com.event.state.PrimitiveEventStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Footprint and GC pressure of the event state stores with {@code benchmark.events} tracked events: retained heap
+ * after adding every event, then {@value #ROUNDS} rounds of the polling path (live check, score update, interval
+ * change) over all of them, reporting the bytes allocated per update and the collections it caused.
+ * Score strings come from a small pool, as the parsed strings of a real poll are allocated either way.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=EventStoreBenchmark [-Dbenchmark.events=1000000]}
+ */
+@Tag("benchmark")
+class EventStoreBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.events", 1_000_000);
+	private static final int ROUNDS = 10;
+
+	private final String[] scores = IntStream.range(0, 100).mapToObj(i -> i / 10 + "-" + i % 10).toArray(String[]::new);
+	private final String[] eventIds = IntStream.range(0, EVENTS).mapToObj(i -> "event-" + i).toArray(String[]::new);
+	private final com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	@Test
+	void compareStores() {
+		System.out.printf("%n%-10s %14s %14s %14s %10s %10s %12s%n", EVENTS + " events", "retained MB",
+				"bytes/event", "bytes/update", "gc count", "gc ms", "updates/s");
+		for (int run = 0; run < 2; run++) {
+			measure("map", MapEventStore::new, run == 1);
+			measure("primitive", PrimitiveEventStore::new, run == 1);
+		}
+	}
+
+	private void measure(String name, Supplier<EventStore> factory, boolean report) {
+		long heapBefore = usedHeap();
+		EventStore store = factory.get();
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < EVENTS; i++) {
+			store.start(eventIds[i], 10_000, now, null);
+			store.updateScore(eventIds[i], scores[i % scores.length], now);
+		}
+		long retained = usedHeap() - heapBefore;
+
+		long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+		long[] gcBefore = gcCountAndMillis();
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int i = 0; i < EVENTS; i++) {
+				String eventId = eventIds[i];
+				if (store.isLive(eventId)) {
+					store.updateScore(eventId, scores[(i + round) % scores.length], now + round);
+					store.setPollingIntervalMillis(eventId, 10_000 + round);
+				}
+			}
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+		long[] gcAfter = gcCountAndMillis();
+		long updates = (long) EVENTS * ROUNDS;
+
+		if (report) {
+			System.out.printf("%-10s %14.1f %14d %14.1f %10d %10d %12.0f%n", name, retained / 1e6, retained / EVENTS,
+					(double) allocated / updates, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1],
+					updates / (elapsedNanos / 1e9));
+		}
+		if (store.size() != EVENTS) {
+			throw new IllegalStateException("Lost events: " + store.size());
+		}
+	}
+
+	private static long[] gcCountAndMillis() {
+		long count = 0;
+		long millis = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+		return new long[]{count, millis};
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,158 @@
+package com.event.benchmark;
+
+import com.event.cluster.TrackingCommandRouter;
+import com.event.controller.EventController;
+import com.event.model.Event;
+import com.event.service.EventService;
+import com.event.stream.EventUpdateBroadcaster;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+
+/**
+ * How many concurrent {@code GET /events/stream} subscribers one node sustains: opens N subscriptions over
+ * separate HTTP/1.1 connections, broadcasts rounds of score updates to {@value #EVENTS} events and reports the
+ * cost of a broadcast on the polling path, the time until every subscriber received the last round, and the heap
+ * held per subscriber (client and server side, they share the JVM).
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=EventStreamBenchmark [-Dbenchmark.subscribers=1000,2000,4000]}
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = EventStreamBenchmark.StreamApplication.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"server.tomcat.max-connections=20000", "server.tomcat.threads.max=50",
+				"event.stream.max-subscribers=20000", "logging.level.com.event=WARN"})
+class EventStreamBenchmark {
+
+	private static final String SUBSCRIBERS = System.getProperty("benchmark.subscribers", "1000,2000,4000");
+	private static final int EVENTS = 100;
+	private static final int ROUNDS = 20;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private EventUpdateBroadcaster broadcaster;
+
+	@MockitoBean
+	private EventService eventService;
+
+	@MockitoBean
+	private TrackingCommandRouter trackingCommandRouter;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	@Test
+	void measureSubscriberCapacity() throws Exception {
+		System.out.printf("%n%-12s %16s %18s %16s %16s %14s%n", "subscribers", "broadcast p50 us",
+				"broadcast max us", "last round ms", "messages/s", "heap KB/sub");
+		int round = 0;
+		for (String size : SUBSCRIBERS.split(",")) {
+			int subscribers = Integer.parseInt(size.trim());
+			long heapBefore = usedHeap();
+			try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+				 HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+						 .executor(readers).connectTimeout(Duration.ofSeconds(30)).build()) {
+				LongAdder received = new LongAdder();
+				AtomicLong lastRoundReceived = new AtomicLong();
+				for (int i = 0; i < subscribers; i++) {
+					readers.execute(() -> subscribe(client, received, lastRoundReceived));
+				}
+				await().atMost(120, TimeUnit.SECONDS).until(() -> broadcaster.getSubscriberCount() == subscribers);
+				long heapPerSubscriber = (usedHeap() - heapBefore) / subscribers;
+
+				long[] broadcastNanos = new long[ROUNDS * EVENTS];
+				long receivedBefore = received.sum();
+				long start = System.nanoTime();
+				for (int r = 0; r < ROUNDS; r++) {
+					round++;
+					String marker = (r == ROUNDS - 1 ? "last-" : "") + round;
+					for (int e = 0; e < EVENTS; e++) {
+						Event update = Event.builder().eventId("event-" + e).live(true).currentScore(marker).build();
+						long broadcastStart = System.nanoTime();
+						broadcaster.broadcast(update);
+						broadcastNanos[r * EVENTS + e] = System.nanoTime() - broadcastStart;
+					}
+					Thread.sleep(50);
+				}
+				long lastBroadcast = System.nanoTime();
+				long expectedLast = (long) subscribers * EVENTS;
+				await().atMost(120, TimeUnit.SECONDS).pollInterval(1, TimeUnit.MILLISECONDS)
+						.until(() -> lastRoundReceived.get() >= expectedLast);
+				long lastRoundNanos = System.nanoTime() - lastBroadcast;
+				double messagesPerSecond = (received.sum() - receivedBefore) / ((System.nanoTime() - start) / 1e9);
+
+				Arrays.sort(broadcastNanos);
+				System.out.printf("%-12d %16.1f %18.1f %16.1f %16.0f %14d%n", subscribers,
+						broadcastNanos[broadcastNanos.length / 2] / 1e3, broadcastNanos[broadcastNanos.length - 1] / 1e3,
+						lastRoundNanos / 1e6, messagesPerSecond, heapPerSubscriber / 1024);
+				System.out.println("  " + broadcaster.status());
+				client.shutdownNow();
+			}
+			// a closed connection is only noticed by the next send to it
+			await().atMost(60, TimeUnit.SECONDS).until(() -> {
+				broadcaster.broadcast(Event.builder().eventId("closed").build());
+				return broadcaster.getSubscriberCount() == 0;
+			});
+		}
+	}
+
+	private void subscribe(HttpClient client, LongAdder received, AtomicLong lastRoundReceived) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/events/stream"))
+				.header("Accept", "text/event-stream").build();
+		try {
+			HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+			try (Stream<String> lines = response.body()) {
+				lines.filter(line -> line.startsWith("data:")).forEach(line -> {
+					received.add(occurrences(line, "\"eventId\""));
+					lastRoundReceived.addAndGet(occurrences(line, "\"last-"));
+				});
+			}
+		} catch (Exception e) {
+			// closed at the end of the round
+		}
+	}
+
+	private static int occurrences(String line, String token) {
+		int count = 0;
+		for (int i = line.indexOf(token); i >= 0; i = line.indexOf(token, i + token.length())) {
+			count++;
+		}
+		return count;
+	}
+
+	private long usedHeap() {
+		System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration(exclude = KafkaAutoConfiguration.class)
+	@Import({EventController.class, EventUpdateBroadcaster.class})
+	static class StreamApplication {
+	}
+}
@@ -0,0 +1,127 @@
+package com.event.benchmark;
+
+import com.event.config.KafkaConfig;
+import com.event.controller.HealthController;
+import com.event.external.HostConcurrencyLimiter;
+import com.event.external.UpstreamCircuitBreaker;
+import com.event.external.UpstreamRateLimiter;
+import com.event.health.HealthProber;
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.model.EventPriority;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.stream.EventUpdateBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a health check and the threads it starts: a Kafka admin client created, asked for the topics and closed
+ * on every request, as the endpoint used to, against the snapshot of {@link HealthProber} served by the endpoint.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=HealthCheckBenchmark [-Dbenchmark.checks=200]}
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 1)
+class HealthCheckBenchmark {
+
+	private static final int CHECKS = Integer.getInteger("benchmark.checks", 200);
+	private static final int SNAPSHOT_CHECKS = 1_000_000;
+
+	@Test
+	void compareProbePerRequestAndSnapshot(EmbeddedKafkaBroker broker) throws Exception {
+		KafkaAdmin kafkaAdmin = new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", broker.getBrokersAsString());
+		KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(kafkaConfig.producerFactory());
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.initialize();
+
+		EventMetrics eventMetrics = new EventMetrics(new SimpleMeterRegistry());
+		HealthProber prober = new HealthProber(kafkaAdmin, kafkaTemplate, taskScheduler,
+				new DeadlineDispatcher(Runnable::run, 64, 50, Map.of(), Set.of(EventPriority.LOW), eventMetrics),
+				new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 10), new HostConcurrencyLimiter(64, Map.of(), 10_000, 5_000),
+				new UpstreamCircuitBreaker(true, 20, 10, 50, 2_000, 80, 10_000, 3), new UpstreamRateLimiter(0, 0, Map.of(), 1),
+				new EventUpdateBroadcaster(256, 10_000, 1_800_000), eventMetrics,
+				new ApplicationAvailabilityBean(), event -> {
+				});
+		ReflectionTestUtils.setField(prober, "kafkaTimeoutMillis", 5_000L);
+		ReflectionTestUtils.setField(prober, "maxProducerBufferUsage", 0.9);
+		ReflectionTestUtils.setField(prober, "maxSchedulerQueued", 1_000);
+		ReflectionTestUtils.setField(prober, "maxUpstreamErrorRate", 0.5);
+		HealthController controller = new HealthController(prober);
+
+		probePerRequest(kafkaAdmin, CHECKS / 10);
+		Result perRequest = probePerRequest(kafkaAdmin, CHECKS);
+
+		prober.refresh();
+		for (int i = 0; i < SNAPSHOT_CHECKS; i++) {
+			controller.healthCheck();
+		}
+		long threadsBefore = ManagementFactory.getThreadMXBean().getTotalStartedThreadCount();
+		long[] latencies = new long[SNAPSHOT_CHECKS];
+		long start = System.nanoTime();
+		for (int i = 0; i < SNAPSHOT_CHECKS; i++) {
+			long checked = System.nanoTime();
+			controller.healthCheck();
+			latencies[i] = System.nanoTime() - checked;
+		}
+		Result snapshot = new Result(SNAPSHOT_CHECKS, System.nanoTime() - start, latencies,
+				ManagementFactory.getThreadMXBean().getTotalStartedThreadCount() - threadsBefore);
+
+		System.out.printf("%n%-22s %12s %12s %12s %16s%n", "health check", "checks/s", "p50", "p99", "threads/check");
+		perRequest.print("admin client / request");
+		snapshot.print("snapshot");
+		long probeStart = System.nanoTime();
+		prober.refresh();
+		System.out.printf("background probe with a kept admin client: %.2fms%n", (System.nanoTime() - probeStart) / 1e6);
+
+		prober.close();
+		kafkaTemplate.destroy();
+		taskScheduler.shutdown();
+	}
+
+	private Result probePerRequest(KafkaAdmin kafkaAdmin, int checks) throws Exception {
+		long threadsBefore = ManagementFactory.getThreadMXBean().getTotalStartedThreadCount();
+		long[] latencies = new long[checks];
+		long start = System.nanoTime();
+		for (int i = 0; i < checks; i++) {
+			long checked = System.nanoTime();
+			try (AdminClient adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties())) {
+				adminClient.listTopics().names().get(5, TimeUnit.SECONDS);
+			}
+			latencies[i] = System.nanoTime() - checked;
+		}
+		return new Result(checks, System.nanoTime() - start, latencies,
+				ManagementFactory.getThreadMXBean().getTotalStartedThreadCount() - threadsBefore);
+	}
+
+	private record Result(int checks, long elapsedNanos, long[] latencies, long threadsStarted) {
+
+		private void print(String name) {
+			long[] sorted = latencies.clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-22s %12.0f %10.2fus %10.2fus %16.2f%n", name,
+					checks / (elapsedNanos / 1e9),
+					sorted[sorted.length / 2] / 1e3,
+					sorted[(int) (sorted.length * 0.99)] / 1e3,
+					(double) threadsStarted / checks);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.event.benchmark;
+
+import com.event.journal.EventJournal;
+import com.event.model.Event;
+import com.event.scheduler.HashedWheelPollingEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Startup cost of restoring the tracked events from the journal: replaying the memory-mapped log after a crash,
+ * loading the snapshot written on a clean shutdown, and putting the restored events back on the polling wheel.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=JournalRecoveryBenchmark [-Dbenchmark.events=100000]}
+ */
+@Tag("benchmark")
+class JournalRecoveryBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.events", 100_000);
+	private static final int UPDATES_PER_EVENT = 5;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void measureRecovery() {
+		Map<String, Event> events = new ConcurrentHashMap<>();
+		EventJournal journal = new EventJournal(true, directory, 128);
+		journal.open(events::values);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < EVENTS; i++) {
+			Event event = Event.builder().eventId("event-" + i).live(true).pollingIntervalMillis(10_000L).build();
+			events.put(event.getEventId(), event);
+			journal.record(event.getEventId(), events::get);
+		}
+		for (int update = 0; update < UPDATES_PER_EVENT; update++) {
+			for (Event event : events.values()) {
+				Event updated = event.toBuilder().currentScore(update + "-0").lastUpdated(Instant.now()).build();
+				events.put(updated.getEventId(), updated);
+				journal.record(updated.getEventId(), events::get);
+			}
+		}
+		long appendNanos = System.nanoTime() - start;
+		int appends = EVENTS * (UPDATES_PER_EVENT + 1);
+
+		// a crash leaves only the log, the mapping of the first journal is never forced or snapshotted
+		start = System.nanoTime();
+		Map<String, Event> fromLog = new EventJournal(true, directory, 128).open(List::of);
+		long logRecoveryNanos = System.nanoTime() - start;
+
+		journal.close();
+		start = System.nanoTime();
+		Map<String, Event> fromSnapshot = new EventJournal(true, directory, 128).open(List::of);
+		long snapshotRecoveryNanos = System.nanoTime() - start;
+
+		HashedWheelPollingEngine engine = new HashedWheelPollingEngine(10, 1024);
+		engine.start((eventIds, deadlineNanos) -> { });
+		start = System.nanoTime();
+		for (Event event : fromSnapshot.values()) {
+			engine.schedule(event.getEventId(), Duration.ofSeconds(1), Duration.ofMillis(event.getPollingIntervalMillis()));
+		}
+		long rescheduleNanos = System.nanoTime() - start;
+		engine.stop();
+
+		System.out.printf("%n%-34s %12s %12s%n", "journal (" + EVENTS + " events)", "ms", "events");
+		System.out.printf("%-34s %12.1f %12d%n", "append " + appends + " records", appendNanos / 1e6, events.size());
+		System.out.printf("%-34s %12.1f %12d%n", "recover from log (crash)", logRecoveryNanos / 1e6, fromLog.size());
+		System.out.printf("%-34s %12.1f %12d%n", "recover from snapshot (shutdown)", snapshotRecoveryNanos / 1e6, fromSnapshot.size());
+		System.out.printf("%-34s %12.1f %12d%n", "reschedule on the polling wheel", rescheduleNanos / 1e6, fromSnapshot.size());
+	}
+}
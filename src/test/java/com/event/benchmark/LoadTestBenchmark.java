@@ -0,0 +1,232 @@
+package com.event.benchmark;
+
+import com.event.EventMonitoringApplication;
+import com.event.controller.MockApiController;
+import com.event.model.Event;
+import com.event.model.EventStatusRequest;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test against the simulated upstream of the {@code load-test} profile and embedded Kafka: ramps
+ * to {@code benchmark.load.events} live events over {@code benchmark.load.ramp-seconds} through
+ * {@code POST /events/status/batch}, warms up for {@code benchmark.load.warmup-seconds}, then holds them for
+ * {@code benchmark.load.seconds} and reports
+ * <ul>
+ *     <li>sustained polls/s served by the upstream, with its errors and timeouts, and publishes/s read back from Kafka</li>
+ *     <li>schedule drift, the gap between two polls of an event as seen by the upstream minus the fixed interval</li>
+ *     <li>staleness, from the moment the upstream moved a score on to the arrival of that score at a consumer</li>
+ * </ul>
+ * Run with {@code mvn test -Pbenchmark -Dtest=LoadTestBenchmark [-Dbenchmark.load.events=5000]}, the simulator and
+ * app settings of {@code application-load-test.properties} can be overridden the same way, e.g.
+ * {@code -Devent.api.mock.error-rate=0.05 -Devent.polling.interval=2}
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = EventMonitoringApplication.class, webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@EmbeddedKafka(partitions = 3, topics = "live-sports-events")
+@ActiveProfiles({"test", "load-test"})
+class LoadTestBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.load.events", 5_000);
+	private static final int RAMP_SECONDS = Integer.getInteger("benchmark.load.ramp-seconds", 10);
+	private static final int WARMUP_SECONDS = Integer.getInteger("benchmark.load.warmup-seconds", 20);
+	private static final int SECONDS = Integer.getInteger("benchmark.load.seconds", 30);
+
+	private static final int PORT = freePort();
+
+	@Autowired
+	private MockApiController upstream;
+
+	@Autowired
+	private EmbeddedKafkaBroker broker;
+
+	@Value("${event.polling.interval}")
+	private long intervalSeconds;
+
+	@Value("${kafka.topic.events}")
+	private String topicName;
+
+	private final Samples drift = new Samples();
+	private final Samples staleness = new Samples();
+	private final LongAdder published = new LongAdder();
+	private final LongAdder superseded = new LongAdder();
+	private final AtomicBoolean measuring = new AtomicBoolean();
+	private volatile boolean consuming = true;
+
+	@DynamicPropertySource
+	static void registerProperties(DynamicPropertyRegistry registry) {
+		// the port has to be known up front, the mock endpoints are built from server.port
+		registry.add("server.port", () -> PORT);
+		registry.add("kafka.bootstrap-servers", () -> "${spring.embedded.kafka.brokers}");
+	}
+
+	@Test
+	void sustainLoad() throws Exception {
+		long intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+		upstream.setPollObserver((eventId, sinceLastPollNanos) -> {
+			if (measuring.get()) {
+				drift.add(sinceLastPollNanos - intervalNanos);
+			}
+		});
+		Thread consumerThread = Thread.ofPlatform().name("load-test-consumer").start(this::consume);
+
+		RestClient restClient = RestClient.create("http://localhost:" + PORT);
+		long rampStart = System.nanoTime();
+		int step = Math.max(1, EVENTS / Math.max(1, RAMP_SECONDS));
+		for (int from = 0, second = 1; from < EVENTS; from += step, second++) {
+			restClient.post().uri("/events/status/batch").contentType(MediaType.APPLICATION_JSON)
+					.body(requests(from, Math.min(EVENTS, from + step), true)).retrieve().toBodilessEntity();
+			sleepUntil(rampStart + TimeUnit.SECONDS.toNanos(second));
+		}
+		double rampSeconds = (System.nanoTime() - rampStart) / 1e9;
+		// lets the JIT warm up and a circuit breaker opened by the slow first calls of a cold JVM close again
+		TimeUnit.NANOSECONDS.sleep(Math.max(intervalNanos * 2, TimeUnit.SECONDS.toNanos(WARMUP_SECONDS)));
+
+		Map<String, Long> statsBefore = upstream.getStats();
+		long publishedBefore = published.sum();
+		measuring.set(true);
+		long start = System.nanoTime();
+		TimeUnit.SECONDS.sleep(SECONDS);
+		measuring.set(false);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Map<String, Long> statsAfter = upstream.getStats();
+		long publishes = published.sum() - publishedBefore;
+
+		consuming = false;
+		consumerThread.join();
+		upstream.setPollObserver(null);
+		// stop polling before the context, and the upstream with it, shuts down
+		restClient.post().uri("/events/status/batch").contentType(MediaType.APPLICATION_JSON)
+				.body(requests(0, EVENTS, false)).retrieve().toBodilessEntity();
+
+		long polls = statsAfter.get("polls") - statsBefore.get("polls");
+		System.out.printf("%n%d live events, ramped in %.1fs, polled every %ds, measured over %.1fs%n", EVENTS,
+				rampSeconds, intervalSeconds, seconds);
+		System.out.printf("%-22s %10.0f (expected %.0f)%n", "polls/s", polls / seconds, (double) EVENTS / intervalSeconds);
+		System.out.printf("%-22s %10d errors, %d timeouts%n", "upstream failures",
+				statsAfter.get("errors") - statsBefore.get("errors"), statsAfter.get("timeouts") - statsBefore.get("timeouts"));
+		System.out.printf("%-22s %10.0f%n", "publishes/s", publishes / seconds);
+		System.out.printf("%-22s %10s %10s %10s %10s %10s%n", "", "samples", "p50 ms", "p90 ms", "p99 ms", "max ms");
+		drift.print("schedule drift", 1e6);
+		staleness.print("staleness", 1);
+		System.out.printf("%-22s %10d scores moved on again before they were seen%n", "", superseded.sum());
+
+		assertThat(polls).isPositive();
+		assertThat(publishes).isPositive();
+	}
+
+	/**
+	 * Counts every record and, for the first record of each new score, how long ago the upstream changed it.
+	 */
+	private void consume() {
+		Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("load-test", "true", broker);
+		consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		Map<String, Integer> lastScores = new HashMap<>();
+		try (Consumer<String, Event> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+				new StringDeserializer(), new JsonDeserializer<>(Event.class, false)).createConsumer()) {
+			consumer.subscribe(List.of(topicName));
+			while (consuming) {
+				for (ConsumerRecord<String, Event> record : consumer.poll(Duration.ofMillis(100))) {
+					published.increment();
+					long arrivedAtMillis = System.currentTimeMillis();
+					int score = Integer.parseInt(record.value().getCurrentScore());
+					Integer lastScore = lastScores.put(record.key(), score);
+					if (!measuring.get() || (lastScore != null && lastScore == score)) {
+						continue;
+					}
+					long changedAtMillis = upstream.getScoreChangedAtMillis(record.key(), score);
+					if (changedAtMillis < 0) {
+						superseded.increment();
+					} else {
+						staleness.add(arrivedAtMillis - changedAtMillis);
+					}
+				}
+			}
+		}
+	}
+
+	private static List<EventStatusRequest> requests(int from, int to, boolean status) {
+		List<EventStatusRequest> requests = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			EventStatusRequest request = new EventStatusRequest();
+			request.setEventId("load-" + i);
+			request.setStatus(status);
+			requests.add(request);
+		}
+		return requests;
+	}
+
+	private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+		long remaining = deadlineNanos - System.nanoTime();
+		if (remaining > 0) {
+			TimeUnit.NANOSECONDS.sleep(remaining);
+		}
+	}
+
+	private static int freePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static final class Samples {
+
+		private long[] values = new long[1024];
+		private int size;
+
+		synchronized void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		synchronized void print(String name, double perMilli) {
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			System.out.printf("%-22s %10d %10.1f %10.1f %10.1f %10.1f%n", name, size, percentile(sorted, 50) / perMilli,
+					percentile(sorted, 90) / perMilli, percentile(sorted, 99) / perMilli, percentile(sorted, 100) / perMilli);
+		}
+
+		private static long percentile(long[] sorted, double percentile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			return sorted[Math.max(0, (int) Math.ceil(percentile / 100 * sorted.length) - 1)];
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.event.benchmark;
+
+import com.event.scheduler.HashedWheelPollingEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares schedule drift and retained heap of the polling wheel against one
+ * {@code scheduleAtFixedRate} per event on a 10 thread {@link ThreadPoolTaskScheduler}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=PollingEngineBenchmark [-Dbenchmark.events=100000]}
+ */
+@Tag("benchmark")
+class PollingEngineBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.events", 100_000);
+	private static final Duration INTERVAL = Duration.ofSeconds(1);
+	private static final Duration INITIAL_DELAY = Duration.ofSeconds(1);
+	private static final int PERIODS = 4;
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	@Test
+	void compareDriftAndMemory() throws InterruptedException {
+		String[] eventIds = new String[EVENTS];
+		Map<String, Integer> index = new HashMap<>(EVENTS * 2);
+		for (int i = 0; i < EVENTS; i++) {
+			eventIds[i] = "event-" + i;
+			index.put(eventIds[i], i);
+		}
+
+		Result scheduler = runTaskScheduler(eventIds);
+		Result wheel = runWheel(eventIds, index);
+
+		System.out.printf("%n%-22s %12s %12s %12s %12s %12s%n", "engine (" + EVENTS + ")", "heap KiB", "polls", "p50 drift", "p99 drift", "max drift");
+		scheduler.print("scheduleAtFixedRate");
+		wheel.print("hashed wheel");
+	}
+
+	private Result runTaskScheduler(String[] eventIds) throws InterruptedException {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setPoolSize(10);
+		taskScheduler.initialize();
+		Recorder recorder = new Recorder(eventIds.length);
+
+		long before = usedHeap();
+		ScheduledFuture<?>[] futures = new ScheduledFuture<?>[eventIds.length];
+		for (int i = 0; i < eventIds.length; i++) {
+			int eventIndex = i;
+			long firstFire = System.nanoTime() + INITIAL_DELAY.toNanos();
+			futures[i] = taskScheduler.scheduleAtFixedRate(() -> recorder.record(eventIndex, firstFire),
+					Instant.now().plus(INITIAL_DELAY), INTERVAL);
+			recorder.firstFire[i] = firstFire;
+		}
+		long retained = usedHeap() - before;
+
+		Thread.sleep(INITIAL_DELAY.plus(INTERVAL.multipliedBy(PERIODS)).toMillis());
+		Arrays.stream(futures).forEach(future -> future.cancel(false));
+		taskScheduler.shutdown();
+		return recorder.result(retained);
+	}
+
+	private Result runWheel(String[] eventIds, Map<String, Integer> index) throws InterruptedException {
+		HashedWheelPollingEngine engine = new HashedWheelPollingEngine(10, 1024);
+		Recorder recorder = new Recorder(eventIds.length);
+		engine.start((List<String> due, long deadlineNanos) -> {
+			for (String eventId : due) {
+				int eventIndex = index.get(eventId);
+				recorder.record(eventIndex, recorder.firstFire[eventIndex]);
+			}
+		});
+
+		long before = usedHeap();
+		for (int i = 0; i < eventIds.length; i++) {
+			recorder.firstFire[i] = System.nanoTime() + INITIAL_DELAY.toNanos();
+			engine.schedule(eventIds[i], INITIAL_DELAY, INTERVAL);
+		}
+		long retained = usedHeap() - before;
+
+		Thread.sleep(INITIAL_DELAY.plus(INTERVAL.multipliedBy(PERIODS)).toMillis());
+		engine.stop();
+		return recorder.result(retained);
+	}
+
+	private static long usedHeap() {
+		System.gc();
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Records drift as actual fire time minus the intended fixed-rate fire time of each event.
+	 */
+	private static final class Recorder {
+		private final long[] firstFire;
+		private final int[] fireCount;
+		private final long[] drifts;
+		private final AtomicInteger samples = new AtomicInteger();
+
+		private Recorder(int events) {
+			this.firstFire = new long[events];
+			this.fireCount = new int[events];
+			this.drifts = new long[events * (PERIODS + 2)];
+		}
+
+		private void record(int eventIndex, long firstFireNanos) {
+			long now = System.nanoTime();
+			int period;
+			synchronized (this) {
+				period = fireCount[eventIndex]++;
+			}
+			long intended = firstFireNanos + period * INTERVAL.toNanos();
+			int sample = samples.getAndIncrement();
+			if (sample < drifts.length) {
+				drifts[sample] = now - intended;
+			}
+		}
+
+		private Result result(long retainedBytes) {
+			int count = Math.min(samples.get(), drifts.length);
+			long[] sorted = Arrays.copyOf(drifts, count);
+			Arrays.sort(sorted);
+			return new Result(retainedBytes, samples.get(), sorted);
+		}
+	}
+
+	private record Result(long retainedBytes, int polls, long[] sortedDrifts) {
+
+		private long percentile(double p) {
+			if (sortedDrifts.length == 0) {
+				return 0;
+			}
+			return sortedDrifts[(int) Math.min(sortedDrifts.length - 1, Math.ceil(p * sortedDrifts.length) - 1)];
+		}
+
+		private void print(String name) {
+			System.out.printf("%-22s %12d %12d %10dms %10dms %10dms%n", name, retainedBytes / 1024, polls,
+					TimeUnit.NANOSECONDS.toMillis(percentile(0.50)),
+					TimeUnit.NANOSECONDS.toMillis(percentile(0.99)),
+					TimeUnit.NANOSECONDS.toMillis(percentile(1.0)));
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.event.benchmark;
+
+import com.event.config.KafkaConfig;
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.publisher.KafkaMessagePublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput and publish latency of the blocking publish path, called from 10 threads like the
+ * task scheduler pool, against the async path with a bounded in-flight window called from a single thread.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=PublisherBenchmark [-Dbenchmark.messages=20000]}
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 3, topics = PublisherBenchmark.TOPIC)
+class PublisherBenchmark {
+
+	static final String TOPIC = "publisher-benchmark";
+
+	private static final int MESSAGES = Integer.getInteger("benchmark.messages", 20_000);
+	private static final int WARMUP = 1_000;
+	private static final int THREADS = 10;
+
+	@Test
+	void compareBlockingAndAsync(EmbeddedKafkaBroker broker) throws Exception {
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", broker.getBrokersAsString());
+		KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(kafkaConfig.producerFactory());
+
+		KafkaMessagePublisher publisher = new KafkaMessagePublisher(kafkaTemplate, null, new EventMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(publisher, "topicName", TOPIC);
+		ReflectionTestUtils.setField(publisher, "publishTimeoutSeconds", 10L);
+		ReflectionTestUtils.setField(publisher, "maxInFlight", 1000);
+		ReflectionTestUtils.invokeMethod(publisher, "initInFlightWindow");
+
+		runBlocking(publisher, WARMUP);
+		runAsync(publisher, WARMUP);
+
+		Result blocking = runBlocking(publisher, MESSAGES);
+		Result async = runAsync(publisher, MESSAGES);
+
+		System.out.printf("%n%-22s %12s %12s %12s%n", "publish (" + MESSAGES + ")", "msgs/s", "p50", "p99");
+		blocking.print("blocking x" + THREADS);
+		async.print("async window 1000");
+
+		kafkaTemplate.destroy();
+	}
+
+	private Result runBlocking(KafkaMessagePublisher publisher, int messages) throws Exception {
+		long[] latencies = new long[messages];
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<CompletableFuture<Void>> workers = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			workers.add(CompletableFuture.runAsync(() -> {
+				for (int i = thread; i < messages; i += THREADS) {
+					long sent = System.nanoTime();
+					publisher.publishEventUpdate(event(i));
+					latencies[i] = System.nanoTime() - sent;
+				}
+			}, executor));
+		}
+		CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		return new Result(messages, elapsed, latencies);
+	}
+
+	private Result runAsync(KafkaMessagePublisher publisher, int messages) throws Exception {
+		long[] latencies = new long[messages];
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[messages];
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			int message = i;
+			long sent = System.nanoTime();
+			futures[i] = publisher.publishEventUpdateAsync(event(i))
+					.thenRun(() -> latencies[message] = System.nanoTime() - sent);
+		}
+		CompletableFuture.allOf(futures).get(5, TimeUnit.MINUTES);
+		long elapsed = System.nanoTime() - start;
+		return new Result(messages, elapsed, latencies);
+	}
+
+	private static Event event(int i) {
+		return Event.builder().eventId("event-" + (i % 1000)).live(true).currentScore(String.valueOf(i)).build();
+	}
+
+	private record Result(int messages, long elapsedNanos, long[] latencies) {
+
+		private void print(String name) {
+			long[] sorted = latencies.clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-22s %12.0f %10.2fms %10.2fms%n", name,
+					messages / (elapsedNanos / 1e9),
+					sorted[sorted.length / 2] / 1e6,
+					sorted[(int) (sorted.length * 0.99)] / 1e6);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.event.benchmark;
+
+import com.event.model.Event;
+import com.event.serialization.EventBinaryDeserializer;
+import com.event.serialization.EventBinarySerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares record size and ns/op of the JSON serializer used by {@code KafkaConfig} against the binary codec.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=SerializationBenchmark}
+ */
+@Tag("benchmark")
+class SerializationBenchmark {
+
+	private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 2_000_000);
+
+	private static final Event EVENT = Event.builder().eventId("game-123456").live(true).currentScore("2-1").build();
+
+	// sink so the JIT cannot drop the work
+	private long blackhole;
+
+	@Test
+	void compareJsonAndBinary() {
+		JsonSerializer<Event> jsonSerializer = new JsonSerializer<>();
+		JsonDeserializer<Event> jsonDeserializer = new JsonDeserializer<>(Event.class, false);
+
+		Result json = run(jsonSerializer, jsonDeserializer);
+		Result binary = run(new EventBinarySerializer(), new EventBinaryDeserializer());
+
+		System.out.printf("%n%-10s %10s %14s %14s%n", "format", "bytes", "serialize", "deserialize");
+		System.out.printf("%-10s %10d %11.1fns %11.1fns%n", "json", json.bytes, json.serializeNanos, json.deserializeNanos);
+		System.out.printf("%-10s %10d %11.1fns %11.1fns%n", "binary", binary.bytes, binary.serializeNanos, binary.deserializeNanos);
+		assertThat(blackhole).isPositive();
+	}
+
+	private Result run(Serializer<Event> serializer, Deserializer<Event> deserializer) {
+		RecordHeaders headers = new RecordHeaders();
+		byte[] bytes = serializer.serialize("topic", headers, EVENT);
+
+		// warm up both paths before timing
+		for (int i = 0; i < ITERATIONS / 4; i++) {
+			blackhole += serializer.serialize("topic", new RecordHeaders(), EVENT).length;
+			blackhole += deserializer.deserialize("topic", headers, bytes).getCurrentScore().length();
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			blackhole += serializer.serialize("topic", new RecordHeaders(), EVENT).length;
+		}
+		double serializeNanos = (System.nanoTime() - start) / (double) ITERATIONS;
+
+		start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			blackhole += deserializer.deserialize("topic", headers, bytes).getCurrentScore().length();
+		}
+		double deserializeNanos = (System.nanoTime() - start) / (double) ITERATIONS;
+
+		return new Result(bytes.length, serializeNanos, deserializeNanos);
+	}
+
+	private record Result(int bytes, double serializeNanos, double deserializeNanos) {
+	}
+}
@@ -0,0 +1,232 @@
+package com.event.benchmark;
+
+import com.event.journal.EventJournal;
+import com.event.model.Event;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Restart of a pod with {@value #EVENTS} live events in its journal, for the jar of the standard build against the
+ * {@code startup} profile build: time from launching the JVM to the "Started" log line, when the app is ready, and
+ * to the first poll reaching the upstream, which a stub in this JVM answers. The restored events poll every second
+ * with no initial delay, so the first poll is not held back by the schedule.
+ * <p>
+ * Build the artifacts first, then run with
+ * {@code mvn -Pstartup package -DskipTests && mvn test -Pbenchmark -Dtest=StartupBenchmark [-Dbenchmark.startup.runs=5]}
+ */
+@Tag("benchmark")
+@EmbeddedKafka(partitions = 1, topics = "live-sports-events")
+class StartupBenchmark {
+
+	private static final int EVENTS = 100;
+	private static final int RUNS = Integer.getInteger("benchmark.startup.runs", 3);
+	private static final long TIMEOUT_SECONDS = 180;
+
+	private static final Path TARGET = Path.of("target");
+	private static final Path STARTUP = TARGET.resolve("startup");
+
+	private final AtomicLong firstPollNanos = new AtomicLong();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void compareStandardAndOptimizedStartup(EmbeddedKafkaBroker broker) throws Exception {
+		Path fatJar = findJar(TARGET);
+		Path extractedJar = findJar(STARTUP);
+		Path archive = STARTUP.resolve("application.jsa").toAbsolutePath();
+		if (!Files.exists(archive)) {
+			throw new IllegalStateException("No CDS archive in " + STARTUP + ", build it with mvn -Pstartup package -DskipTests");
+		}
+		List<Variant> variants = List.of(
+				new Variant("fat jar", fatJar, List.of()),
+				new Variant("extracted", extractedJar, List.of()),
+				new Variant("extracted + AOT", extractedJar, List.of("-Dspring.aot.enabled=true")),
+				new Variant("extracted + AOT + CDS", extractedJar,
+						List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive)));
+
+		HttpServer upstream = startUpstream();
+		try {
+			// fills the page cache with the jars, not reported
+			launch(variants.get(0), broker, upstream);
+			System.out.printf("%n%-24s %16s %16s%n", EVENTS + " journaled events", "ready ms", "first poll ms");
+			for (Variant variant : variants) {
+				long[] ready = new long[RUNS];
+				long[] firstPoll = new long[RUNS];
+				for (int run = 0; run < RUNS; run++) {
+					long[] startup = launch(variant, broker, upstream);
+					ready[run] = startup[0];
+					firstPoll[run] = startup[1];
+				}
+				System.out.printf("%-24s %16d %16d%n", variant.name(), median(ready), median(firstPoll));
+			}
+		} finally {
+			upstream.stop(0);
+		}
+	}
+
+	/**
+	 * @return millis from the launch to the app being ready and to its first poll
+	 */
+	private long[] launch(Variant variant, EmbeddedKafkaBroker broker, HttpServer upstream) throws Exception {
+		Path journal = Files.createTempDirectory(directory, "journal");
+		seedJournal(journal);
+		String upstreamUrl = "http://localhost:" + upstream.getAddress().getPort() + "/mock-api/events";
+
+		List<String> command = new ArrayList<>();
+		command.add(ProcessHandle.current().info().command().orElse("java"));
+		command.addAll(variant.jvmArgs());
+		command.addAll(List.of("-jar", variant.jar().getFileName().toString(),
+				"--server.port=" + freePort(),
+				"--kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+				"--event.journal.dir=" + journal.toAbsolutePath(),
+				"--event.journal.log-size-mb=8",
+				"--event.initial.delay=0",
+				"--event.api.mock-endpoint=" + upstreamUrl + "/{eventId}",
+				"--event.api.mock-batch-endpoint=" + upstreamUrl,
+				"--logging.level.com.event=INFO"));
+
+		firstPollNanos.set(0);
+		CountDownLatch ready = new CountDownLatch(1);
+		AtomicLong readyNanos = new AtomicLong();
+		long start = System.nanoTime();
+		// from the jar's directory, the class path has to match the one the CDS archive was trained with
+		Process process = new ProcessBuilder(command).directory(variant.jar().toAbsolutePath().getParent().toFile())
+				.redirectErrorStream(true).start();
+		Thread.ofPlatform().daemon().start(() -> {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (ready.getCount() > 0 && line.contains("Started EventMonitoringApplication")) {
+						readyNanos.set(System.nanoTime());
+						ready.countDown();
+					}
+				}
+			} catch (IOException e) {
+				// the process was stopped
+			}
+		});
+		try {
+			if (!ready.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new IllegalStateException(variant.name() + " did not start within " + TIMEOUT_SECONDS + "s");
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+			while (firstPollNanos.get() == 0) {
+				if (System.nanoTime() > deadline || !process.isAlive()) {
+					throw new IllegalStateException(variant.name() + " never polled the upstream");
+				}
+				TimeUnit.MILLISECONDS.sleep(5);
+			}
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+		return new long[]{
+				TimeUnit.NANOSECONDS.toMillis(readyNanos.get() - start),
+				TimeUnit.NANOSECONDS.toMillis(firstPollNanos.get() - start)};
+	}
+
+	private static void seedJournal(Path journalDirectory) {
+		Map<String, Event> events = new ConcurrentHashMap<>();
+		EventJournal journal = new EventJournal(true, journalDirectory, 8);
+		journal.open(events::values);
+		for (int i = 0; i < EVENTS; i++) {
+			Event event = Event.builder().eventId("event-" + i).live(true).currentScore("0-0").pollingIntervalMillis(1_000L).build();
+			events.put(event.getEventId(), event);
+			journal.record(event.getEventId(), events::get);
+		}
+		journal.close();
+	}
+
+	/**
+	 * Answers single and batch fetches like the mock api, with an unchanged score, and notes the first request.
+	 */
+	private HttpServer startUpstream() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/mock-api/events", exchange -> {
+			firstPollNanos.compareAndSet(0, System.nanoTime());
+			String path = exchange.getRequestURI().getPath();
+			String body;
+			if (path.length() > "/mock-api/events/".length()) {
+				body = eventJson(path.substring("/mock-api/events/".length()));
+			} else {
+				body = Arrays.stream(idsOf(exchange)).map(StartupBenchmark::eventJson).collect(Collectors.joining(",", "[", "]"));
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	private static String[] idsOf(HttpExchange exchange) {
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) {
+			return new String[0];
+		}
+		// one ids parameter per event
+		return Arrays.stream(query.split("&"))
+				.filter(param -> param.startsWith("ids="))
+				.map(param -> URLDecoder.decode(param.substring("ids=".length()), StandardCharsets.UTF_8))
+				.toArray(String[]::new);
+	}
+
+	private static String eventJson(String eventId) {
+		return "{\"eventId\":\"" + eventId + "\",\"currentScore\":\"0-0\"}";
+	}
+
+	private static Path findJar(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().matches("event-monitoring-.*\\.jar"))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("No jar in " + directory + ", build it with mvn -Pstartup package -DskipTests"));
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private record Variant(String name, Path jar, List<String> jvmArgs) {
+	}
+}
@@ -0,0 +1,121 @@
+package com.event.benchmark;
+
+import com.event.config.AppConfig;
+import com.event.controller.MockApiController;
+import com.event.external.ExternalApiClientImpl;
+import com.event.external.HostConcurrencyLimiter;
+import com.event.external.UpstreamCircuitBreaker;
+import com.event.external.UpstreamRateLimiter;
+import com.event.metrics.EventMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares fetch throughput against {@link MockApiController} of the previous bare {@code new RestTemplate()}
+ * with the pooled JDK http client over HTTP/1.1 and HTTP/2 (h2c), all called from virtual threads
+ * through {@link ExternalApiClientImpl} and its per-host limiter.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=UpstreamHttpClientBenchmark [-Dbenchmark.requests=20000]}
+ */
+@Tag("benchmark")
+@SpringBootTest(classes = UpstreamHttpClientBenchmark.MockApiApplication.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"server.http2.enabled=true", "logging.level.com.event=WARN"})
+class UpstreamHttpClientBenchmark {
+
+	private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+	private static final int WARMUP = 2_000;
+	private static final int CONCURRENCY = 64;
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void compareHttpClients() throws Exception {
+		Map<String, RestTemplate> clients = Map.of(
+				"bare RestTemplate", new RestTemplate(),
+				"jdk pooled http/1.1", pooledRestTemplate(HttpClient.Version.HTTP_1_1),
+				"jdk pooled http/2", pooledRestTemplate(HttpClient.Version.HTTP_2));
+
+		System.out.printf("%n%-22s %12s %12s %12s%n", "fetch (" + REQUESTS + ")", "req/s", "p50", "p99");
+		for (String name : List.of("bare RestTemplate", "jdk pooled http/1.1", "jdk pooled http/2")) {
+			ExternalApiClientImpl client = externalApiClient(clients.get(name));
+			run(client, WARMUP);
+			run(client, REQUESTS).print(name);
+		}
+	}
+
+	private RestTemplate pooledRestTemplate(HttpClient.Version version) {
+		AppConfig appConfig = new AppConfig();
+		ReflectionTestUtils.setField(appConfig, "httpVersion", version);
+		return appConfig.restTemplate(appConfig.upstreamHttpClient());
+	}
+
+	private ExternalApiClientImpl externalApiClient(RestTemplate restTemplate) {
+		HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(CONCURRENCY, Map.of(), 10_000, 5_000);
+		UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(true, 20, 10, 50, 2_000, 80, 10_000, 3);
+		ExternalApiClientImpl client = new ExternalApiClientImpl(restTemplate,
+				new UpstreamRateLimiter(0, 0, Map.of(), 1), limiter, circuitBreaker,
+				new EventMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(client, "apiMockUrl", "http://localhost:" + port + "/mock-api/events/{eventId}");
+		return client;
+	}
+
+	private Result run(ExternalApiClientImpl client, int requests) throws Exception {
+		long[] latencies = new long[requests];
+		List<Future<?>> workers = new ArrayList<>();
+		long start = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int t = 0; t < CONCURRENCY; t++) {
+				int thread = t;
+				workers.add(executor.submit(() -> {
+					for (int i = thread; i < requests; i += CONCURRENCY) {
+						long sent = System.nanoTime();
+						client.fetchEventData("event-" + (i % 1000));
+						latencies[i] = System.nanoTime() - sent;
+					}
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		}
+		return new Result(requests, System.nanoTime() - start, latencies);
+	}
+
+	private record Result(int requests, long elapsedNanos, long[] latencies) {
+
+		private void print(String name) {
+			long[] sorted = latencies.clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-22s %12.0f %10.2fms %10.2fms%n", name,
+					requests / (elapsedNanos / 1e9),
+					sorted[sorted.length / 2] / 1e6,
+					sorted[(int) (sorted.length * 0.99)] / 1e6);
+		}
+	}
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration(exclude = KafkaAutoConfiguration.class)
+	@Import(MockApiController.class)
+	static class MockApiApplication {
+	}
+}
@@ -0,0 +1,191 @@
+package com.event.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.event.external.ExternalApiClient;
+import com.event.external.UpstreamRateLimiter;
+import com.event.journal.EventJournal;
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.model.EventPriority;
+import com.event.model.EventStatusRequest;
+import com.event.publisher.MessagePublisher;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.AdaptiveIntervalPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.scheduler.HashedWheelPollingEngine;
+import com.event.service.EventServiceImpl;
+import com.event.state.MapEventStore;
+import com.event.stream.EventUpdateBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Shape of the upstream request rate after a kickoff: {@code benchmark.events} events started at the same moment,
+ * one {@code updateEventStatus} call each and as one batch, then polled by the real wheel on a fixed
+ * {@value #INTERVAL_SECONDS}s interval. Upstream requests and polled events are counted per {@value #WINDOW_MILLIS}ms
+ * window over {@value #PERIODS} intervals after the first one, a flat rate has a peak close to the mean.
+ * The last run also sends every request through an {@link UpstreamRateLimiter} of {@value #RATE_LIMIT} per second.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=UpstreamRateBenchmark [-Dbenchmark.events=10000]}
+ */
+@Tag("benchmark")
+class UpstreamRateBenchmark {
+
+	private static final int EVENTS = Integer.getInteger("benchmark.events", 10_000);
+	private static final int INTERVAL_SECONDS = 2;
+	private static final int PERIODS = 3;
+	private static final int WINDOW_MILLIS = 100;
+	private static final int RATE_LIMIT = 200;
+
+	@Test
+	void compareKickoffRates() throws InterruptedException {
+		((Logger) LoggerFactory.getLogger("com.event")).setLevel(Level.WARN);
+		System.out.printf("%n%-24s %14s %14s %14s %14s%n", EVENTS + " events", "requests/win", "peak requests",
+				"events/win", "peak events");
+		Consumer<EventServiceImpl> oneStartPerEvent = service -> {
+			for (int i = 0; i < EVENTS; i++) {
+				service.updateEventStatus("event-" + i, true);
+			}
+		};
+		run("one start per event", new CountingApiClient(null), oneStartPerEvent);
+		run("one batch", new CountingApiClient(null), service -> {
+			List<EventStatusRequest> requests = new ArrayList<>(EVENTS);
+			for (int i = 0; i < EVENTS; i++) {
+				EventStatusRequest request = new EventStatusRequest();
+				request.setEventId("event-" + i);
+				request.setStatus(true);
+				requests.add(request);
+			}
+			service.updateEventStatuses(requests);
+		});
+		run("rate limited", new CountingApiClient(new UpstreamRateLimiter(0, RATE_LIMIT, Map.of(), 5)),
+				oneStartPerEvent);
+	}
+
+	private void run(String name, CountingApiClient client, Consumer<EventServiceImpl> kickoff)
+			throws InterruptedException {
+		HashedWheelPollingEngine pollingEngine = new HashedWheelPollingEngine(10, 1024);
+		EventMetrics eventMetrics = new EventMetrics(new SimpleMeterRegistry());
+		EventServiceImpl service = new EventServiceImpl(
+				new DeadlineDispatcher(Runnable::run, 64, 50, Map.of(), Set.of(EventPriority.LOW), eventMetrics), pollingEngine,
+				new AdaptiveIntervalPolicy(false, INTERVAL_SECONDS, INTERVAL_SECONDS, INTERVAL_SECONDS, 1.5), client,
+				new IdlePublisher(), new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 10),
+				new EventJournal(false, Path.of("unused"), 64), new EventUpdateBroadcaster(256, 10_000, 1_800_000),
+				new MapEventStore(), eventMetrics);
+		ReflectionTestUtils.setField(service, "initialDelaySeconds", 1L);
+		ReflectionTestUtils.invokeMethod(service, "startPolling");
+
+		kickoff.accept(service);
+		// measured from the end of the first interval, every event has been polled once
+		TimeUnit.SECONDS.sleep(1 + INTERVAL_SECONDS);
+		client.startCounting();
+		TimeUnit.SECONDS.sleep((long) PERIODS * INTERVAL_SECONDS);
+		pollingEngine.stop();
+
+		System.out.printf("%-24s %14.1f %14d %14.1f %14d%n", name, client.requests.mean(), client.requests.peak(),
+				client.events.mean(), client.events.peak());
+	}
+
+	private static class CountingApiClient implements ExternalApiClient {
+
+		private final UpstreamRateLimiter rateLimiter;
+		private final Windows requests = new Windows(PERIODS * INTERVAL_SECONDS * 1000 / WINDOW_MILLIS);
+		private final Windows events = new Windows(PERIODS * INTERVAL_SECONDS * 1000 / WINDOW_MILLIS);
+		private volatile long startNanos;
+
+		CountingApiClient(UpstreamRateLimiter rateLimiter) {
+			this.rateLimiter = rateLimiter;
+		}
+
+		void startCounting() {
+			startNanos = System.nanoTime();
+		}
+
+		@Override
+		public Event fetchEventData(String eventId) {
+			count(1);
+			return Event.builder().eventId(eventId).live(true).currentScore("0-0").build();
+		}
+
+		@Override
+		public Map<String, Event> fetchEventsData(Collection<String> eventIds) {
+			count(eventIds.size());
+			Map<String, Event> updates = new HashMap<>();
+			for (String eventId : eventIds) {
+				updates.put(eventId, Event.builder().eventId(eventId).live(true).currentScore("0-0").build());
+			}
+			return updates;
+		}
+
+		private void count(int polled) {
+			if (rateLimiter != null) {
+				rateLimiter.acquire("upstream:8080");
+			}
+			if (startNanos == 0) {
+				return;
+			}
+			int window = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) / WINDOW_MILLIS;
+			requests.add(window, 1);
+			events.add(window, polled);
+		}
+	}
+
+	private static class Windows {
+
+		private final AtomicLongArray counts;
+
+		Windows(int windows) {
+			counts = new AtomicLongArray(windows);
+		}
+
+		void add(int window, long count) {
+			if (window < counts.length()) {
+				counts.addAndGet(window, count);
+			}
+		}
+
+		double mean() {
+			long total = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				total += counts.get(i);
+			}
+			return (double) total / counts.length();
+		}
+
+		long peak() {
+			long peak = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				peak = Math.max(peak, counts.get(i));
+			}
+			return peak;
+		}
+	}
+
+	private static class IdlePublisher implements MessagePublisher {
+
+		@Override
+		public void publishEventUpdate(Event event) {
+		}
+
+		@Override
+		public CompletableFuture<Void> publishEventUpdateAsync(Event event) {
+			return CompletableFuture.completedFuture(null);
+		}
+	}
+}
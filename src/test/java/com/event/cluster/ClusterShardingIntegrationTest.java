@@ -0,0 +1,128 @@
+package com.event.cluster;
+
+import com.event.EventMonitoringApplication;
+import com.event.model.Event;
+import com.event.service.EventService;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs two application contexts in cluster mode against the embedded broker and checks that every tracked
+ * event is polled by exactly one of them, and that the events of a stopped instance move to the other one.
+ */
+@EmbeddedKafka(partitions = 1, topics = "live-sports-events")
+class ClusterShardingIntegrationTest {
+
+	private static final int CONTROL_PARTITIONS = 6;
+
+	private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		contexts.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void eventsAreSplitAcrossInstancesAndMigrateOnShutdown(EmbeddedKafkaBroker broker) throws Exception {
+		ConfigurableApplicationContext first = startInstance(broker);
+		ConfigurableApplicationContext second = startInstance(broker);
+
+		await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> {
+			Set<Integer> firstPartitions = router(first).getOwnedPartitions();
+			Set<Integer> secondPartitions = router(second).getOwnedPartitions();
+			assertThat(firstPartitions).isNotEmpty();
+			assertThat(secondPartitions).isNotEmpty();
+			assertThat(intersection(firstPartitions, secondPartitions)).isEmpty();
+			assertThat(firstPartitions.size() + secondPartitions.size()).isEqualTo(CONTROL_PARTITIONS);
+		});
+
+		Set<String> eventIds = IntStream.range(0, 20).mapToObj(i -> "cluster-event-" + i).collect(Collectors.toSet());
+		eventIds.forEach(eventId -> router(first).route(eventId, true, null));
+
+		await().atMost(30, TimeUnit.SECONDS).untilAsserted(() -> {
+			Set<String> onFirst = liveEvents(first);
+			Set<String> onSecond = liveEvents(second);
+			assertThat(onFirst).isNotEmpty();
+			assertThat(onSecond).isNotEmpty();
+			assertThat(intersection(onFirst, onSecond)).isEmpty();
+			assertThat(union(onFirst, onSecond)).isEqualTo(eventIds);
+		});
+
+		// a command that does not deserialize must not block the stop written after it to the same partition
+		try (KafkaProducer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+				new StringSerializer(), new StringSerializer())) {
+			producer.send(new ProducerRecord<>("cluster-test-commands", "cluster-event-0", "{not json")).get();
+		}
+		router(second).route("cluster-event-0", false, null);
+		await().atMost(30, TimeUnit.SECONDS).untilAsserted(() ->
+				assertThat(union(liveEvents(first), liveEvents(second))).hasSize(eventIds.size() - 1));
+
+		first.close();
+		contexts.remove(first);
+
+		await().atMost(60, TimeUnit.SECONDS).untilAsserted(() -> {
+			Set<String> expected = new HashSet<>(eventIds);
+			expected.remove("cluster-event-0");
+			assertThat(liveEvents(second)).isEqualTo(expected);
+		});
+	}
+
+	private ConfigurableApplicationContext startInstance(EmbeddedKafkaBroker broker) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(EventMonitoringApplication.class)
+				.profiles("test")
+				// command line arguments, builder properties would be overridden by application.properties
+				// and other tests leave server.port behind as a system property
+				.run("--server.port=0",
+						"--spring.embedded.kafka.brokers=" + broker.getBrokersAsString(),
+						"--event.cluster.enabled=true",
+						"--event.cluster.control-topic=cluster-test-commands",
+						"--event.cluster.control-partitions=" + CONTROL_PARTITIONS,
+						"--event.cluster.group-id=cluster-test",
+						"--event.initial.delay=60",
+						"--logging.level.com.event=INFO");
+		contexts.add(context);
+		return context;
+	}
+
+	private static KafkaTrackingCommandRouter router(ConfigurableApplicationContext context) {
+		return context.getBean(KafkaTrackingCommandRouter.class);
+	}
+
+	private static Set<String> liveEvents(ConfigurableApplicationContext context) {
+		return context.getBean(EventService.class).getAllEvents().values().stream()
+				.filter(Event::isLive)
+				.map(Event::getEventId)
+				.collect(Collectors.toSet());
+	}
+
+	private static <T> Set<T> union(Set<T> first, Set<T> second) {
+		Set<T> union = new HashSet<>(first);
+		union.addAll(second);
+		return union;
+	}
+
+	private static <T> Set<T> intersection(Set<T> first, Set<T> second) {
+		Set<T> intersection = new HashSet<>(first);
+		intersection.retainAll(second);
+		return intersection;
+	}
+}
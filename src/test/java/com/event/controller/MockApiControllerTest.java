@@ -0,0 +1,77 @@
+package com.event.controller;
+
+import com.event.controller.MockApiController.LatencyDistribution;
+import com.event.external.BatchEtag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MockApiControllerTest {
+
+	private final MockApiController controller = new MockApiController();
+
+	@Test
+	void failingUpstreamAnswersServiceUnavailableWithoutServingScores() {
+		ReflectionTestUtils.setField(controller, "errorRate", 1.0);
+
+		assertThat(controller.getEventData("event-1", null).getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(controller.getEventsData(List.of("event-1", "event-2"), null).getStatusCode())
+				.isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(controller.getStats()).containsEntry("errors", 2L).containsEntry("polls", 0L);
+	}
+
+	@Test
+	void timedScoresOnlyMoveOnWithTheClockAndReportWhenTheyChanged() {
+		ReflectionTestUtils.setField(controller, "scoreChangeIntervalMillis", 60_000L);
+		List<Long> gaps = new ArrayList<>();
+		controller.setPollObserver((eventId, sinceLastPollNanos) -> gaps.add(sinceLastPollNanos));
+		long before = System.currentTimeMillis();
+
+		assertThat(controller.getEventData("event-1", null).getBody()).containsEntry("currentScore", "0");
+		// polled again well within the mean interval, the score is almost surely unchanged
+		assertThat(controller.getEventData("event-1", "\"0\"").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		assertThat(controller.getScoreChangedAtMillis("event-1", 0)).isBetween(before, System.currentTimeMillis());
+		assertThat(controller.getScoreChangedAtMillis("event-1", 1)).isEqualTo(-1);
+		assertThat(gaps).hasSize(1).allSatisfy(gap -> assertThat(gap).isNotNegative());
+	}
+
+	@Test
+	void unchangedBatchAnswersNotModifiedToItsEtag() {
+		ReflectionTestUtils.setField(controller, "scoreChangeProbability", 0.0);
+		List<String> ids = List.of("event-1", "event-2");
+
+		ResponseEntity<List<Map<String, String>>> first = controller.getEventsData(ids, null);
+
+		assertThat(first.getBody()).extracting(entry -> entry.get("etag")).containsExactly("\"0\"", "\"0\"");
+		assertThat(first.getHeaders().getETag()).isEqualTo(BatchEtag.of(ids, List.of("\"0\"", "\"0\"")));
+		assertThat(controller.getEventsData(ids, first.getHeaders().getETag()).getStatusCode())
+				.isEqualTo(HttpStatus.NOT_MODIFIED);
+		// another grouping of the same events is a different batch
+		assertThat(controller.getEventsData(ids.reversed(), first.getHeaders().getETag()).getStatusCode())
+				.isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void latencyDistributionsKeepTheirMean() {
+		Random random = new Random(42);
+		for (LatencyDistribution distribution : List.of(LatencyDistribution.FIXED, LatencyDistribution.UNIFORM,
+				LatencyDistribution.EXPONENTIAL, LatencyDistribution.LOG_NORMAL)) {
+			double sum = 0;
+			for (int i = 0; i < 100_000; i++) {
+				sum += distribution.sampleMillis(random, 40, 0.8);
+			}
+			assertThat(sum / 100_000).as(distribution.name()).isCloseTo(40, within(1.0));
+		}
+		assertThat(LatencyDistribution.NONE.sampleMillis(random, 40, 0.8)).isZero();
+	}
+}
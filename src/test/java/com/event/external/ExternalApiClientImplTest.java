@@ -0,0 +1,170 @@
+package com.event.external;
+
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.model.EventPriority;
+import com.event.scheduler.DeadlineDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ExternalApiClientImplTest {
+
+	private static final String URL = "http://upstream/events/event-1";
+	// would split or cut short the ids of a batch request if sent as is
+	private static final String RESERVED_ID = "odd, id&x=#{y} +\"1\"";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private MockRestServiceServer server;
+	private ExternalApiClientImpl client;
+
+	@BeforeEach
+	void setUp() {
+		RestTemplate restTemplate = new RestTemplate();
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+		client = new ExternalApiClientImpl(restTemplate, new UpstreamRateLimiter(0, 0, Map.of(), 1),
+				new HostConcurrencyLimiter(4, Map.of(), 1_000, 500),
+				new UpstreamCircuitBreaker(false, 20, 10, 50, 2_000, 80, 10_000, 3), new EventMetrics(registry));
+		ReflectionTestUtils.setField(client, "apiMockUrl", "http://upstream/events/{eventId}");
+		ReflectionTestUtils.setField(client, "apiMockBatchUrl", "http://upstream/events");
+	}
+
+	@Test
+	void fetchesDueEventsInChunksOfTheBatchSizeWithEncodedIds() {
+		List<List<String>> requested = new ArrayList<>();
+		server.expect(ExpectedCount.times(3), requestTo(startsWith("http://upstream/events?ids=")))
+				.andRespond(request -> {
+					List<String> ids = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().get("ids")
+							.stream().map(id -> UriUtils.decode(id, StandardCharsets.UTF_8)).toList();
+					requested.add(ids);
+					return withSuccess(batchBody(ids), MediaType.APPLICATION_JSON).createResponse(request);
+				});
+		Map<String, Event> fetched = new HashMap<>();
+		DeadlineDispatcher dispatcher = new DeadlineDispatcher(Runnable::run, 64, 2, Map.of(), Set.of(),
+				new EventMetrics(registry));
+		dispatcher.start(eventId -> EventPriority.NORMAL, eventIds -> fetched.putAll(client.fetchEventsData(eventIds)));
+
+		List<String> due = List.of("event-1", RESERVED_ID, "gone", "partial", "event-2");
+		dispatcher.dispatch(due, System.nanoTime());
+
+		// chunks of the batch size, every id arrives whole
+		assertThat(requested).extracting(List::size).containsExactlyInAnyOrder(2, 2, 1);
+		assertThat(requested.stream().flatMap(List::stream)).containsExactlyInAnyOrderElementsOf(due);
+		assertThat(fetched).containsOnlyKeys("event-1", RESERVED_ID, "event-2");
+		assertThat(fetched.get(RESERVED_ID).getCurrentScore()).isEqualTo("1-0");
+		server.verify();
+	}
+
+	@Test
+	void sendsEtagOfPreviousResponseAndReturnsNullWhenNotModified() {
+		server.expect(requestTo(URL))
+				.andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+				.andRespond(withSuccess(body("3"), MediaType.APPLICATION_JSON).headers(etag("\"3\"")));
+		server.expect(requestTo(URL))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				.andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(etag("\"3\"")));
+		server.expect(requestTo(URL))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				.andRespond(withSuccess(body("4"), MediaType.APPLICATION_JSON).headers(etag("\"4\"")));
+
+		Event first = client.fetchEventData("event-1");
+		Event notModified = client.fetchEventData("event-1");
+		Event changed = client.fetchEventData("event-1");
+
+		assertThat(first.getCurrentScore()).isEqualTo("3");
+		assertThat(notModified).isNull();
+		assertThat(changed.getCurrentScore()).isEqualTo("4");
+		assertThat(registry.get("event.upstream.throttle").timer().count()).isEqualTo(3);
+		assertThat(registry.get("event.upstream.fetch").tags("type", "single", "outcome", "success").timer().count())
+				.isEqualTo(3);
+		server.verify();
+	}
+
+	@Test
+	void batchFetchIsConditionalOnTheEtagsOfAllItsEvents() {
+		String url = "http://upstream/events?ids=event-1&ids=event-2";
+		server.expect(requestTo(url))
+				.andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+				.andRespond(withSuccess("[{\"eventId\":\"event-1\",\"currentScore\":\"3\",\"etag\":\"\\\"3\\\"\"},"
+						+ "{\"eventId\":\"event-2\",\"currentScore\":\"1\",\"etag\":\"\\\"1\\\"\"}]", MediaType.APPLICATION_JSON));
+		server.expect(requestTo(url))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, BatchEtag.of(List.of("event-1", "event-2"), List.of("\"3\"", "\"1\""))))
+				.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+		// the ETags of a batch response validate single fetches as well
+		server.expect(requestTo(URL))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+				.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+		Map<String, Event> first = client.fetchEventsData(List.of("event-1", "event-2"));
+		Map<String, Event> notModified = client.fetchEventsData(List.of("event-1", "event-2"));
+
+		assertThat(first.get("event-1").getCurrentScore()).isEqualTo("3");
+		assertThat(first.get("event-2").getCurrentScore()).isEqualTo("1");
+		assertThat(notModified).containsOnlyKeys("event-1", "event-2").allSatisfy((eventId, event) -> assertThat(event).isNull());
+		assertThat(client.fetchEventData("event-1")).isNull();
+		server.verify();
+	}
+
+	@Test
+	void forgetDropsTheValidator() {
+		server.expect(requestTo(URL))
+				.andRespond(withSuccess(body("3"), MediaType.APPLICATION_JSON).headers(etag("\"3\"")));
+		server.expect(requestTo(URL))
+				.andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+				.andRespond(withSuccess(body("3"), MediaType.APPLICATION_JSON));
+
+		client.fetchEventData("event-1");
+		client.forget("event-1");
+
+		assertThat(client.fetchEventData("event-1").getCurrentScore()).isEqualTo("3");
+		server.verify();
+	}
+
+	private static String body(String score) {
+		return "{\"eventId\":\"event-1\",\"currentScore\":\"" + score + "\"}";
+	}
+
+	/**
+	 * Leaves out "gone" and answers "partial" without a score, like a partial response of the upstream.
+	 */
+	private static String batchBody(List<String> ids) {
+		return ids.stream()
+				.filter(id -> !id.equals("gone"))
+				.map(id -> id.equals("partial")
+						? "{\"eventId\":\"partial\"}"
+						: "{\"eventId\":\"" + id.replace("\"", "\\\"") + "\",\"currentScore\":\"1-0\"}")
+				.collect(Collectors.joining(",", "[", "]"));
+	}
+
+	private static HttpHeaders etag(String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		return headers;
+	}
+}
@@ -0,0 +1,52 @@
+package com.event.external;
+
+import com.event.external.HostConcurrencyLimiter.PermitTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HostConcurrencyLimiterTest {
+
+	private static final String HOST = "localhost:8080";
+
+	/**
+	 * A 1500ms call with a 1000ms read timeout waits at most 500ms for a permit.
+	 */
+	@Test
+	void permitWaitGetsTheTotalTimeoutMinusTheReadTimeout() throws Exception {
+		HostConcurrencyLimiter limiter = new HostConcurrencyLimiter(1, Map.of(), 1_500, 1_000);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		Thread holder = Thread.ofVirtual().start(() -> limiter.execute(HOST, () -> {
+			holding.countDown();
+			try {
+				return done.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}));
+		assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> limiter.execute(HOST, () -> "late")).isInstanceOf(PermitTimeoutException.class);
+		long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(waitedMillis).isBetween(450L, 1_000L);
+		assertThat(limiter.utilization().get(HOST)).containsEntry("rejected", 1L).containsEntry("calls", 1L);
+		done.countDown();
+		holder.join();
+		assertThat(limiter.execute(HOST, () -> "free")).isEqualTo("free");
+	}
+
+	@Test
+	void rejectsATotalTimeoutBelowTheReadTimeout() {
+		assertThatThrownBy(() -> new HostConcurrencyLimiter(1, Map.of(), 1_000, 1_500))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,209 @@
+package com.event.external;
+
+import com.event.external.HostConcurrencyLimiter.PermitTimeoutException;
+import com.event.external.UpstreamCircuitBreaker.CircuitOpenException;
+import com.event.external.UpstreamCircuitBreaker.State;
+import com.event.metrics.EventMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class UpstreamCircuitBreakerTest {
+
+	private static final String HOST = "upstream:8080";
+
+	// window of 4 calls, opens at 50% failures or 50% slow calls over 100ms, stays open 100ms, 2 trials
+	private final UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(true, 4, 4, 50, 100, 50, 100, 2);
+
+	@Test
+	void opensOnFailureRateAndFailsFast() {
+		succeed();
+		succeed();
+		fail();
+		assertThat(breaker.getState(HOST)).isEqualTo(State.CLOSED);
+		fail();
+		assertThat(breaker.getState(HOST)).isEqualTo(State.OPEN);
+
+		AtomicInteger calls = new AtomicInteger();
+		assertThatThrownBy(() -> breaker.execute(HOST, calls::incrementAndGet)).isInstanceOf(CircuitOpenException.class);
+		assertThat(calls).hasValue(0);
+		assertThat(breaker.status().get(HOST)).containsEntry("notPermitted", 1L);
+	}
+
+	@Test
+	void opensOnSlowCallRate() {
+		succeed();
+		succeed();
+		slow();
+		slow();
+		assertThat(breaker.getState(HOST)).isEqualTo(State.OPEN);
+	}
+
+	@Test
+	void clientErrorsDoNotCountAsFailures() {
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> breaker.execute(HOST, () -> {
+				throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+			})).isInstanceOf(HttpClientErrorException.class);
+		}
+		assertThat(breaker.getState(HOST)).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void halfOpenTrialsCloseOrReopen() {
+		tripOpen();
+		await().atMost(1, TimeUnit.SECONDS).pollInterval(10, TimeUnit.MILLISECONDS).until(() -> {
+			try {
+				fail();
+			} catch (CircuitOpenException e) {
+				return false;
+			}
+			return true;
+		});
+		// the failed trial opens the breaker again
+		assertThat(breaker.getState(HOST)).isEqualTo(State.OPEN);
+
+		await().atMost(1, TimeUnit.SECONDS).pollInterval(10, TimeUnit.MILLISECONDS).until(() -> {
+			try {
+				succeed();
+			} catch (CircuitOpenException e) {
+				return false;
+			}
+			return true;
+		});
+		assertThat(breaker.getState(HOST)).isEqualTo(State.HALF_OPEN);
+		succeed();
+		assertThat(breaker.getState(HOST)).isEqualTo(State.CLOSED);
+	}
+
+	@Test
+	void releasedTrialGoesToTheNextCall() {
+		tripOpen();
+		await().atMost(1, TimeUnit.SECONDS).pollInterval(10, TimeUnit.MILLISECONDS).until(() -> {
+			try {
+				breaker.release(breaker.tryAcquirePermission(HOST));
+			} catch (CircuitOpenException e) {
+				return false;
+			}
+			return true;
+		});
+		assertThat(breaker.getState(HOST)).isEqualTo(State.HALF_OPEN);
+
+		// both trials are still available after the released one
+		succeed();
+		succeed();
+		assertThat(breaker.getState(HOST)).isEqualTo(State.CLOSED);
+	}
+
+	/**
+	 * An open breaker fails the call before it takes a rate limit slot, the calls that follow are not deferred
+	 * behind rejected ones.
+	 */
+	@Test
+	void openBreakerRejectsBeforeTheRateLimit() {
+		UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(0, 1, Map.of(), 1);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ExternalApiClientImpl client = new ExternalApiClientImpl(new RestTemplate(), rateLimiter,
+				new HostConcurrencyLimiter(1, Map.of(), 60, 50), breaker, new EventMetrics(registry));
+		ReflectionTestUtils.setField(client, "apiMockUrl", "http://" + HOST + "/events/{eventId}");
+		tripOpen();
+
+		for (int i = 0; i < 5; i++) {
+			assertThatThrownBy(() -> client.fetchEventData("event-1")).isInstanceOf(CircuitOpenException.class);
+		}
+
+		assertThat(rateLimiter.status()).doesNotContainKey(HOST);
+		assertThat(registry.get("event.upstream.fetch").tags("type", "single", "outcome", "rejected").timer().count())
+				.isEqualTo(5);
+	}
+
+	/**
+	 * Calls that time out waiting for a permit of the bulkhead never reach the upstream, they must not open its
+	 * breaker however many of them there are.
+	 */
+	@Test
+	void saturatedBulkheadDoesNotOpenTheBreaker() throws Exception {
+		RestTemplate restTemplate = new RestTemplate();
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		CountDownLatch release = new CountDownLatch(1);
+		server.expect(request -> {
+		}).andRespond(request -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return withSuccess("{\"eventId\":\"event-1\",\"currentScore\":\"0\"}", MediaType.APPLICATION_JSON)
+					.createResponse(request);
+		});
+		// one permit, callers give up after waiting 10ms for it
+		HostConcurrencyLimiter bulkhead = new HostConcurrencyLimiter(1, Map.of(), 60, 50);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ExternalApiClientImpl client = new ExternalApiClientImpl(restTemplate, new UpstreamRateLimiter(0, 0, Map.of(), 1),
+				bulkhead, breaker, new EventMetrics(registry));
+		ReflectionTestUtils.setField(client, "apiMockUrl", "http://" + HOST + "/events/{eventId}");
+
+		Thread holder = Thread.ofVirtual().start(() -> client.fetchEventData("event-1"));
+		await().atMost(1, TimeUnit.SECONDS).until(() -> bulkhead.inFlight().getOrDefault(HOST, 0) == 1);
+		for (int i = 0; i < 8; i++) {
+			assertThatThrownBy(() -> client.fetchEventData("event-2")).isInstanceOf(PermitTimeoutException.class);
+		}
+
+		assertThat(breaker.getState(HOST)).isEqualTo(State.CLOSED);
+		assertThat(breaker.status().get(HOST)).containsEntry("calls", 0);
+		assertThat(registry.get("event.upstream.fetch").tags("type", "single", "outcome", "saturated").timer().count())
+				.isEqualTo(8);
+		release.countDown();
+		holder.join();
+		assertThat(breaker.status().get(HOST)).containsEntry("calls", 1).containsEntry("failureRate", 0.0);
+		server.verify();
+	}
+
+	private void tripOpen() {
+		for (int i = 0; i < 4; i++) {
+			fail();
+		}
+		assertThat(breaker.getState(HOST)).isEqualTo(State.OPEN);
+	}
+
+	private void succeed() {
+		breaker.execute(HOST, () -> "ok");
+	}
+
+	private void slow() {
+		breaker.execute(HOST, () -> {
+			try {
+				Thread.sleep(120);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "ok";
+		});
+	}
+
+	private void fail() {
+		try {
+			breaker.execute(HOST, () -> {
+				throw new ResourceAccessException("connection refused");
+			});
+		} catch (ResourceAccessException e) {
+			// expected
+		}
+	}
+}
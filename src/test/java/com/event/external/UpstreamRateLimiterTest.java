@@ -0,0 +1,51 @@
+package com.event.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamRateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void letsTheBurstThroughThenDefersToTheRate() {
+		// 10 per second per host, 3 back to back
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(0, 10, Map.of(), 3);
+
+		assertThat(limiter.reserveHost("upstream:8080")).isZero();
+		assertThat(limiter.reserveHost("upstream:8080")).isZero();
+		assertThat(limiter.reserveHost("upstream:8080")).isZero();
+		// every further call gets the next 100ms slot, none is dropped
+		assertThat(limiter.reserveHost("upstream:8080")).isBetween(SECOND / 10 - SECOND / 20, SECOND / 10);
+		assertThat(limiter.reserveHost("upstream:8080")).isBetween(2 * SECOND / 10 - SECOND / 20, 2 * SECOND / 10);
+		assertThat(limiter.status().get("upstream:8080")).containsEntry("calls", 5L).containsEntry("deferred", 2L);
+	}
+
+	@Test
+	void hostsHaveTheirOwnBucketsUnderTheGlobalOne() {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(10, 1, Map.of("fast:8080", 100), 1);
+
+		assertThat(limiter.reserveHost("slow:8080")).isZero();
+		assertThat(limiter.reserveGlobal()).isZero();
+		// the second slow call waits for its host slot and has not booked a global one yet
+		assertThat(limiter.reserveHost("slow:8080")).isBetween(SECOND - SECOND / 20, SECOND);
+		// another host is not held up by the slow one, only by the global rate of 10 per second
+		assertThat(limiter.reserveHost("fast:8080")).isZero();
+		assertThat(limiter.reserveGlobal()).isBetween(SECOND / 10 - SECOND / 20, SECOND / 10);
+		assertThat(limiter.status()).containsKeys("*", "slow:8080", "fast:8080");
+	}
+
+	@Test
+	void unlimitedNeverDefers() {
+		UpstreamRateLimiter limiter = new UpstreamRateLimiter(0, 0, Map.of(), 1);
+
+		for (int i = 0; i < 10_000; i++) {
+			assertThat(limiter.acquire("upstream:8080")).isZero();
+		}
+		assertThat(limiter.status().get("upstream:8080")).containsEntry("deferred", 0L);
+	}
+}
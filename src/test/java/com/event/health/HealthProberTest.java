@@ -0,0 +1,118 @@
+package com.event.health;
+
+import com.event.external.HostConcurrencyLimiter;
+import com.event.external.UpstreamCircuitBreaker;
+import com.event.external.UpstreamRateLimiter;
+import com.event.metrics.EventMetrics;
+import com.event.metrics.EventMetrics.FetchType;
+import com.event.metrics.EventMetrics.Outcome;
+import com.event.model.Event;
+import com.event.publisher.PublishPolicy;
+import com.event.scheduler.DeadlineDispatcher;
+import com.event.stream.EventUpdateBroadcaster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HealthProberTest {
+
+	private final ApplicationAvailabilityBean availability = new ApplicationAvailabilityBean();
+	private final EventMetrics eventMetrics = new EventMetrics(new SimpleMeterRegistry());
+	private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+	private final HealthProber prober = newProber();
+
+	@AfterEach
+	void tearDown() {
+		prober.close();
+		taskScheduler.shutdown();
+	}
+
+	@Test
+	void refusesWhileSaturatedAndAcceptsOnceClear() {
+		ready();
+
+		assertThat(prober.updateReadiness(List.of("producer buffer 95% full"))).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+		// still saturated, nothing to publish
+		assertThat(prober.updateReadiness(List.of("1200 overdue scheduler tasks"))).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+
+		assertThat(prober.updateReadiness(List.of())).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+	}
+
+	@Test
+	void keepsARefusalItDidNotMake() {
+		ready();
+		// e.g. the graceful shutdown
+		availability.onApplicationEvent(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+
+		assertThat(prober.updateReadiness(List.of())).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+		assertThat(prober.updateReadiness(List.of("producer buffer 95% full"))).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+		assertThat(prober.updateReadiness(List.of())).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.REFUSING_TRAFFIC);
+	}
+
+	/**
+	 * Kafka and the upstream are shared by every replica, their failure is reported without refusing readiness.
+	 */
+	@Test
+	void degradedSharedDependenciesLeaveReadinessAlone() {
+		ready();
+		for (int i = 0; i < 30; i++) {
+			eventMetrics.recordFetch(FetchType.SINGLE, Outcome.ERROR, 1_000_000);
+		}
+
+		prober.refresh();
+
+		Map<String, Object> health = prober.snapshot();
+		assertThat(health.get("kafka")).isEqualTo("DOWN");
+		assertThat(health.get("saturated")).asList().isEmpty();
+		assertThat(health.get("degraded")).asList().containsExactly("kafka is down", "upstream error rate 100%");
+		assertThat(health.get("readiness")).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+	}
+
+	private void ready() {
+		availability.onApplicationEvent(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+	}
+
+	@SuppressWarnings("unchecked")
+	private HealthProber newProber() {
+		// nothing listens there, the Kafka check times out
+		KafkaAdmin kafkaAdmin = new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:1",
+				AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 1_000, AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 500));
+		KafkaTemplate<String, Event> kafkaTemplate = mock(KafkaTemplate.class);
+		when(kafkaTemplate.metrics()).thenReturn(Map.of());
+		taskScheduler.initialize();
+		DeadlineDispatcher pollDispatcher = mock(DeadlineDispatcher.class);
+		when(pollDispatcher.status()).thenReturn(Map.of());
+		PublishPolicy publishPolicy = mock(PublishPolicy.class);
+		when(publishPolicy.getMode()).thenReturn(PublishPolicy.Mode.ON_CHANGE);
+
+		HealthProber healthProber = new HealthProber(kafkaAdmin, kafkaTemplate, taskScheduler, pollDispatcher,
+				publishPolicy, mock(HostConcurrencyLimiter.class), mock(UpstreamCircuitBreaker.class),
+				mock(UpstreamRateLimiter.class), mock(EventUpdateBroadcaster.class), eventMetrics, availability,
+				event -> availability.onApplicationEvent((AvailabilityChangeEvent<?>) event));
+		ReflectionTestUtils.setField(healthProber, "kafkaTimeoutMillis", 200L);
+		ReflectionTestUtils.setField(healthProber, "maxProducerBufferUsage", 0.9);
+		ReflectionTestUtils.setField(healthProber, "maxSchedulerQueued", 1000);
+		ReflectionTestUtils.setField(healthProber, "maxUpstreamErrorRate", 0.5);
+		ReflectionTestUtils.setField(healthProber, "upstreamMinimumCalls", 20L);
+		return healthProber;
+	}
+}
@@ -0,0 +1,147 @@
+package com.event.journal;
+
+import com.event.model.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class EventJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private final Map<String, Event> events = new ConcurrentHashMap<>();
+
+	@Test
+	void recoversLatestStateOfEveryEventFromTheLog() {
+		EventJournal journal = open();
+		track(journal, "event-1", true, null, 10_000L);
+		track(journal, "event-2", true, null, 10_000L);
+		track(journal, "event-1", true, "2-1", 2_000L);
+		track(journal, "event-2", false, null, 10_000L);
+		track(journal, "event-3", true, "0-0", 10_000L);
+		events.remove("event-3");
+		journal.record("event-3", events::get);
+
+		Map<String, Event> recovered = new EventJournal(true, directory, 1).open(List::of);
+
+		assertThat(recovered).containsOnlyKeys("event-1", "event-2");
+		assertThat(recovered.get("event-1").isLive()).isTrue();
+		assertThat(recovered.get("event-1").getCurrentScore()).isEqualTo("2-1");
+		assertThat(recovered.get("event-1").getPollingIntervalMillis()).isEqualTo(2_000L);
+		assertThat(recovered.get("event-2").isLive()).isFalse();
+	}
+
+	@Test
+	void replaysLogOnTopOfSnapshot() {
+		EventJournal journal = open();
+		track(journal, "event-1", true, "0-0", 10_000L);
+		track(journal, "event-2", true, "0-0", 10_000L);
+		journal.snapshot();
+		track(journal, "event-1", true, "1-0", 2_000L);
+
+		Map<String, Event> recovered = new EventJournal(true, directory, 1).open(List::of);
+
+		assertThat(recovered).containsOnlyKeys("event-1", "event-2");
+		assertThat(recovered.get("event-1").getCurrentScore()).isEqualTo("1-0");
+		assertThat(recovered.get("event-2").getCurrentScore()).isEqualTo("0-0");
+	}
+
+	@Test
+	void fullLogIsCompactedIntoASnapshot() {
+		EventJournal journal = open();
+		// 1 MiB logs, every event is rewritten far more often than fits
+		for (int round = 0; round < 200; round++) {
+			for (int i = 0; i < 500; i++) {
+				track(journal, "event-" + i, true, String.valueOf(round), 10_000L);
+			}
+		}
+		journal.close();
+
+		Map<String, Event> recovered = new EventJournal(true, directory, 1).open(List::of);
+
+		assertThat(recovered).hasSize(500);
+		assertThat(recovered.values()).allSatisfy(event -> assertThat(event.getCurrentScore()).isEqualTo("199"));
+	}
+
+	/**
+	 * A poll reads the live state, a stop lands before the poll appends it. The stop must be the last record.
+	 */
+	@Test
+	void stopRacingAPollIsJournaledLast() throws Exception {
+		EventJournal journal = open();
+		track(journal, "event-1", true, "0-0", 10_000L);
+		CountDownLatch pollRead = new CountDownLatch(1);
+		CountDownLatch stopped = new CountDownLatch(1);
+
+		Thread poll = Thread.ofVirtual().start(() -> journal.record("event-1", eventId -> {
+			Event read = events.get(eventId);
+			pollRead.countDown();
+			try {
+				stopped.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return read;
+		}));
+		assertThat(pollRead.await(5, TimeUnit.SECONDS)).isTrue();
+		Thread stop = Thread.ofVirtual().start(() -> track(journal, "event-1", false, "0-0", 10_000L));
+		// the stop waits for the poll's record, it has to read the state after the poll appended
+		await().atMost(5, TimeUnit.SECONDS).until(() -> stop.getState() == Thread.State.WAITING);
+		stopped.countDown();
+		poll.join();
+		stop.join();
+
+		Map<String, Event> recovered = new EventJournal(true, directory, 1).open(List::of);
+
+		assertThat(recovered.get("event-1").isLive()).isFalse();
+	}
+
+	@Test
+	void failedSnapshotStopsTheJournal() throws Exception {
+		EventJournal journal = open();
+		track(journal, "event-1", true, "0-0", 10_000L);
+		// the temporary snapshot file cannot be created
+		Files.createDirectory(directory.resolve(EventJournal.SNAPSHOT_FILE + ".tmp"));
+
+		journal.snapshot();
+
+		assertThat(journal.isEnabled()).isFalse();
+		track(journal, "event-2", true, "0-0", 10_000L);
+		Files.delete(directory.resolve(EventJournal.SNAPSHOT_FILE + ".tmp"));
+		// what was journaled before the failure is still recovered
+		assertThat(new EventJournal(true, directory, 1).open(List::of)).containsOnlyKeys("event-1");
+	}
+
+	@Test
+	void disabledJournalKeepsNothing() {
+		EventJournal journal = new EventJournal(false, directory, 1);
+		assertThat(journal.open(events::values)).isEmpty();
+		track(journal, "event-1", true, null, 10_000L);
+
+		assertThat(directory).isEmptyDirectory();
+	}
+
+	private EventJournal open() {
+		EventJournal journal = new EventJournal(true, directory, 1);
+		assertThat(journal.open(events::values)).isEmpty();
+		return journal;
+	}
+
+	private void track(EventJournal journal, String eventId, boolean live, String score, Long intervalMillis) {
+		events.put(eventId, Event.builder().eventId(eventId).live(live).currentScore(score)
+				.lastUpdated(score == null ? null : Instant.now()).pollingIntervalMillis(intervalMillis).build());
+		journal.record(eventId, events::get);
+	}
+}
@@ -0,0 +1,225 @@
+package com.event.publisher;
+
+import com.event.config.KafkaConfig;
+import com.event.metrics.EventMetrics;
+import com.event.model.Event;
+import com.event.serialization.EventEnvelopeDeserializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.awaitility.Awaitility.await;
+
+@EmbeddedKafka(partitions = 3, topics = {KafkaMessagePublisherTest.TOPIC, KafkaMessagePublisherTest.GROWING_TOPIC})
+class KafkaMessagePublisherTest {
+
+	static final String TOPIC = "publisher-envelope-test";
+	static final String GROWING_TOPIC = "publisher-envelope-growing";
+
+	@Test
+	void packsUpdatesIntoOneEnvelopePerPartition(EmbeddedKafkaBroker broker) throws Exception {
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", broker.getBrokersAsString());
+		KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(kafkaConfig.producerFactory());
+		KafkaTemplate<String, byte[]> envelopeKafkaTemplate = new KafkaTemplate<>(kafkaConfig.envelopeProducerFactory());
+
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, envelopeKafkaTemplate, TOPIC);
+
+		List<Event> events = IntStream.range(0, 30)
+				.mapToObj(i -> Event.builder().eventId("event-" + i).live(true).currentScore(i + "-0").build())
+				.toList();
+		List<CompletableFuture<Void>> published = publisher.publishEventUpdatesAsync(events);
+		assertThat(published).hasSize(events.size());
+		CompletableFuture.allOf(published.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+		// one slot per envelope, released right after the futures complete
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+
+		Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("envelope-test", "false", broker);
+		consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		try (Consumer<String, List<Event>> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+				new StringDeserializer(), new EventEnvelopeDeserializer()).createConsumer()) {
+			consumer.subscribe(List.of(TOPIC));
+			List<ConsumerRecord<String, List<Event>>> records = new ArrayList<>();
+			KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), 3).records(TOPIC).forEach(records::add);
+
+			assertThat(records).hasSize(3);
+			assertThat(records.stream().mapToInt(record -> record.value().size()).sum()).isEqualTo(events.size());
+			// every update lands on the partition a record keyed by its event id would
+			records.forEach(record -> assertThat(record.value()).allSatisfy(event ->
+					assertThat(KafkaMessagePublisher.partitionFor(event.getEventId(), 3)).isEqualTo(record.partition())));
+		}
+		kafkaTemplate.destroy();
+		envelopeKafkaTemplate.destroy();
+	}
+
+	@Test
+	void followsPartitionsAddedToTheTopic(EmbeddedKafkaBroker broker) throws Exception {
+		KafkaConfig kafkaConfig = new KafkaConfig();
+		ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", broker.getBrokersAsString());
+		KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(kafkaConfig.producerFactory());
+		DefaultKafkaProducerFactory<String, byte[]> envelopeProducerFactory =
+				(DefaultKafkaProducerFactory<String, byte[]>) kafkaConfig.envelopeProducerFactory();
+		envelopeProducerFactory.updateConfigs(Map.of(ProducerConfig.METADATA_MAX_AGE_CONFIG, 200));
+		KafkaTemplate<String, byte[]> envelopeKafkaTemplate = new KafkaTemplate<>(envelopeProducerFactory);
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, envelopeKafkaTemplate, GROWING_TOPIC);
+
+		List<Event> events = IntStream.range(0, 30)
+				.mapToObj(i -> Event.builder().eventId("event-" + i).live(true).currentScore(i + "-0").build())
+				.toList();
+		CompletableFuture.allOf(publisher.publishEventUpdatesAsync(events).toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+		try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+			admin.createPartitions(Map.of(GROWING_TOPIC, NewPartitions.increaseTo(5))).all().get(30, TimeUnit.SECONDS);
+		}
+		await().atMost(30, TimeUnit.SECONDS).until(() -> envelopeKafkaTemplate.partitionsFor(GROWING_TOPIC).size() == 5);
+		CompletableFuture.allOf(publisher.publishEventUpdatesAsync(events).toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+		Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("envelope-growing-test", "false", broker);
+		consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+		try (Consumer<String, List<Event>> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+				new StringDeserializer(), new EventEnvelopeDeserializer()).createConsumer()) {
+			consumer.subscribe(List.of(GROWING_TOPIC));
+			List<ConsumerRecord<String, List<Event>>> records = new ArrayList<>();
+			KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), 8).records(GROWING_TOPIC).forEach(records::add);
+
+			// three envelopes before the topic grew, five after, each on the partition of its event ids at the time
+			assertThat(records).hasSize(8);
+			assertThat(records).filteredOn(record -> record.partition() >= 3).hasSize(2)
+					.allSatisfy(record -> assertThat(record.value()).allSatisfy(event ->
+							assertThat(KafkaMessagePublisher.partitionFor(event.getEventId(), 5)).isEqualTo(record.partition())));
+		}
+		kafkaTemplate.destroy();
+		envelopeKafkaTemplate.destroy();
+	}
+
+	@Test
+	void fullWindowRejectsAfterTheTimeout() throws Exception {
+		KafkaTemplate<String, Event> kafkaTemplate = mockTemplate();
+		// the first send never answers and times out, its retry succeeds
+		when(kafkaTemplate.send(anyString(), anyString(), any(Event.class)))
+				.thenReturn(new CompletableFuture<>(), sent());
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, 1L, 1);
+
+		CompletableFuture<Void> first = publisher.publishEventUpdateAsync(event("event-1"));
+		long start = System.nanoTime();
+		CompletableFuture<Void> second = publisher.publishEventUpdateAsync(event("event-2"));
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(900);
+		assertThatThrownBy(second::join).hasCauseInstanceOf(KafkaMessagePublisher.MessagePublishException.class)
+				.hasMessageContaining("Publish window full");
+		// the rejected publish never held a slot
+		assertThat(publisher.getInFlightCount()).isEqualTo(1);
+		first.get(10, TimeUnit.SECONDS);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+		verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any(Event.class));
+	}
+
+	@Test
+	void failedSendIsRetriedThenFailsItsFuture() {
+		KafkaTemplate<String, Event> kafkaTemplate = mockTemplate();
+		when(kafkaTemplate.send(anyString(), anyString(), any(Event.class)))
+				.thenReturn(CompletableFuture.failedFuture(new KafkaException("broker unavailable")));
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, 10L, 10);
+
+		CompletableFuture<Void> published = publisher.publishEventUpdateAsync(event("event-1"));
+
+		// five attempts with 500ms growing by 1.5x in between
+		assertThatThrownBy(() -> published.get(15, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.cause().isInstanceOf(KafkaMessagePublisher.MessagePublishException.class)
+				.hasRootCauseInstanceOf(KafkaException.class);
+		verify(kafkaTemplate, times(5)).send(anyString(), anyString(), any(Event.class));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+	}
+
+	@Test
+	void releasesTheSlotOnEveryOutcome() throws Exception {
+		KafkaTemplate<String, Event> kafkaTemplate = mockTemplate();
+		when(kafkaTemplate.send(anyString(), anyString(), any(Event.class)))
+				.thenThrow(new KafkaException("producer closed"))
+				.thenReturn(CompletableFuture.failedFuture(new KafkaException("broker unavailable")), sent());
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, 10L, 1);
+
+		// a send that throws and one that fails are both retried on the same slot
+		publisher.publishEventUpdateAsync(event("event-1")).get(10, TimeUnit.SECONDS);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+
+		when(kafkaTemplate.send(anyString(), anyString(), any(Event.class))).thenThrow(new KafkaException("producer closed"));
+		assertThatThrownBy(() -> publisher.publishEventUpdateAsync(event("event-2")).get(15, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+
+		// the window of one is free again
+		when(kafkaTemplate.send(anyString(), anyString(), any(Event.class))).thenReturn(sent());
+		publisher.publishEventUpdateAsync(event("event-3")).get(10, TimeUnit.SECONDS);
+		await().atMost(5, TimeUnit.SECONDS).until(() -> publisher.getInFlightCount() == 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <V> KafkaTemplate<String, V> mockTemplate() {
+		return mock(KafkaTemplate.class);
+	}
+
+	private static CompletableFuture<SendResult<String, Event>> sent() {
+		return CompletableFuture.completedFuture(new SendResult<>(new ProducerRecord<>(TOPIC, "event", null),
+				new RecordMetadata(new TopicPartition(TOPIC, 0), 0, 0, 0, 0, 0)));
+	}
+
+	private static Event event(String eventId) {
+		return Event.builder().eventId(eventId).live(true).currentScore("0-0").build();
+	}
+
+	private static KafkaMessagePublisher newPublisher(KafkaTemplate<String, Event> kafkaTemplate, long publishTimeoutSeconds,
+			int maxInFlight) {
+		KafkaMessagePublisher publisher = newPublisher(kafkaTemplate, mockTemplate(), TOPIC);
+		ReflectionTestUtils.setField(publisher, "publishTimeoutSeconds", publishTimeoutSeconds);
+		ReflectionTestUtils.setField(publisher, "maxInFlight", maxInFlight);
+		ReflectionTestUtils.invokeMethod(publisher, "initInFlightWindow");
+		return publisher;
+	}
+
+	private static KafkaMessagePublisher newPublisher(KafkaTemplate<String, Event> kafkaTemplate,
+			KafkaTemplate<String, byte[]> envelopeKafkaTemplate, String topic) {
+		KafkaMessagePublisher publisher = new KafkaMessagePublisher(kafkaTemplate, envelopeKafkaTemplate, new EventMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(publisher, "topicName", topic);
+		ReflectionTestUtils.setField(publisher, "publishTimeoutSeconds", 10L);
+		ReflectionTestUtils.setField(publisher, "maxInFlight", 100);
+		ReflectionTestUtils.setField(publisher, "envelopeEnabled", true);
+		ReflectionTestUtils.invokeMethod(publisher, "initInFlightWindow");
+		return publisher;
+	}
+}
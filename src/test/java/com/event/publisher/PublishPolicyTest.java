@@ -0,0 +1,58 @@
+package com.event.publisher;
+
+import com.event.model.Event;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublishPolicyTest {
+
+	@Test
+	void alwaysPublishesEveryUpdate() {
+		PublishPolicy policy = new PublishPolicy(PublishPolicy.Mode.ALWAYS, 0);
+
+		assertThat(policy.shouldPublish(event("1-0"))).isTrue();
+		assertThat(policy.shouldPublish(event("1-0"))).isTrue();
+		assertThat(policy.getPublishedCount()).isEqualTo(2);
+		assertThat(policy.getSuppressedCount()).isZero();
+	}
+
+	@Test
+	void onChangeSuppressesUnchangedScores() {
+		PublishPolicy policy = new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 0);
+
+		assertThat(policy.shouldPublish(event("0-0"))).isTrue();
+		assertThat(policy.shouldPublish(event("0-0"))).isFalse();
+		assertThat(policy.shouldPublish(event("0-0"))).isFalse();
+		assertThat(policy.shouldPublish(event("1-0"))).isTrue();
+		assertThat(policy.shouldPublish(event("1-0"))).isFalse();
+
+		assertThat(policy.getPublishedCount()).isEqualTo(2);
+		assertThat(policy.getSuppressedCount()).isEqualTo(3);
+	}
+
+	@Test
+	void heartbeatRepublishesUnchangedScoreEveryNPolls() {
+		PublishPolicy policy = new PublishPolicy(PublishPolicy.Mode.ON_CHANGE_WITH_HEARTBEAT, 3);
+
+		boolean[] decisions = new boolean[7];
+		IntStream.range(0, decisions.length).forEach(i -> decisions[i] = policy.shouldPublish(event("0-0")));
+
+		assertThat(decisions).containsExactly(true, false, false, true, false, false, true);
+	}
+
+	@Test
+	void forgetPublishesNextUpdate() {
+		PublishPolicy policy = new PublishPolicy(PublishPolicy.Mode.ON_CHANGE, 0);
+
+		assertThat(policy.shouldPublish(event("0-0"))).isTrue();
+		policy.forget("event-1");
+		assertThat(policy.shouldPublish(event("0-0"))).isTrue();
+	}
+
+	private static Event event(String score) {
+		return Event.builder().eventId("event-1").live(true).currentScore(score).build();
+	}
+}
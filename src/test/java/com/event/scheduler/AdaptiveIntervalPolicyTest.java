@@ -0,0 +1,61 @@
+package com.event.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveIntervalPolicyTest {
+
+	@Test
+	void backsOffWhileUnchangedUpToTheMax() {
+		// baseline 10s, between 10s and 60s
+		AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(true, 10, 10, 60, 1.5);
+
+		long interval = policy.initialIntervalMillis();
+		assertThat(interval).isEqualTo(10_000);
+		interval = policy.nextIntervalMillis(interval, false);
+		assertThat(interval).isEqualTo(15_000);
+		interval = policy.nextIntervalMillis(interval, false);
+		assertThat(interval).isEqualTo(22_500);
+		for (int i = 0; i < 10; i++) {
+			interval = policy.nextIntervalMillis(interval, false);
+		}
+		assertThat(interval).isEqualTo(60_000);
+	}
+
+	@Test
+	void tightensToTheMinOnAChange() {
+		AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(true, 10, 10, 60, 1.5);
+
+		assertThat(policy.nextIntervalMillis(45_000, true)).isEqualTo(10_000);
+		// never faster than the baseline with the default bounds
+		assertThat(policy.nextIntervalMillis(10_000, true)).isEqualTo(10_000);
+	}
+
+	@Test
+	void clampsToTheBounds() {
+		AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(true, 30, 5, 20, 2);
+
+		// a baseline outside the bounds starts at the nearest one
+		assertThat(policy.initialIntervalMillis()).isEqualTo(20_000);
+		assertThat(policy.nextIntervalMillis(1_000, false)).isEqualTo(5_000);
+		assertThat(policy.nextIntervalMillis(15_000, false)).isEqualTo(20_000);
+	}
+
+	@Test
+	void disabledKeepsTheBaseline() {
+		AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(false, 10, 2, 60, 1.5);
+
+		assertThat(policy.initialIntervalMillis()).isEqualTo(10_000);
+		assertThat(policy.nextIntervalMillis(10_000, true)).isEqualTo(10_000);
+		assertThat(policy.nextIntervalMillis(10_000, false)).isEqualTo(10_000);
+	}
+
+	@Test
+	void rejectsInvalidBounds() {
+		assertThatThrownBy(() -> new AdaptiveIntervalPolicy(true, 10, 0, 60, 1.5)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdaptiveIntervalPolicy(true, 10, 20, 10, 1.5)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdaptiveIntervalPolicy(true, 10, 10, 60, 0.5)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
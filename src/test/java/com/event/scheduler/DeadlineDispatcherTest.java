@@ -0,0 +1,122 @@
+package com.event.scheduler;
+
+import com.event.metrics.EventMetrics;
+import com.event.model.EventPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class DeadlineDispatcherTest {
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final EventMetrics eventMetrics = new EventMetrics(new SimpleMeterRegistry());
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * One slot and 5ms per poll serve 200 polls/s against 1100 due, the high tier keeps its schedule and the low tier
+	 * absorbs the overload instead of every event drifting further behind.
+	 */
+	@Test
+	void highTierKeepsItsScheduleUnderOverload() {
+		DeadlineDispatcher dispatcher = new DeadlineDispatcher(executor, 1, 1,
+				Map.of("HIGH", 100, "LOW", 1_000), Set.of(EventPriority.LOW), eventMetrics);
+		dispatcher.start(eventId -> eventId.startsWith("high") ? EventPriority.HIGH : EventPriority.LOW,
+				eventIds -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5) * eventIds.size()));
+		List<String> due = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			due.add("high-" + i);
+		}
+		for (int i = 0; i < 50; i++) {
+			due.add("low-" + i);
+		}
+
+		long start = System.nanoTime();
+		for (int tick = 0; tick < 40; tick++) {
+			long dueNanos = start + TimeUnit.MILLISECONDS.toNanos(50L * tick);
+			LockSupport.parkNanos(dueNanos - System.nanoTime());
+			dispatcher.dispatch(due, dueNanos);
+		}
+		await().atMost(5, TimeUnit.SECONDS).until(() -> dispatcher.inFlight() == 0);
+
+		Map<String, Object> high = eventMetrics.tierStatus(EventPriority.HIGH);
+		Map<String, Object> low = eventMetrics.tierStatus(EventPriority.LOW);
+		// 200 due, a tick running late on a loaded machine may coalesce one
+		assertThat((long) high.get("polls")).isGreaterThanOrEqualTo(190);
+		assertThat((double) high.get("lagMaxMillis")).isLessThan(250);
+		assertThat(high.get("shed")).isEqualTo(0L);
+		assertThat((long) low.get("shed") + (long) low.get("coalesced")).isPositive();
+		assertThat((double) low.get("lagMaxMillis")).isLessThan(1_250);
+		assertThat(dispatcher.queued()).isZero();
+	}
+
+	/**
+	 * A rejected chunk is dropped and stops the drain, the rest waits in the queue instead of recursing through
+	 * every queued poll.
+	 */
+	@Test
+	void rejectedChunkIsDroppedAndStopsTheDrain() {
+		AtomicBoolean rejecting = new AtomicBoolean(true);
+		AtomicInteger polled = new AtomicInteger();
+		DeadlineDispatcher dispatcher = new DeadlineDispatcher(task -> {
+			if (rejecting.get()) {
+				throw new RejectedExecutionException("executor shut down");
+			}
+			executor.execute(task);
+		}, 1, 1, Map.of(), Set.of(), eventMetrics);
+		dispatcher.start(eventId -> EventPriority.NORMAL, eventIds -> polled.addAndGet(eventIds.size()));
+		List<String> due = new ArrayList<>();
+		for (int i = 0; i < 100_000; i++) {
+			due.add("event-" + i);
+		}
+
+		dispatcher.dispatch(due, System.nanoTime());
+
+		assertThat(dispatcher.queued()).isEqualTo(99_999);
+		assertThat(dispatcher.inFlight()).isEqualTo(99_999);
+		assertThat(dispatcher.status().get("running")).isEqualTo(0);
+
+		rejecting.set(false);
+		// the dropped event is not coalesced into a poll that never ran
+		dispatcher.dispatch(List.of("event-0"), System.nanoTime());
+		await().atMost(10, TimeUnit.SECONDS).until(() -> dispatcher.inFlight() == 0);
+		assertThat(polled.get()).isEqualTo(100_000);
+	}
+
+	@Test
+	void coalescesADueEventWhosePollIsStillQueued() {
+		List<List<String>> polled = new ArrayList<>();
+		DeadlineDispatcher dispatcher = new DeadlineDispatcher(Runnable::run, 1, 10, Map.of(), Set.of(), eventMetrics);
+		dispatcher.start(eventId -> EventPriority.NORMAL, eventIds -> {
+			polled.add(eventIds);
+			if (polled.size() == 1) {
+				// due again while its own poll runs, and a new event
+				dispatcher.dispatch(List.of("event-1", "event-2"), System.nanoTime());
+			}
+		});
+
+		dispatcher.dispatch(List.of("event-1"), System.nanoTime());
+
+		assertThat(polled).containsExactly(List.of("event-1"), List.of("event-2"));
+		assertThat(eventMetrics.tierStatus(EventPriority.NORMAL).get("coalesced")).isEqualTo(1L);
+		assertThat(dispatcher.inFlight()).isZero();
+	}
+}
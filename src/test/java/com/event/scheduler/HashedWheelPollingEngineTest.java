@@ -0,0 +1,103 @@
+package com.event.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class HashedWheelPollingEngineTest {
+
+	private HashedWheelPollingEngine engine;
+
+	private final List<String> fired = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		engine = new HashedWheelPollingEngine(10, 8);
+		engine.start((eventIds, deadlineNanos) -> fired.addAll(eventIds));
+	}
+
+	@AfterEach
+	void tearDown() {
+		engine.stop();
+	}
+
+	@Test
+	void firesScheduledEventsPeriodically() {
+		engine.schedule("event-1", Duration.ZERO, Duration.ofMillis(50));
+		engine.schedule("event-2", Duration.ofMillis(20), Duration.ofMillis(200));
+
+		await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(fired.stream().filter("event-1"::equals).count()).isGreaterThanOrEqualTo(4);
+			assertThat(fired).contains("event-2");
+		});
+		assertThat(engine.size()).isEqualTo(2);
+	}
+
+	@Test
+	void intervalLongerThanWheelRevolutionWaitsForItsRound() {
+		List<Long> deadlines = new CopyOnWriteArrayList<>();
+		engine.stop();
+		engine = new HashedWheelPollingEngine(10, 8);
+		engine.start((eventIds, deadlineNanos) -> deadlines.add(deadlineNanos));
+
+		// 8 buckets of 10ms, a 150ms interval wraps the wheel
+		engine.schedule("event-1", Duration.ZERO, Duration.ofMillis(150));
+
+		// intended fire times rather than wall clock, a late tick on a loaded machine must not fail the test
+		await().atMost(2, TimeUnit.SECONDS).until(() -> deadlines.size() >= 3);
+		for (int i = 1; i < 3; i++) {
+			assertThat(TimeUnit.NANOSECONDS.toMillis(deadlines.get(i) - deadlines.get(i - 1))).isEqualTo(150);
+		}
+	}
+
+	@Test
+	void cancelStopsFurtherPolls() throws InterruptedException {
+		engine.schedule("event-1", Duration.ZERO, Duration.ofMillis(20));
+		await().atMost(1, TimeUnit.SECONDS).until(() -> fired.contains("event-1"));
+
+		assertThat(engine.cancel("event-1")).isTrue();
+		assertThat(engine.cancel("event-1")).isFalse();
+		assertThat(engine.isScheduled("event-1")).isFalse();
+
+		Thread.sleep(50);
+		int firedAfterCancel = fired.size();
+		Thread.sleep(100);
+		assertThat(fired).hasSize(firedAfterCancel);
+	}
+
+	@Test
+	void updateIntervalMovesNextPollWithoutResettingSchedule() {
+		List<Long> firedAt = new CopyOnWriteArrayList<>();
+		engine.stop();
+		engine = new HashedWheelPollingEngine(10, 8);
+		engine.start((eventIds, deadlineNanos) -> firedAt.add(System.nanoTime()));
+
+		engine.schedule("event-1", Duration.ZERO, Duration.ofSeconds(10));
+		await().atMost(1, TimeUnit.SECONDS).until(() -> firedAt.size() == 1);
+
+		assertThat(engine.updateInterval("event-1", Duration.ofMillis(100))).isTrue();
+		assertThat(engine.updateInterval("unknown", Duration.ofMillis(100))).isFalse();
+
+		await().atMost(1, TimeUnit.SECONDS).until(() -> firedAt.size() >= 3);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(firedAt.get(2) - firedAt.get(1))).isBetween(90L, 300L);
+	}
+
+	@Test
+	void rescheduleReplacesExistingSchedule() throws InterruptedException {
+		engine.schedule("event-1", Duration.ofSeconds(10), Duration.ofSeconds(10));
+		engine.schedule("event-1", Duration.ZERO, Duration.ofSeconds(10));
+
+		await().atMost(1, TimeUnit.SECONDS).until(() -> fired.contains("event-1"));
+		Thread.sleep(100);
+		assertThat(fired).containsExactly("event-1");
+		assertThat(engine.size()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,30 @@
+package com.event.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollingPhaseTest {
+
+	@Test
+	void spreadsSequentialIdsEvenlyOverTheInterval() {
+		long intervalMillis = 10_000;
+		int[] perSecond = new int[10];
+		IntStream.range(0, 10_000).forEach(i -> {
+			long offset = PollingPhase.offsetMillis("event-" + i, intervalMillis);
+			assertThat(offset).isBetween(0L, intervalMillis - 1);
+			perSecond[(int) (offset / 1_000)]++;
+		});
+
+		// 1000 expected per second of the interval
+		assertThat(IntStream.of(perSecond).boxed().toList()).allSatisfy(count -> assertThat(count).isBetween(900, 1_100));
+	}
+
+	@Test
+	void samePhaseForTheSameEvent() {
+		assertThat(PollingPhase.offsetMillis("event-42", 10_000)).isEqualTo(PollingPhase.offsetMillis("event-42", 10_000));
+		assertThat(PollingPhase.offsetMillis("event-42", 1)).isZero();
+	}
+}
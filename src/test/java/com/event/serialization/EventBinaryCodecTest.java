@@ -0,0 +1,136 @@
+package com.event.serialization;
+
+import com.event.model.Event;
+import com.event.model.EventPriority;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventBinaryCodecTest {
+
+	private final EventBinarySerializer serializer = new EventBinarySerializer();
+	private final EventBinaryDeserializer deserializer = new EventBinaryDeserializer();
+
+	@Test
+	void roundTripsEvent() {
+		Event event = Event.builder().eventId("game-123").live(true).currentScore("2-1")
+				.lastUpdated(Instant.ofEpochMilli(1_747_391_445_123L)).build();
+
+		byte[] bytes = EventBinaryCodec.encode(event);
+
+		assertThat(EventBinaryCodec.decode(bytes)).isEqualTo(event);
+		// version, flags, id, score and a 6 byte varint timestamp
+		assertThat(bytes).hasSize(2 + 9 + 4 + 6);
+	}
+
+	@Test
+	void roundTripsPriority() {
+		Event event = Event.builder().eventId("game-123").live(true).currentScore("2-1")
+				.lastUpdated(Instant.ofEpochMilli(1_747_391_445_123L)).priority(EventPriority.HIGH).build();
+
+		byte[] bytes = EventBinaryCodec.encode(event);
+
+		assertThat(EventBinaryCodec.decode(bytes)).isEqualTo(event);
+		// one byte over the same event without a tier, which stays a v1 record
+		byte[] withoutTier = EventBinaryCodec.encode(event.toBuilder().priority(null).build());
+		assertThat(bytes).hasSize(withoutTier.length + 1);
+		assertThat(bytes[0]).isEqualTo(EventBinaryCodec.VERSION_2);
+		assertThat(withoutTier[0]).isEqualTo(EventBinaryCodec.VERSION_1);
+	}
+
+	@Test
+	void rejectsFlagsTheVersionDoesNotDefine() {
+		byte[] bytes = EventBinaryCodec.encode(Event.builder().eventId("game-123").live(true)
+				.priority(EventPriority.LOW).build());
+
+		// a tier in a v1 record
+		byte[] v1 = bytes.clone();
+		v1[0] = EventBinaryCodec.VERSION_1;
+		assertThatThrownBy(() -> EventBinaryCodec.decode(v1)).isInstanceOf(IllegalArgumentException.class);
+		// a flag no version defines
+		byte[] unknown = bytes.clone();
+		unknown[1] |= 1 << 4;
+		assertThatThrownBy(() -> EventBinaryCodec.decode(unknown)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void roundTripsNullFieldsAndNonAsciiText() {
+		Event event = Event.builder().eventId("match-ü-⚽-🏆").live(false).currentScore(null).lastUpdated(null).build();
+
+		assertThat(EventBinaryCodec.decode(EventBinaryCodec.encode(event))).isEqualTo(event);
+	}
+
+	@Test
+	void roundTripsEnvelope() {
+		List<Event> events = List.of(
+				Event.builder().eventId("game-1").live(true).currentScore("1-0").lastUpdated(Instant.ofEpochMilli(1_747_391_445_123L)).build(),
+				Event.builder().eventId("game-2").live(true).currentScore("0-0").lastUpdated(null).build(),
+				Event.builder().eventId("game-ü").live(false).lastUpdated(null).build());
+
+		byte[] envelope = EventBinaryCodec.encodeEnvelope(events);
+
+		assertThat(EventBinaryCodec.decodeEnvelope(envelope)).isEqualTo(events);
+		// version and count, then a length byte ahead of each record
+		int records = events.stream().mapToInt(event -> EventBinaryCodec.encode(event).length + 1).sum();
+		assertThat(envelope).hasSize(2 + records);
+		assertThatThrownBy(() -> EventBinaryCodec.decodeEnvelope(Arrays.copyOf(envelope, envelope.length - 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void envelopeDeserializerUnpacksEnvelopesAndWrapsSingleRecords() {
+		Event event = Event.builder().eventId("game-123").live(true).currentScore("3").lastUpdated(null).build();
+		EventEnvelopeDeserializer envelopeDeserializer = new EventEnvelopeDeserializer();
+
+		RecordHeaders envelopeHeaders = new RecordHeaders();
+		envelopeHeaders.add(EventBinaryCodec.FORMAT_HEADER, new byte[] {EventBinaryCodec.FORMAT_ENVELOPE_V1});
+		assertThat(envelopeDeserializer.deserialize("topic", envelopeHeaders, EventBinaryCodec.encodeEnvelope(List.of(event, event))))
+				.containsExactly(event, event);
+
+		RecordHeaders binaryHeaders = new RecordHeaders();
+		byte[] binary = serializer.serialize("topic", binaryHeaders, event);
+		assertThat(envelopeDeserializer.deserialize("topic", binaryHeaders, binary)).containsExactly(event);
+		// a per event consumer must not mistake an envelope for a single update
+		assertThatThrownBy(() -> deserializer.deserialize("topic", envelopeHeaders, EventBinaryCodec.encodeEnvelope(List.of(event))))
+				.isInstanceOf(SerializationException.class);
+	}
+
+	@Test
+	void deserializerDispatchesOnFormatHeader() {
+		Event event = Event.builder().eventId("game-123").live(true).currentScore("3")
+				.lastUpdated(Instant.ofEpochMilli(1_747_391_445_000L)).build();
+
+		RecordHeaders binaryHeaders = new RecordHeaders();
+		byte[] binary = serializer.serialize("topic", binaryHeaders, event);
+		assertThat(binaryHeaders.lastHeader(EventBinaryCodec.FORMAT_HEADER).value()).containsExactly(EventBinaryCodec.FORMAT_BINARY_V1);
+		assertThat(deserializer.deserialize("topic", binaryHeaders, binary)).isEqualTo(event);
+
+		RecordHeaders jsonHeaders = new RecordHeaders();
+		try (JsonSerializer<Event> jsonSerializer = new JsonSerializer<>()) {
+			byte[] json = jsonSerializer.serialize("topic", jsonHeaders, event);
+			assertThat(deserializer.deserialize("topic", jsonHeaders, json)).isEqualTo(event);
+		}
+	}
+
+	@Test
+	void rejectsUnknownFormatAndTruncatedRecords() {
+		RecordHeaders headers = new RecordHeaders();
+		headers.add(EventBinaryCodec.FORMAT_HEADER, new byte[] {42});
+		assertThatThrownBy(() -> deserializer.deserialize("topic", headers, new byte[] {1, 0}))
+				.isInstanceOf(SerializationException.class);
+
+		byte[] bytes = EventBinaryCodec.encode(Event.builder().eventId("game-123").live(true).build());
+		RecordHeaders binaryHeaders = new RecordHeaders();
+		binaryHeaders.add(EventBinaryCodec.FORMAT_HEADER, new byte[] {EventBinaryCodec.FORMAT_BINARY_V1});
+		assertThatThrownBy(() -> deserializer.deserialize("topic", binaryHeaders, Arrays.copyOf(bytes, 5)))
+				.isInstanceOf(SerializationException.class);
+	}
+}
@@ -0,0 +1,179 @@
+package com.event.state;
+
+import com.event.model.Event;
+import com.event.model.EventDelta;
+import com.event.model.EventPriority;
+import com.event.state.EventStore.Update;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventStoreTest {
+
+	static List<EventStore> stores() {
+		return List.of(new MapEventStore(), new PrimitiveEventStore());
+	}
+
+	@ParameterizedTest
+	@MethodSource("stores")
+	void tracksLifecycleOfAnEvent(EventStore store) {
+		store.start("event-1", 10_000, 1_000, null);
+		assertThat(store.isLive("event-1")).isTrue();
+		assertThat(store.get("event-1").getLastUpdated()).isEqualTo(Instant.ofEpochMilli(1_000));
+
+		assertThat(store.updateScore("event-1", "1-0", 2_000)).isEqualTo(Update.CHANGED);
+		assertThat(store.updateScore("event-1", "1-0", 3_000)).isEqualTo(Update.UNCHANGED);
+		assertThat(store.touch("event-1", 4_000)).isTrue();
+		store.setPollingIntervalMillis("event-1", 15_000);
+
+		Event event = store.get("event-1");
+		assertThat(event.getCurrentScore()).isEqualTo("1-0");
+		assertThat(event.getLastUpdated()).isEqualTo(Instant.ofEpochMilli(4_000));
+		assertThat(store.getLastUpdatedMillis("event-1")).isEqualTo(4_000);
+		assertThat(event.getPollingIntervalMillis()).isEqualTo(15_000L);
+
+		assertThat(store.stop("event-1")).isTrue();
+		assertThat(store.isLive("event-1")).isFalse();
+		assertThat(store.asMap()).containsOnlyKeys("event-1");
+
+		assertThat(store.remove("event-1")).isTrue();
+		assertThat(store.get("event-1")).isNull();
+		assertThat(store.updateScore("event-1", "2-0", 5_000)).isEqualTo(Update.ABSENT);
+		assertThat(store.touch("event-1", 5_000)).isFalse();
+		assertThat(store.stop("event-1")).isFalse();
+		assertThat(store.size()).isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("stores")
+	void startsWithItsTierInOneVersion(EventStore store) {
+		store.start("event-1", 10_000, 1_000, EventPriority.HIGH);
+		long version = store.get("event-1").getVersion();
+		assertThat(store.getPriority("event-1")).isEqualTo(EventPriority.HIGH);
+		assertThat(store.changedSince(version).events()).isEmpty();
+
+		// a restart without a tier keeps the one it has
+		store.stop("event-1");
+		store.start("event-1", 10_000, 2_000, null);
+		assertThat(store.get("event-1").getPriority()).isEqualTo(EventPriority.HIGH);
+		assertThat(store.get("event-1").getVersion()).isEqualTo(version + 2);
+	}
+
+	@ParameterizedTest
+	@MethodSource("stores")
+	void restoresRecoveredEvents(EventStore store) {
+		store.put(Event.builder().eventId("event-1").live(false).currentScore("3-2").lastUpdated(null).build());
+
+		Event event = store.get("event-1");
+		assertThat(event.isLive()).isFalse();
+		assertThat(event.getCurrentScore()).isEqualTo("3-2");
+		assertThat(event.getLastUpdated()).isNull();
+		assertThat(event.getPollingIntervalMillis()).isNull();
+		assertThat(store.getPollingIntervalMillis("event-1")).isZero();
+		assertThat(store.getLastUpdatedMillis("event-1")).isEqualTo(-1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("stores")
+	void listsEventsChangedSinceAVersion(EventStore store) {
+		store.start("event-1", 10_000, 1_000, null);
+		store.start("event-2", 10_000, 1_000, null);
+		EventDelta initial = store.changedSince(0);
+		assertThat(initial.full()).isTrue();
+		assertThat(initial.events()).extracting(Event::getEventId).containsExactly("event-1", "event-2");
+		Event read = store.get("event-2");
+
+		store.start("event-3", 10_000, 2_000, null);
+		store.updateScore("event-2", "1-0", 2_000);
+		store.updateScore("event-2", "1-0", 3_000);
+		store.touch("event-1", 3_000);
+		store.setPollingIntervalMillis("event-1", 15_000);
+		store.remove("event-1");
+		store.stop("event-3");
+
+		EventDelta delta = store.changedSince(initial.version());
+		assertThat(delta.full()).isFalse();
+		assertThat(delta.version()).isGreaterThan(initial.version());
+		assertThat(delta.events()).extracting(Event::getEventId).containsExactly("event-2", "event-3");
+		assertThat(delta.events().get(1).isLive()).isFalse();
+		assertThat(delta.removed()).containsExactly("event-1");
+		assertThat(read.getCurrentScore()).isNull();
+
+		EventDelta unchanged = store.changedSince(delta.version());
+		assertThat(unchanged.events()).isEmpty();
+		assertThat(unchanged.removed()).isEmpty();
+		assertThat(unchanged.version()).isEqualTo(delta.version());
+		// the version of another instance, or of this one before a restart
+		assertThat(store.changedSince(delta.version() + 1).full()).isTrue();
+	}
+
+	@ParameterizedTest
+	@MethodSource("stores")
+	void deltaFromBeforeTheOldestLoggedChangeHoldsEveryEvent(EventStore store) {
+		store.start("event-kept", 10_000, 1_000, null);
+		long version = store.changedSince(0).version();
+		IntStream.rangeClosed(0, VersionLog.CAPACITY / 2).forEach(i -> {
+			store.start("event-" + i, 10_000, 1_000, null);
+			store.remove("event-" + i);
+		});
+
+		EventDelta delta = store.changedSince(version);
+
+		assertThat(delta.full()).isTrue();
+		assertThat(delta.events()).extracting(Event::getEventId).containsExactly("event-kept");
+		assertThat(delta.removed()).isEmpty();
+	}
+
+	@Test
+	void removedSlotsAreReusedWithoutLeakingState() {
+		PrimitiveEventStore store = new PrimitiveEventStore();
+		IntStream.range(0, 10_000).forEach(i -> store.start("event-" + i, 10_000, 1_000, null));
+		store.updateScore("event-42", "9-9", 2_000);
+		IntStream.range(0, 10_000).filter(i -> i % 2 == 0).forEach(i -> store.remove("event-" + i));
+
+		store.start("new-event", 10_000, 3_000, null);
+
+		assertThat(store.size()).isEqualTo(5_001);
+		assertThat(store.get("new-event").getCurrentScore()).isNull();
+		assertThat(store.asMap().values()).hasSize(5_001)
+				.allSatisfy(event -> assertThat(event.isLive()).isTrue());
+		assertThat(store.get("event-43").getEventId()).isEqualTo("event-43");
+	}
+
+	@Test
+	void primitiveStoreUpdatesWithoutAllocating() {
+		PrimitiveEventStore store = new PrimitiveEventStore();
+		String[] eventIds = IntStream.range(0, 1_000).mapToObj(i -> "event-" + i).toArray(String[]::new);
+		String[] scores = {"0-0", "1-0", "1-1"};
+		for (String eventId : eventIds) {
+			store.start(eventId, 10_000, 1_000, null);
+		}
+		pollRounds(store, eventIds, scores, 100);
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		pollRounds(store, eventIds, scores, 100);
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+		// 100k updates, a few bytes of slack for the measurement itself
+		assertThat(allocated).isLessThan(1_024);
+	}
+
+	private static void pollRounds(EventStore store, String[] eventIds, String[] scores, int rounds) {
+		for (int round = 0; round < rounds; round++) {
+			for (String eventId : eventIds) {
+				if (store.isLive(eventId)) {
+					store.updateScore(eventId, scores[round % scores.length], round);
+					store.setPollingIntervalMillis(eventId, store.getPollingIntervalMillis(eventId) + 1);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.event.stream;
+
+import com.event.model.Event;
+import com.event.stream.EventUpdateBroadcaster.TooManySubscribersException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class EventUpdateBroadcasterTest {
+
+	// 2 pending events per subscriber, at most 2 subscribers
+	private final EventUpdateBroadcaster broadcaster = new EventUpdateBroadcaster(2, 2, 0);
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.close();
+	}
+
+	@Test
+	void busySubscriberGetsLatestUpdatePerEventAndDropsOldest() throws Exception {
+		RecordingEmitter emitter = new RecordingEmitter();
+		broadcaster.subscribe(null, emitter);
+
+		broadcaster.broadcast(update("event-1", "0-0"));
+		assertThat(emitter.sending.await(1, TimeUnit.SECONDS)).isTrue();
+
+		// the first send is blocked, these are buffered without blocking the broadcasting thread
+		broadcaster.broadcast(update("event-1", "1-0"));
+		broadcaster.broadcast(update("event-1", "2-0"));
+		broadcaster.broadcast(update("event-2", "0-0"));
+		broadcaster.broadcast(update("event-3", "0-0"));
+		emitter.gate.countDown();
+
+		await().atMost(1, TimeUnit.SECONDS).untilAsserted(() ->
+				assertThat(emitter.received).containsExactly("event-1=0-0", "event-2=0-0", "event-3=0-0"));
+		assertThat(broadcaster.status())
+				.containsEntry("broadcast", 5L)
+				.containsEntry("sent", 3L)
+				.containsEntry("conflated", 1L)
+				.containsEntry("dropped", 1L);
+	}
+
+	@Test
+	void subscriberOnlyGetsUpdatesOfItsEvents() {
+		RecordingEmitter emitter = new RecordingEmitter();
+		emitter.gate.countDown();
+		broadcaster.subscribe(Set.of("event-2"), emitter);
+
+		broadcaster.broadcast(update("event-1", "1-0"));
+		broadcaster.broadcast(update("event-2", "0-1"));
+
+		await().atMost(1, TimeUnit.SECONDS).untilAsserted(() ->
+				assertThat(emitter.received).containsExactly("event-2=0-1"));
+	}
+
+	@Test
+	void failedSendUnsubscribesAndFreesTheSlot() {
+		broadcaster.subscribe(null, new RecordingEmitter());
+		RecordingEmitter failing = new RecordingEmitter();
+		failing.fail = true;
+		broadcaster.subscribe(Set.of("event-1"), failing);
+		assertThatThrownBy(() -> broadcaster.subscribe(null, new RecordingEmitter()))
+				.isInstanceOf(TooManySubscribersException.class);
+
+		broadcaster.broadcast(update("event-1", "1-0"));
+
+		await().atMost(1, TimeUnit.SECONDS).until(() -> broadcaster.getSubscriberCount() == 1);
+		broadcaster.subscribe(null, new RecordingEmitter());
+	}
+
+	private static Event update(String eventId, String score) {
+		return Event.builder().eventId(eventId).live(true).currentScore(score).build();
+	}
+
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final CountDownLatch sending = new CountDownLatch(1);
+		private final CountDownLatch gate = new CountDownLatch(1);
+		private final List<String> received = new CopyOnWriteArrayList<>();
+		private volatile boolean fail;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (fail) {
+				throw new IOException("broken pipe");
+			}
+			sending.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			builder.build().stream()
+					.filter(data -> data.getData() instanceof List<?>)
+					.flatMap(data -> ((List<?>) data.getData()).stream())
+					.map(Event.class::cast)
+					.forEach(event -> received.add(event.getEventId() + "=" + event.getCurrentScore()));
+		}
+	}
+}